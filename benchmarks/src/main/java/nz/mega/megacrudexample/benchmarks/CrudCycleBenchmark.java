@@ -0,0 +1,95 @@
+package nz.mega.megacrudexample.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import nz.mega.megacrudexample.MEGACRUD;
+import nz.mega.sdk.MegaApiJava;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.file.Files.deleteIfExists;
+
+/**
+ * Measures one full makeCRUD() cycle (login, account details, sandbox folder, upload, download, update, delete,
+ * logout) against the fake SDK at different simulated request latencies.
+ * <p>
+ * The example's console output is discarded while measuring so that terminal speed does not skew the results.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrudCycleBenchmark {
+
+    /*
+     * The test file makeCRUD() uploads from the working directory.
+     */
+    private static final Path TEST_FILE = Paths.get("README.rst");
+
+    /*
+     * Simulated latency of every request and of the first byte of every transfer.
+     */
+    @Param({"0", "1000"})
+    public long latencyMicros;
+
+    private MegaApiJava megaApiJava;
+    private MEGACRUD megaCrud;
+    private boolean createdTestFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (!Files.exists(TEST_FILE)) {
+            Files.write(TEST_FILE, "MEGA SDK CRUD Java Example benchmark file".getBytes(StandardCharsets.UTF_8));
+            createdTestFile = true;
+        }
+        megaApiJava = new MegaApiJava("benchmark", System.getProperty("user.dir"));
+        megaApiJava.setRequestLatency(latencyMicros, TimeUnit.MICROSECONDS);
+        // The example writes everything through its event log, so discarding the log silences it
+        megaCrud = new MEGACRUD(megaApiJava, "benchmark@example.com", "password", new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        megaCrud.endSession();
+        megaCrud.close();
+        megaApiJava.shutdown();
+        if (createdTestFile) {
+            deleteIfExists(TEST_FILE);
+        }
+    }
+
+    @Benchmark
+    public void crudCycle() {
+        megaCrud.makeCRUD();
+    }
+}
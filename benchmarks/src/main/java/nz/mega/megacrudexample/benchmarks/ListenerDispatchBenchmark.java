@@ -0,0 +1,107 @@
+package nz.mega.megacrudexample.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import nz.mega.megacrudexample.MEGACRUD;
+import nz.mega.megacrudexample.MegaAsyncClient;
+import nz.mega.megacrudexample.RequestLatencyRecorder;
+import nz.mega.megacrudexample.TransferMetrics;
+import nz.mega.sdk.FakeEvents;
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaTransfer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of the client's listener callbacks, which run on the SDK callback thread and delay every
+ * later SDK event, and of a request round trip through a MegaAsyncClient future.
+ * <p>
+ * The example's event log is discarded, so that the example's callbacks are measured without the console output
+ * they queue.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+
+    private MegaApiJava megaApiJava;
+    private MEGACRUD megaCrud;
+    private MegaAsyncClient megaAsyncClient;
+    private RequestLatencyRecorder requestLatencyRecorder;
+    private TransferMetrics transferMetrics;
+    private MegaRequest request;
+    private MegaTransfer transfer;
+    private MegaError ok;
+    private int tag;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        megaApiJava = new MegaApiJava("benchmark", System.getProperty("user.dir"));
+        // The example writes every finished request through its event log, so discarding the log silences it
+        megaCrud = new MEGACRUD(megaApiJava, "benchmark@example.com", "password", new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        megaAsyncClient = new MegaAsyncClient(new MegaApiJava("benchmark", System.getProperty("user.dir")));
+        megaAsyncClient.login("benchmark@example.com", "password").join();
+        requestLatencyRecorder = new RequestLatencyRecorder();
+        transferMetrics = new TransferMetrics(30, TimeUnit.SECONDS);
+        // A request type the example only logs, without reacting to it further
+        request = FakeEvents.request(MegaRequest.TYPE_CREATE_FOLDER, 1);
+        transfer = FakeEvents.transfer(MegaTransfer.TYPE_UPLOAD, 1, "benchmark.bin", 1024 * 1024);
+        ok = FakeEvents.error(MegaError.API_OK);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        megaCrud.close();
+        megaApiJava.shutdown();
+        megaAsyncClient.getApi().shutdown();
+    }
+
+    @Benchmark
+    public void exampleRequestFinish() {
+        megaCrud.onRequestFinish(megaApiJava, request, ok);
+    }
+
+    @Benchmark
+    public void requestLatencyRecording() {
+        MegaRequest next = FakeEvents.request(MegaRequest.TYPE_CREATE_FOLDER, ++tag);
+        requestLatencyRecorder.onRequestStart(megaApiJava, next);
+        requestLatencyRecorder.onRequestFinish(megaApiJava, next, ok);
+    }
+
+    @Benchmark
+    public void transferMetricsUpdate() {
+        transferMetrics.onTransferUpdate(megaApiJava, transfer);
+    }
+
+    @Benchmark
+    public MegaRequest asyncRequestRoundTrip() {
+        return megaAsyncClient.fetchNodes().join();
+    }
+}
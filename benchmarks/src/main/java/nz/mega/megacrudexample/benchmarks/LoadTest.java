@@ -0,0 +1,492 @@
+package nz.mega.megacrudexample.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import nz.mega.megacrudexample.LatencyHistogram;
+import nz.mega.megacrudexample.MEGACRUD;
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+
+import static java.nio.file.Files.deleteIfExists;
+
+/**
+ * Drives concurrent create/read/update/delete cycles through MEGACRUD against the fake SDK for a soak test, and
+ * reports throughput, latency percentiles and error rates as it runs.
+ * <p>
+ * Each of the concurrent workers has a session of its own: its own fake SDK instance and account, and its own
+ * MEGACRUD object working in a local directory of its own. So every operation goes through the path cache, the
+ * transfer scheduler, the quota guard, the content cache, the callback dispatcher and the event log, like it does
+ * in the example. A worker logs in, creates its sandbox folder and then runs the CRUD steps back to back, picked at
+ * random by the operation mix: create uploads README.rst, read downloads it, update uploads a new version and
+ * removes the old one, and delete removes one. The local README.rst is copied from files sampled from a size
+ * distribution before every create and update. The steps report failures only through the event log, so a worker
+ * checks the effect of every step on its sandbox folder and counts a step without the expected effect as an error.
+ * <p>
+ * The fake SDK simulates the request latency, the bandwidth of each worker's session and temporary errors, which
+ * the client retries like it would against the MEGA servers. Every interval a line with the operations per second,
+ * errors and latency percentiles of that interval is printed, followed by a summary per operation at the end.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar nz.mega.megacrudexample.benchmarks.LoadTest \
+ *     --concurrency 32 --duration 60 --mix create=1,read=4,update=2,delete=1 --size lognormal:64k:1.5 \
+ *     --latency-micros 20000 --bandwidth 50m --error-rate 0.01
+ * </pre>
+ * Sizes accept k, m and g suffixes. Size distributions are fixed:SIZE, uniform:MIN:MAX or lognormal:MEDIAN:SIGMA.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class LoadTest {
+
+    /*
+     * The operations a worker runs.
+     */
+    private enum Operation {
+        CREATE, READ, UPDATE, DELETE
+    }
+
+    /*
+     * The number of distinct local files generated from the size distribution for uploads.
+     */
+    private static final int SAMPLE_FILES = 64;
+
+    /*
+     * How long a worker pauses after a failed operation, so that it does not spin while a circuit breaker is open.
+     */
+    private static final long ERROR_PAUSE_MILLIS = 50;
+
+    /*
+     * The local test file MEGACRUD uploads, the copy it downloads, and the remote folder it works in.
+     */
+    private static final String TEST_FILE = "README.rst";
+    private static final String RETURNED_FILE = "README_returned.rst";
+    private static final String SANDBOX = "sandbox";
+
+    private final int concurrency;
+    private final long durationNanos;
+    private final long intervalNanos;
+    private final Map<Operation, Integer> mix;
+    private final LongSupplier sizes;
+    private final double errorRate;
+    private final long latencyMicros;
+    private final long bandwidth;
+    private final Path workDirectory;
+    private final PrintStream out;
+
+    /*
+     * Results of the current interval, swapped out when it is printed, and of the whole run.
+     */
+    private final AtomicReference<Results> interval = new AtomicReference<>(new Results());
+    private final Results total = new Results();
+
+    private final List<Path> sampleFiles = new ArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * Creates a new LoadTest from command line options.
+     *
+     * @param options The options, each option name mapped to its value
+     * @param out The stream to report to
+     * @throws IOException If the working directory cannot be created
+     */
+    public LoadTest(Map<String, String> options, PrintStream out) throws IOException {
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "30")));
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("interval", "5")));
+        this.mix = parseMix(options.getOrDefault("mix", "create=1,read=4,update=2,delete=1"));
+        this.sizes = parseSizes(options.getOrDefault("size", "uniform:1k:256k"),
+                new Random(Long.parseLong(options.getOrDefault("seed", "1"))));
+        this.latencyMicros = Long.parseLong(options.getOrDefault("latency-micros", "1000"));
+        this.bandwidth = parseSize(options.getOrDefault("bandwidth", "0"));
+        // Injected once logged in, so that the run does not fail before it starts
+        this.errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+        this.out = out;
+        this.workDirectory = Files.createTempDirectory("megacrud-load");
+    }
+
+    /**
+     * Runs the load test with options given as --name value pairs.
+     *
+     * @param args Command-line arguments
+     * @throws Exception If the load test cannot be set up
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name value but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new LoadTest(options, System.out).run();
+        System.exit(0);
+    }
+
+    /**
+     * Logs every worker in, runs the workers for the configured duration, logs them out and prints the report.
+     *
+     * @throws Exception If logging in or setting up the workers fails
+     */
+    public void run() throws Exception {
+        Path samples = Files.createDirectories(workDirectory.resolve("samples"));
+        for (int i = 0; i < SAMPLE_FILES; i++) {
+            Path file = samples.resolve("sample-" + i);
+            Files.write(file, new byte[(int) Math.min(Integer.MAX_VALUE - 8, sizes.getAsLong())]);
+            sampleFiles.add(file);
+        }
+        List<Worker> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(new Worker(i));
+            }
+
+            out.println("Load test: " + concurrency + " workers for " + TimeUnit.NANOSECONDS.toSeconds(durationNanos)
+                    + " s, mix " + mix);
+            out.println(String.format(Locale.ROOT, "%8s %10s %8s %8s %10s %10s %10s", "time", "ops/s", "errors",
+                    "error %", "p50", "p99", "max"));
+            List<Thread> threads = new ArrayList<>();
+            long started = System.nanoTime();
+            for (Worker worker : workers) {
+                Thread thread = new Thread(worker, "load-test-worker-" + worker.id);
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+            long nextReport = started + intervalNanos;
+            long end = started + durationNanos;
+            while (System.nanoTime() < end) {
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, Math.min(nextReport, end) - System.nanoTime()));
+                long now = System.nanoTime();
+                if (now >= nextReport || now >= end) {
+                    report(interval.getAndSet(new Results()), now - started, now - (nextReport - intervalNanos));
+                    nextReport += intervalNanos;
+                }
+            }
+            running = false;
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            }
+            summary(System.nanoTime() - started, workers);
+        } finally {
+            for (Worker worker : workers) {
+                worker.close();
+            }
+            try (Stream<Path> paths = Files.walk(workDirectory)) {
+                // Deepest first, so that every directory is empty when it is deleted
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /*
+     * Prints one interval line: operations per second, errors and latency percentiles over all operations.
+     */
+    private void report(Results results, long elapsedNanos, long intervalLengthNanos) {
+        LatencyHistogram all = new LatencyHistogram();
+        long errors = 0;
+        for (Operation operation : Operation.values()) {
+            all.add(results.latencies.get(operation));
+            errors += results.errors.get(operation).sum();
+        }
+        long operations = all.getCount() + errors;
+        out.println(String.format(Locale.ROOT, "%7.0fs %10.1f %8d %7.2f%% %10s %10s %10s", elapsedNanos / 1e9,
+                operations / (intervalLengthNanos / 1e9), errors, operations == 0 ? 0 : 100.0 * errors / operations,
+                millis(all.getPercentile(50)), millis(all.getPercentile(99)), millis(all.getMax())));
+    }
+
+    /*
+     * Prints the totals of the whole run per operation, the totals of the workers' event logs and callback
+     * dispatchers, and the state of the first worker's transfer scheduler, quota guard and content cache.
+     */
+    private void summary(long elapsedNanos, List<Worker> workers) {
+        out.println();
+        out.println(String.format(Locale.ROOT, "%-8s %10s %10s %8s %10s %10s %10s %10s", "op", "count", "ops/s",
+                "errors", "p50", "p90", "p99", "max"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latencies = total.latencies.get(operation);
+            out.println(String.format(Locale.ROOT, "%-8s %10d %10.1f %8d %10s %10s %10s %10s",
+                    operation.name().toLowerCase(Locale.ROOT), latencies.getCount(),
+                    latencies.getCount() / (elapsedNanos / 1e9), total.errors.get(operation).sum(),
+                    millis(latencies.getPercentile(50)), millis(latencies.getPercentile(90)),
+                    millis(latencies.getPercentile(99)), millis(latencies.getMax())));
+        }
+        long dropped = 0;
+        long overflows = 0;
+        int maxQueueDepth = 0;
+        for (Worker worker : workers) {
+            dropped += worker.megaCrud.getEventLog().getDropped();
+            overflows += worker.megaCrud.getCallbackDispatcher().getOverflows();
+            maxQueueDepth = Math.max(maxQueueDepth, worker.megaCrud.getCallbackDispatcher().getMaxQueueDepth());
+        }
+        out.println("Bytes uploaded: " + total.bytesUploaded.sum() + ", downloaded: " + total.bytesDownloaded.sum()
+                + ", event log lines dropped: " + dropped + ", callback overflows: " + overflows
+                + ", max callback queue depth: " + maxQueueDepth);
+        if (!workers.isEmpty()) {
+            MEGACRUD first = workers.get(0).megaCrud;
+            out.println("Worker 0: " + first.getTransferScheduler());
+            out.println("Worker 0: " + first.getQuotaGuard());
+            out.println("Worker 0: " + first.getContentCache());
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+    }
+
+    /*
+     * One closed-loop worker with a session of its own: runs the next CRUD step as soon as the previous one has
+     * finished.
+     */
+    private final class Worker implements Runnable, AutoCloseable {
+        private final int id;
+        private final Path directory;
+        private final MegaApiJava megaApiJava;
+        private final MEGACRUD megaCrud;
+        private final MegaNode sandbox;
+        private final Operation[] picks;
+
+        /*
+         * Logs in and creates the sandbox folder, like the first steps of makeCRUD().
+         */
+        Worker(int id) throws IOException {
+            this.id = id;
+            this.directory = Files.createDirectories(workDirectory.resolve("worker-" + id));
+            this.megaApiJava = new MegaApiJava("load-test", directory.toString());
+            megaApiJava.setRequestLatency(latencyMicros, TimeUnit.MICROSECONDS);
+            megaApiJava.setBandwidth(bandwidth);
+            // The event log is drained but not printed, so that the report stays readable
+            this.megaCrud = new MEGACRUD(megaApiJava, "load-test-" + id + "@example.com", "password",
+                    new PrintStream(new OutputStream() {
+                        @Override
+                        public void write(int b) {
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) {
+                        }
+                    }), directory);
+            megaCrud.login();
+            megaCrud.getAccountDetails();
+            megaCrud.makeTempDir();
+            megaCrud.changeToTempDir();
+            MegaNode root = megaApiJava.getRootNode();
+            this.sandbox = root == null ? null : megaApiJava.getNodeByPath(SANDBOX, root);
+            if (sandbox == null) {
+                throw new IOException("Worker " + id + " could not log in and create its sandbox folder");
+            }
+            megaApiJava.setTemporaryErrorRate(errorRate);
+            List<Operation> weighted = new ArrayList<>();
+            for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+                for (int i = 0; i < entry.getValue(); i++) {
+                    weighted.add(entry.getKey());
+                }
+            }
+            this.picks = weighted.toArray(new Operation[0]);
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running && !Thread.currentThread().isInterrupted()) {
+                Operation operation = picks[random.nextInt(picks.length)];
+                List<MegaNode> files = testFiles();
+                if (files.isEmpty()) {
+                    // Nothing to read, update or delete yet
+                    operation = Operation.CREATE;
+                }
+                boolean succeeded;
+                long latency;
+                try {
+                    if (operation == Operation.CREATE || operation == Operation.UPDATE) {
+                        Files.copy(sampleFiles.get(random.nextInt(sampleFiles.size())),
+                                directory.resolve(TEST_FILE), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    else if (operation == Operation.READ) {
+                        deleteIfExists(directory.resolve(RETURNED_FILE));
+                    }
+                    long start = System.nanoTime();
+                    execute(operation);
+                    latency = System.nanoTime() - start;
+                    succeeded = verify(operation, files.size());
+                } catch (IOException e) {
+                    latency = 0;
+                    succeeded = false;
+                }
+                if (succeeded) {
+                    interval.get().latencies.get(operation).record(latency);
+                    total.latencies.get(operation).record(latency);
+                    continue;
+                }
+                interval.get().errors.get(operation).increment();
+                total.errors.get(operation).increment();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(ERROR_PAUSE_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void execute(Operation operation) {
+            switch (operation) {
+                case CREATE:
+                    megaCrud.create();
+                    break;
+                case READ:
+                    megaCrud.read();
+                    break;
+                case UPDATE:
+                    megaCrud.update();
+                    break;
+                default:
+                    megaCrud.delete();
+                    break;
+            }
+        }
+
+        /*
+         * Checks that a step had its effect on the sandbox folder, which held filesBefore test files before it ran,
+         * and counts the bytes it moved.
+         */
+        private boolean verify(Operation operation, int filesBefore) throws IOException {
+            List<MegaNode> files = testFiles();
+            switch (operation) {
+                case CREATE:
+                    if (files.size() != filesBefore + 1) {
+                        return false;
+                    }
+                    total.bytesUploaded.add(Files.size(directory.resolve(TEST_FILE)));
+                    return true;
+                case READ:
+                    Path returned = directory.resolve(RETURNED_FILE);
+                    if (!Files.exists(returned)) {
+                        return false;
+                    }
+                    long size = Files.size(returned);
+                    total.bytesDownloaded.add(size);
+                    return files.stream().anyMatch(file -> file.getSize() == size);
+                case UPDATE:
+                    long localSize = Files.size(directory.resolve(TEST_FILE));
+                    if (files.size() != filesBefore || files.stream().noneMatch(file -> file.getSize() == localSize)) {
+                        return false;
+                    }
+                    total.bytesUploaded.add(localSize);
+                    return true;
+                default:
+                    return files.size() == filesBefore - 1;
+            }
+        }
+
+        /*
+         * Returns the test files in the sandbox folder. Every create adds another node with the same name.
+         */
+        private List<MegaNode> testFiles() {
+            List<MegaNode> files = new ArrayList<>();
+            for (MegaNode child : megaApiJava.getChildren(sandbox)) {
+                if (TEST_FILE.equals(child.getName())) {
+                    files.add(child);
+                }
+            }
+            return files;
+        }
+
+        /*
+         * Removes the sandbox folder, logs out locally and shuts the worker's session down.
+         */
+        @Override
+        public void close() {
+            megaApiJava.setTemporaryErrorRate(0);
+            megaCrud.logout();
+            megaCrud.close();
+            megaApiJava.shutdown();
+        }
+    }
+
+    /*
+     * Latencies and error counts per operation, and bytes moved.
+     */
+    private static final class Results {
+        final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        final LongAdder bytesUploaded = new LongAdder();
+        final LongAdder bytesDownloaded = new LongAdder();
+
+        Results() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyHistogram());
+                errors.put(operation, new LongAdder());
+            }
+        }
+    }
+
+    /*
+     * Parses an operation mix such as create=1,read=4,update=2,delete=1 into weights.
+     */
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] weight = part.split("=");
+            weights.put(Operation.valueOf(weight[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(weight[1]));
+        }
+        return weights;
+    }
+
+    /*
+     * Parses a size distribution: fixed:SIZE, uniform:MIN:MAX or lognormal:MEDIAN:SIGMA.
+     */
+    private static LongSupplier parseSizes(String distribution, Random random) {
+        String[] parts = distribution.split(":");
+        switch (parts[0]) {
+            case "fixed":
+                long size = parseSize(parts[1]);
+                return () -> size;
+            case "uniform":
+                long min = parseSize(parts[1]);
+                long max = parseSize(parts[2]);
+                return () -> min + (long) (random.nextDouble() * (max - min + 1));
+            case "lognormal":
+                double median = parseSize(parts[1]);
+                double sigma = Double.parseDouble(parts[2]);
+                return () -> (long) (median * Math.exp(sigma * random.nextGaussian()));
+            default:
+                throw new IllegalArgumentException("Unknown size distribution: " + distribution);
+        }
+    }
+
+    private static long parseSize(String size) {
+        String value = size.trim().toLowerCase(Locale.ROOT);
+        long unit = 1;
+        if (value.endsWith("k")) {
+            unit = 1024;
+        }
+        else if (value.endsWith("m")) {
+            unit = 1024 * 1024;
+        }
+        else if (value.endsWith("g")) {
+            unit = 1024 * 1024 * 1024;
+        }
+        if (unit > 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return (long) (Double.parseDouble(value) * unit);
+    }
+}
@@ -0,0 +1,89 @@
+package nz.mega.megacrudexample.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import nz.mega.megacrudexample.MegaAsyncClient;
+import nz.mega.megacrudexample.NodePathCache;
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures resolving a path of a given depth with getNodeByPath() directly and through the NodePathCache.
+ * <p>
+ * Against the fake SDK the direct lookup is an in-memory walk, so the gap to the real SDK, where every lookup
+ * crosses JNI, is understated.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathResolutionBenchmark {
+
+    /*
+     * Number of folders on the resolved path.
+     */
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    /*
+     * Number of sibling folders at every level, which the direct lookup has to search through.
+     */
+    @Param({"32"})
+    public int fanOut;
+
+    private MegaApiJava megaApiJava;
+    private NodePathCache nodePathCache;
+    private MegaNode root;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        megaApiJava = new MegaApiJava("benchmark", System.getProperty("user.dir"));
+        MegaAsyncClient megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("benchmark@example.com", "password").join();
+        root = megaApiJava.getRootNode();
+        MegaNode parent = root;
+        StringBuilder builder = new StringBuilder();
+        for (int level = 0; level < depth; level++) {
+            for (int sibling = 0; sibling < fanOut; sibling++) {
+                megaAsyncClient.createFolder("folder" + sibling, parent).join();
+            }
+            parent = megaApiJava.getNodeByPath("folder" + (fanOut - 1), parent);
+            builder.append(level == 0 ? "" : "/").append("folder").append(fanOut - 1);
+        }
+        path = builder.toString();
+        nodePathCache = new NodePathCache(megaApiJava);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        megaApiJava.shutdown();
+    }
+
+    @Benchmark
+    public MegaNode direct() {
+        return megaApiJava.getNodeByPath(path, root);
+    }
+
+    @Benchmark
+    public MegaNode cached() {
+        return nodePathCache.getNodeByPath(path, root);
+    }
+}
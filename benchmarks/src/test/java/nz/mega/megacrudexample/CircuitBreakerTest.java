@@ -0,0 +1,92 @@
+package nz.mega.megacrudexample;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the state transitions of CircuitBreaker.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    @Test
+    public void staysClosedUntilMinimumCallsHaveBeenRecorded() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, OPEN_MILLIS);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowCall());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void opensAtTheFailureThresholdOverTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, OPEN_MILLIS);
+        breaker.recordFailure();
+        for (int i = 0; i < 6; i++) {
+            breaker.recordSuccess();
+        }
+        // The early failure has left the window, so one more is only a quarter of it
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void openRejectsCallsUntilItLetsOneTrialThrough() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        assertFalse(breaker.allowCall());
+        assertTrue(breaker.getRetryAfterMillis() > 0);
+
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertTrue(breaker.allowCall());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // Only one trial call at a time
+        assertFalse(breaker.allowCall());
+        assertEquals(0, breaker.getRetryAfterMillis());
+    }
+
+    @Test
+    public void successfulTrialCloses() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertTrue(breaker.allowCall());
+
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowCall());
+        // The window starts again empty, so a single failure does not re-open it
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failedTrialReopens() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertTrue(breaker.allowCall());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowCall());
+    }
+
+    private static CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, OPEN_MILLIS);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
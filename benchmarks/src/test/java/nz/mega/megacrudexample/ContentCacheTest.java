@@ -0,0 +1,208 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that ContentCache evicts the least recently read files over its budget, drops invalidated files, and keeps
+ * interrupted segmented downloads so that reading the file again resumes them.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class ContentCacheTest {
+
+    private static final int FILE_SIZE = 100;
+
+    /*
+     * The number of segments a file of SEGMENTED_DOWNLOAD_THRESHOLD bytes is downloaded in.
+     */
+    private static final int SEGMENTS = 8;
+
+    private Path directory;
+    private Path cacheDirectory;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("content-cache-test");
+        cacheDirectory = directory.resolve("cache");
+        megaApiJava = new MegaApiJava("test", directory.toString());
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("test@example.com", "password").get();
+        megaAsyncClient.fetchNodes().get();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        megaApiJava.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void leastRecentlyReadFileIsEvicted() throws Exception {
+        MegaNode a = upload("a", new byte[FILE_SIZE]);
+        MegaNode b = upload("b", new byte[FILE_SIZE]);
+        MegaNode c = upload("c", new byte[FILE_SIZE]);
+        ContentCache cache = new ContentCache(megaAsyncClient, cacheDirectory, 2 * FILE_SIZE + FILE_SIZE / 2);
+        read(cache, a);
+        read(cache, b);
+        read(cache, a);
+        read(cache, c);
+        assertEquals(2 * FILE_SIZE, cache.getCachedBytes());
+        assertEquals(FILE_SIZE, cache.getBytesSaved());
+
+        read(cache, a);
+        read(cache, c);
+        assertEquals(3 * FILE_SIZE, cache.getBytesSaved());
+        // b was read least recently, so it is downloaded again
+        read(cache, b);
+        assertEquals(3 * FILE_SIZE, cache.getBytesSaved());
+    }
+
+    @Test
+    public void invalidatedFileIsDownloadedAgain() throws Exception {
+        MegaNode a = upload("a", new byte[FILE_SIZE]);
+        ContentCache cache = new ContentCache(megaAsyncClient, cacheDirectory, 10 * FILE_SIZE);
+        read(cache, a);
+        assertEquals(FILE_SIZE, cache.getCachedBytes());
+
+        cache.invalidate(Collections.singletonList(a));
+        assertEquals(0, cache.getCachedBytes());
+        assertEquals(0, cachedFiles());
+        read(cache, a);
+        assertEquals(0, cache.getBytesSaved());
+        assertEquals(0.0, cache.getHitRatio(), 0.0);
+    }
+
+    @Test
+    public void reopeningKeepsCachedFilesAndResumablePartialFiles() throws Exception {
+        Files.createDirectories(cacheDirectory);
+        Files.write(cacheDirectory.resolve("a-1-3"), new byte[3]);
+        Files.write(cacheDirectory.resolve("b-1-3.part"), new byte[3]);
+        Files.write(cacheDirectory.resolve("c-1-3.part"), new byte[3]);
+        Files.write(cacheDirectory.resolve("c-1-3.part.segments"), new byte[3]);
+        Files.write(cacheDirectory.resolve("d-1-3.part.segments"), new byte[3]);
+        Files.write(cacheDirectory.resolve("not-cached"), new byte[3]);
+
+        ContentCache cache = new ContentCache(megaAsyncClient, cacheDirectory, 10 * FILE_SIZE);
+        assertEquals(3, cache.getCachedBytes());
+        assertTrue(Files.exists(cacheDirectory.resolve("a-1-3")));
+        assertFalse(Files.exists(cacheDirectory.resolve("b-1-3.part")));
+        assertTrue(Files.exists(cacheDirectory.resolve("c-1-3.part")));
+        assertTrue(Files.exists(cacheDirectory.resolve("c-1-3.part.segments")));
+        assertFalse(Files.exists(cacheDirectory.resolve("d-1-3.part.segments")));
+        assertFalse(Files.exists(cacheDirectory.resolve("not-cached")));
+    }
+
+    @Test
+    public void interruptedSegmentedReadResumesAfterReopening() throws Exception {
+        byte[] content = new byte[(int) MEGACRUD.SEGMENTED_DOWNLOAD_THRESHOLD];
+        new Random(1).nextBytes(content);
+        MegaNode large = upload("large", content);
+        // Segments start as others finish, so two segments are on disk when the sixth one starts
+        DownloadCounter cancelling = new DownloadCounter(6);
+        megaApiJava.addTransferListener(cancelling);
+        try {
+            read(new ContentCache(megaAsyncClient, cacheDirectory, content.length), large);
+            fail("The read should have failed");
+        } catch (ExecutionException e) {
+            // The sixth segment was cancelled
+        } finally {
+            megaApiJava.removeTransferListener(cancelling);
+        }
+
+        DownloadCounter resumed = new DownloadCounter(0);
+        megaApiJava.addTransferListener(resumed);
+        ContentCache reopened = new ContentCache(megaAsyncClient, cacheDirectory, content.length);
+        Path target = read(reopened, large);
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertTrue("Finished segments were downloaded again", resumed.started.get() <= SEGMENTS - 2);
+        assertEquals(content.length, reopened.getCachedBytes());
+        assertEquals(1, cachedFiles());
+    }
+
+    private MegaNode upload(String name, byte[] content) throws Exception {
+        Path local = Files.write(directory.resolve(name), content);
+        return megaApiJava.getNodeByHandle(megaAsyncClient.upload(local.toString(), megaApiJava.getRootNode()).get()
+                .getNodeHandle());
+    }
+
+    private Path read(ContentCache cache, MegaNode node) throws Exception {
+        Path target = directory.resolve(node.getName() + ".read");
+        assertEquals(node.getSize(), (long) cache.read(node, target).get());
+        return target;
+    }
+
+    private long cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.count();
+        }
+    }
+
+    /*
+     * Counts the downloads which start, and cancels the nth one unless n is 0.
+     */
+    private static final class DownloadCounter implements MegaTransferListenerInterface {
+        private final int cancelled;
+        final AtomicInteger started = new AtomicInteger();
+
+        DownloadCounter(int cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+            if (transfer.getType() == MegaTransfer.TYPE_DOWNLOAD && started.incrementAndGet() == cancelled) {
+                api.cancelTransfer(transfer);
+            }
+        }
+
+        @Override
+        public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+        }
+
+        @Override
+        public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+
+        }
+
+        @Override
+        public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+        }
+
+        @Override
+        public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+            return false;
+        }
+    }
+}
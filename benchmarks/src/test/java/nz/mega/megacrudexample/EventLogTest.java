@@ -0,0 +1,104 @@
+package nz.mega.megacrudexample;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that EventLog writes every event in order as its ring wraps around, and drops and counts events rather than
+ * blocking while its writer is a full ring behind.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class EventLogTest {
+
+    private static final int CAPACITY = 4;
+
+    @Test
+    public void eventsAreWrittenInOrderAcrossManyWraps() {
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        List<String> expected = new ArrayList<>();
+        try (EventLog eventLog = new EventLog(new PrintStream(written, true), CAPACITY)) {
+            for (int i = 0; i < 100; i++) {
+                String message = "event " + i;
+                eventLog.message(message);
+                expected.add(message);
+                if (i % CAPACITY == CAPACITY - 1) {
+                    // Lets the writer free the ring before it can fill up
+                    eventLog.flush();
+                }
+            }
+            eventLog.flush();
+            assertEquals(0, eventLog.getDropped());
+        }
+        assertEquals(expected, lines(written));
+    }
+
+    @Test
+    public void eventsAreDroppedAndCountedWhileTheWriterIsBehind() throws InterruptedException {
+        BlockingStream blocking = new BlockingStream();
+        try (EventLog eventLog = new EventLog(new PrintStream(blocking, true), CAPACITY)) {
+            eventLog.message("first");
+            // The writer has freed the slot of the first event and is stuck writing it
+            assertTrue(blocking.entered.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < CAPACITY; i++) {
+                eventLog.message("queued " + i);
+            }
+            for (int i = 0; i < 3; i++) {
+                eventLog.message("dropped " + i);
+            }
+            assertEquals(3, eventLog.getDropped());
+
+            blocking.release.countDown();
+            eventLog.flush();
+            eventLog.message("after");
+        }
+        assertEquals(Arrays.asList("first", "queued 0", "queued 1", "queued 2", "queued 3",
+                "3 log events dropped", "after"), lines(blocking.written));
+    }
+
+    private static List<String> lines(ByteArrayOutputStream written) {
+        String text = new String(written.toByteArray(), StandardCharsets.UTF_8);
+        return text.isEmpty() ? new ArrayList<>() : Arrays.asList(text.split(System.lineSeparator()));
+    }
+
+    /*
+     * Blocks the first write until it is released, like a console which has stopped reading.
+     */
+    private static final class BlockingStream extends OutputStream {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            synchronized (written) {
+                written.write(b, off, len);
+            }
+        }
+    }
+}
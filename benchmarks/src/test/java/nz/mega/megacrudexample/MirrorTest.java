@@ -0,0 +1,125 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests that Mirror transfers only the files which differ between a local directory and a remote folder, in both
+ * directions, and removes extraneous files when asked to.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class MirrorTest {
+
+    private Path directory;
+    private Path source;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+    private ExecutorService fingerprintExecutor;
+    private FingerprintCache fingerprintCache;
+    private MegaNode remoteFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("mirror-test");
+        source = directory.resolve("source");
+        Files.createDirectories(source.resolve("a").resolve("b"));
+        Files.write(source.resolve("top.txt"), new byte[50]);
+        Files.write(source.resolve("a").resolve("one.txt"), new byte[100]);
+        Files.write(source.resolve("a").resolve("b").resolve("two.txt"), new byte[200]);
+        megaApiJava = new MegaApiJava("test", directory.toString());
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("test@example.com", "password").get();
+        megaAsyncClient.fetchNodes().get();
+        fingerprintExecutor = Executors.newSingleThreadExecutor();
+        fingerprintCache = new FingerprintCache(megaApiJava, fingerprintExecutor);
+        remoteFolder = megaApiJava.getNodeByHandle(megaAsyncClient.createFolder("mirror",
+                megaApiJava.getRootNode()).get().getNodeHandle());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fingerprintExecutor.shutdownNow();
+        megaApiJava.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void secondMirrorToRemoteTransfersOnlyTheChangedFile() throws Exception {
+        MirrorReport first = mirror(true).run(source, remoteFolder, Mirror.Direction.TO_REMOTE);
+        assertEquals(3, first.getFilesTransferred());
+        assertEquals(2, first.getFoldersCreated());
+        assertEquals(350, first.getBytesTransferred());
+        assertEquals(0, first.getFilesFailed());
+
+        Files.write(source.resolve("top.txt"), new byte[60]);
+        Files.delete(source.resolve("a").resolve("one.txt"));
+        MirrorReport second = mirror(true).run(source, remoteFolder, Mirror.Direction.TO_REMOTE);
+        assertEquals(1, second.getFilesTransferred());
+        assertEquals(60, second.getBytesTransferred());
+        assertEquals(1, second.getFilesSkipped());
+        assertEquals(200, second.getBytesSkipped());
+        assertEquals(1, second.getRemoved());
+        assertEquals(0, second.getFoldersCreated());
+        MegaNode a = megaApiJava.getNodeByPath("a", remoteFolder);
+        assertNull(megaApiJava.getNodeByPath("one.txt", a));
+        assertEquals(60, megaApiJava.getNodeByPath("top.txt", remoteFolder).getSize());
+    }
+
+    @Test
+    public void extraneousFilesAreKeptUnlessRemovalIsAsked() throws Exception {
+        mirror(false).run(source, remoteFolder, Mirror.Direction.TO_REMOTE);
+        Files.delete(source.resolve("top.txt"));
+
+        MirrorReport report = mirror(false).run(source, remoteFolder, Mirror.Direction.TO_REMOTE);
+        assertEquals(0, report.getFilesTransferred());
+        assertEquals(0, report.getRemoved());
+        assertEquals(50, megaApiJava.getNodeByPath("top.txt", remoteFolder).getSize());
+    }
+
+    @Test
+    public void mirrorToLocalDownloadsOnlyWhatIsMissing() throws Exception {
+        mirror(true).run(source, remoteFolder, Mirror.Direction.TO_REMOTE);
+        Path copy = directory.resolve("copy");
+
+        MirrorReport first = mirror(true).run(copy, remoteFolder, Mirror.Direction.TO_LOCAL);
+        assertEquals(3, first.getFilesTransferred());
+        assertArrayEquals(Files.readAllBytes(source.resolve("a").resolve("b").resolve("two.txt")),
+                Files.readAllBytes(copy.resolve("a").resolve("b").resolve("two.txt")));
+
+        Files.delete(copy.resolve("a").resolve("one.txt"));
+        Files.write(copy.resolve("extra.txt"), new byte[10]);
+        MirrorReport second = mirror(true).run(copy, remoteFolder, Mirror.Direction.TO_LOCAL);
+        assertEquals(1, second.getFilesTransferred());
+        assertEquals(100, second.getBytesTransferred());
+        assertEquals(2, second.getFilesSkipped());
+        assertEquals(1, second.getRemoved());
+        assertFalse(Files.exists(copy.resolve("extra.txt")));
+        assertEquals(100, Files.size(copy.resolve("a").resolve("one.txt")));
+    }
+
+    private Mirror mirror(boolean removeExtraneous) {
+        return new Mirror(megaAsyncClient, fingerprintCache, 4, removeExtraneous, true);
+    }
+}
@@ -0,0 +1,216 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaContactRequest;
+import nz.mega.sdk.MegaGlobalListenerInterface;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaUser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests NodeIndex against a node tree built in the fake SDK: a round trip through the index file, node updates
+ * applied after it is reopened, and recovery from a file left half written.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class NodeIndexTest {
+
+    /*
+     * The byte offset of the dirty flag in the index file header.
+     */
+    private static final int DIRTY_OFFSET = 28;
+
+    private Path directory;
+    private Path indexFile;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+    private MegaNode documents;
+    private MegaNode reports;
+    private MegaNode report;
+
+    /*
+     * The nodes of every nodes update, as onNodesUpdate() passes them to NodeIndex.apply().
+     */
+    private final List<MegaNode> updates = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("node-index-test");
+        indexFile = directory.resolve("nodes.idx");
+        megaApiJava = new MegaApiJava("test", directory.toString());
+        megaApiJava.addGlobalListener(new UpdateRecorder());
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("test@example.com", "password").get();
+        megaAsyncClient.fetchNodes().get();
+        documents = createFolder("documents", megaApiJava.getRootNode());
+        reports = createFolder("reports", documents);
+        Path local = Files.write(directory.resolve("report.txt"), new byte[1234]);
+        report = megaApiJava.getNodeByHandle(megaAsyncClient.upload(local.toString(), reports).get()
+                .getNodeHandle());
+        updates.clear();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        megaApiJava.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void reopenedIndexResolvesPathsAndNames() throws IOException {
+        NodeIndex built = new NodeIndex(indexFile);
+        built.rebuild(megaApiJava);
+        built.close();
+
+        NodeIndex reopened = new NodeIndex(indexFile);
+        assertTrue(reopened.load());
+        assertEquals(megaApiJava.getRootNode().getHandle(), reopened.getRootHandle());
+        assertEquals(built.size(), reopened.size());
+        assertEquals(report.getHandle(), reopened.getHandleByPath("/documents/reports/report.txt",
+                MegaApiJava.INVALID_HANDLE));
+        assertEquals(report.getHandle(), reopened.getHandleByPath("reports/../reports/report.txt",
+                documents.getHandle()));
+        assertEquals(MegaApiJava.INVALID_HANDLE, reopened.getHandleByPath("/documents/missing",
+                MegaApiJava.INVALID_HANDLE));
+        assertEquals("report.txt", reopened.getName(report.getHandle()));
+        assertEquals("/documents/reports/report.txt", reopened.getPath(report.getHandle()));
+        assertEquals(1234, reopened.getTotalSize(documents.getHandle()));
+        assertTrue(reopened.isFolder(reports.getHandle()));
+    }
+
+    @Test
+    public void reopenedIndexAppliesUpdates() throws Exception {
+        NodeIndex built = new NodeIndex(indexFile);
+        built.rebuild(megaApiJava);
+        built.close();
+        NodeIndex reopened = new NodeIndex(indexFile);
+        assertTrue(reopened.load());
+
+        MegaNode archive = createFolder("archive", documents);
+        megaAsyncClient.remove(reports).get();
+        reopened.apply(updates);
+
+        assertEquals(archive.getHandle(), reopened.getHandleByPath("/documents/archive",
+                MegaApiJava.INVALID_HANDLE));
+        assertFalse(reopened.contains(reports.getHandle()));
+        assertFalse(reopened.contains(report.getHandle()));
+        assertEquals(MegaApiJava.INVALID_HANDLE, reopened.getHandleByPath("/documents/reports/report.txt",
+                MegaApiJava.INVALID_HANDLE));
+        assertEquals(0, reopened.getTotalSize(documents.getHandle()));
+
+        // The applied updates are in the file too
+        reopened.close();
+        NodeIndex again = new NodeIndex(indexFile);
+        assertTrue(again.load());
+        assertEquals("archive", again.getName(archive.getHandle()));
+        assertFalse(again.contains(reports.getHandle()));
+    }
+
+    @Test
+    public void indexGrowsPastItsInitialCapacity() throws Exception {
+        NodeIndex index = new NodeIndex(indexFile);
+        index.rebuild(megaApiJava);
+        List<MegaNode> folders = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            folders.add(createFolder("folder-" + i, reports));
+        }
+        index.apply(updates);
+
+        assertEquals(1500 + 5, index.size());
+        for (MegaNode folder : folders) {
+            assertEquals(folder.getHandle(), index.getHandleByPath("/documents/reports/" + folder.getName(),
+                    MegaApiJava.INVALID_HANDLE));
+        }
+    }
+
+    @Test
+    public void tornWriteIsRebuilt() throws IOException {
+        NodeIndex built = new NodeIndex(indexFile);
+        built.rebuild(megaApiJava);
+        built.close();
+        // A crash half way through apply() leaves the dirty flag set
+        try (RandomAccessFile file = new RandomAccessFile(indexFile.toFile(), "rw")) {
+            file.seek(DIRTY_OFFSET);
+            file.writeInt(1);
+        }
+
+        NodeIndex reopened = new NodeIndex(indexFile);
+        assertFalse(reopened.load());
+        assertEquals(MegaApiJava.INVALID_HANDLE, reopened.getHandleByPath("/documents",
+                MegaApiJava.INVALID_HANDLE));
+        reopened.rebuild(megaApiJava);
+        assertEquals(report.getHandle(), reopened.getHandleByPath("/documents/reports/report.txt",
+                MegaApiJava.INVALID_HANDLE));
+        reopened.close();
+        assertTrue(new NodeIndex(indexFile).load());
+    }
+
+    @Test
+    public void truncatedFileIsNotLoaded() throws IOException {
+        NodeIndex built = new NodeIndex(indexFile);
+        built.rebuild(megaApiJava);
+        built.close();
+        try (RandomAccessFile file = new RandomAccessFile(indexFile.toFile(), "rw")) {
+            file.setLength(file.length() / 2);
+        }
+
+        assertFalse(new NodeIndex(indexFile).load());
+    }
+
+    private MegaNode createFolder(String name, MegaNode parent) throws Exception {
+        return megaApiJava.getNodeByHandle(megaAsyncClient.createFolder(name, parent).get().getNodeHandle());
+    }
+
+    /*
+     * Records the nodes of every nodes update.
+     */
+    private final class UpdateRecorder implements MegaGlobalListenerInterface {
+
+        @Override
+        public void onNodesUpdate(MegaApiJava api, ArrayList<MegaNode> nodes) {
+            updates.addAll(nodes == null ? Collections.<MegaNode>emptyList() : nodes);
+        }
+
+        @Override
+        public void onUsersUpdate(MegaApiJava api, ArrayList<MegaUser> users) {
+
+        }
+
+        @Override
+        public void onAccountUpdate(MegaApiJava api) {
+
+        }
+
+        @Override
+        public void onContactRequestsUpdate(MegaApiJava api, ArrayList<MegaContactRequest> requests) {
+
+        }
+
+        @Override
+        public void onReloadNeeded(MegaApiJava api) {
+
+        }
+    }
+}
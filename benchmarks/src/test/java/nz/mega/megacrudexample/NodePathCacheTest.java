@@ -0,0 +1,182 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaContactRequest;
+import nz.mega.sdk.MegaGlobalListenerInterface;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaUser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests that NodePathCache answers repeated lookups from the cache, drops the entries a nodes update affects, and
+ * does not cache a node whose lookup raced with an invalidation.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class NodePathCacheTest {
+
+    private Path directory;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+    private MegaNode documents;
+    private MegaNode report;
+    private MegaNode notes;
+
+    /*
+     * Runs inside every getNodeByPath() call of the SDK, between the cache's miss and its caching of the result.
+     */
+    private volatile Runnable duringLookup;
+
+    /*
+     * The nodes of every nodes update, as onNodesUpdate() passes them to NodePathCache.invalidate().
+     */
+    private final List<MegaNode> updates = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("node-path-cache-test");
+        megaApiJava = new MegaApiJava("test", directory.toString()) {
+            @Override
+            public MegaNode getNodeByPath(String path, MegaNode n) {
+                MegaNode node = super.getNodeByPath(path, n);
+                Runnable hook = duringLookup;
+                if (hook != null) {
+                    hook.run();
+                }
+                return node;
+            }
+        };
+        megaApiJava.addGlobalListener(new UpdateRecorder());
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("test@example.com", "password").get();
+        megaAsyncClient.fetchNodes().get();
+        documents = megaApiJava.getNodeByHandle(megaAsyncClient.createFolder("documents", megaApiJava.getRootNode())
+                .get().getNodeHandle());
+        report = upload("report.txt", documents);
+        notes = upload("notes.txt", megaApiJava.getRootNode());
+        updates.clear();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        megaApiJava.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void repeatedLookupIsAnsweredFromTheCache() {
+        NodePathCache cache = new NodePathCache(megaApiJava);
+        assertEquals(report.getHandle(), cache.getNodeByPath("documents/report.txt", root()).getHandle());
+        assertEquals(report.getHandle(), cache.getNodeByPath("documents/report.txt", root()).getHandle());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void missesAreNotCached() throws Exception {
+        NodePathCache cache = new NodePathCache(megaApiJava);
+        assertNull(cache.getNodeByPath("documents/later.txt", root()));
+
+        MegaNode later = upload("later.txt", documents);
+        assertEquals(later.getHandle(), cache.getNodeByPath("documents/later.txt", root()).getHandle());
+    }
+
+    @Test
+    public void changedFileDropsOnlyItsOwnEntries() {
+        NodePathCache cache = new NodePathCache(megaApiJava);
+        cache.getNodeByPath("documents/report.txt", root());
+        cache.getNodeByPath("report.txt", documents);
+        cache.getNodeByPath("notes.txt", root());
+        assertEquals(3, cache.size());
+
+        cache.invalidate(report);
+        assertEquals(1, cache.size());
+        assertEquals(notes.getHandle(), cache.getNodeByPath("notes.txt", root()).getHandle());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void removedFolderClearsTheCache() throws Exception {
+        NodePathCache cache = new NodePathCache(megaApiJava);
+        cache.getNodeByPath("documents/report.txt", root());
+        cache.getNodeByPath("notes.txt", root());
+
+        megaAsyncClient.remove(documents).get();
+        cache.invalidate(updates);
+        assertEquals(0, cache.size());
+        assertNull(cache.getNodeByPath("documents/report.txt", root()));
+    }
+
+    @Test
+    public void lookupRacingWithAnInvalidationIsNotCached() {
+        NodePathCache cache = new NodePathCache(megaApiJava);
+        duringLookup = () -> cache.invalidate(Collections.singletonList(report));
+        assertEquals(report.getHandle(), cache.getNodeByPath("documents/report.txt", root()).getHandle());
+        duringLookup = null;
+        assertEquals(0, cache.size());
+
+        cache.getNodeByPath("documents/report.txt", root());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.size());
+    }
+
+    private MegaNode root() {
+        return megaApiJava.getRootNode();
+    }
+
+    private MegaNode upload(String name, MegaNode parent) throws Exception {
+        Path local = Files.write(directory.resolve(name), new byte[100]);
+        return megaApiJava.getNodeByHandle(megaAsyncClient.upload(local.toString(), parent).get().getNodeHandle());
+    }
+
+    /*
+     * Records the nodes of every nodes update.
+     */
+    private final class UpdateRecorder implements MegaGlobalListenerInterface {
+
+        @Override
+        public void onNodesUpdate(MegaApiJava api, ArrayList<MegaNode> nodes) {
+            updates.addAll(nodes == null ? Collections.<MegaNode>emptyList() : nodes);
+        }
+
+        @Override
+        public void onUsersUpdate(MegaApiJava api, ArrayList<MegaUser> users) {
+
+        }
+
+        @Override
+        public void onAccountUpdate(MegaApiJava api) {
+
+        }
+
+        @Override
+        public void onContactRequestsUpdate(MegaApiJava api, ArrayList<MegaContactRequest> requests) {
+
+        }
+
+        @Override
+        public void onReloadNeeded(MegaApiJava api) {
+
+        }
+    }
+}
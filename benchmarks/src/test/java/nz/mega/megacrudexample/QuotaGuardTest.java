@@ -0,0 +1,136 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that QuotaGuard counts reserved and committed uploads against the storage left in its snapshot, refuses
+ * uploads which do not fit, and does not count a committed upload twice once a refreshed snapshot includes it.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class QuotaGuardTest {
+
+    private static final long STORAGE_MAX = 1000;
+
+    private Path directory;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+    private QuotaGuard quotaGuard;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("quota-guard-test");
+        megaApiJava = new MegaApiJava("test", directory.toString());
+        megaApiJava.setStorageMax(STORAGE_MAX);
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("test@example.com", "password").get();
+        megaAsyncClient.fetchNodes().get();
+        quotaGuard = new QuotaGuard(megaAsyncClient, 1, TimeUnit.HOURS);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        megaApiJava.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void everyUploadIsAdmittedUntilTheFirstSnapshot() throws Exception {
+        assertEquals(Long.MAX_VALUE, quotaGuard.getAvailableBytes());
+        quotaGuard.reserve(10 * STORAGE_MAX);
+        assertEquals(0, quotaGuard.getRefused());
+    }
+
+    @Test
+    public void reservationsCountUntilTheyAreReleased() throws Exception {
+        quotaGuard.refresh().get();
+        assertEquals(STORAGE_MAX, quotaGuard.getAvailableBytes());
+
+        quotaGuard.reserve(600);
+        assertEquals(400, quotaGuard.getAvailableBytes());
+        try {
+            quotaGuard.reserve(500);
+            fail("The upload should have been refused");
+        } catch (QuotaExceededException e) {
+            // Expected
+        }
+        assertEquals(1, quotaGuard.getRefused());
+        assertEquals(400, quotaGuard.getAvailableBytes());
+
+        quotaGuard.release(600);
+        assertEquals(STORAGE_MAX, quotaGuard.getAvailableBytes());
+        quotaGuard.reserve(500);
+        assertEquals(500, quotaGuard.getAvailableBytes());
+    }
+
+    @Test
+    public void refreshedSnapshotReplacesCommittedUploads() throws Exception {
+        quotaGuard.refresh().get();
+        quotaGuard.reserve(300);
+        MegaNode uploaded = upload(300);
+        quotaGuard.commit(300);
+        assertEquals(700, quotaGuard.getAvailableBytes());
+
+        // The new snapshot includes the upload, which must not be counted again
+        quotaGuard.refresh().get();
+        assertEquals(300, quotaGuard.getSnapshot().getStorageUsed());
+        assertEquals(700, quotaGuard.getAvailableBytes());
+
+        // Removed files only count as free once the snapshot has been refreshed
+        megaAsyncClient.remove(uploaded).get();
+        assertEquals(700, quotaGuard.getAvailableBytes());
+        quotaGuard.refresh().get();
+        assertEquals(STORAGE_MAX, quotaGuard.getAvailableBytes());
+    }
+
+    @Test
+    public void schedulerRefusesUploadsOverTheQuota() throws Exception {
+        quotaGuard.refresh().get();
+        TransferScheduler scheduler = new TransferScheduler(megaAsyncClient, 1, 0, 0, 60, TimeUnit.SECONDS,
+                quotaGuard);
+        Path small = Files.write(directory.resolve("small.bin"), new byte[400]);
+        Path large = Files.write(directory.resolve("large.bin"), new byte[700]);
+
+        scheduler.upload(TransferScheduler.Priority.NORMAL, "caller", small, megaApiJava.getRootNode(), 400).get();
+        assertEquals(600, quotaGuard.getAvailableBytes());
+        CompletableFuture<MegaTransfer> refused = scheduler.upload(TransferScheduler.Priority.NORMAL, "caller",
+                large, megaApiJava.getRootNode(), 700);
+        try {
+            refused.get();
+            fail("The upload should have been refused");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof QuotaExceededException);
+        }
+        assertEquals(0, scheduler.getQueued(MegaTransfer.TYPE_UPLOAD));
+        assertEquals(1, quotaGuard.getRefused());
+    }
+
+    private MegaNode upload(int size) throws Exception {
+        Path local = Files.write(directory.resolve("upload.bin"), new byte[size]);
+        return megaApiJava.getNodeByHandle(megaAsyncClient.upload(local.toString(), megaApiJava.getRootNode()).get()
+                .getNodeHandle());
+    }
+}
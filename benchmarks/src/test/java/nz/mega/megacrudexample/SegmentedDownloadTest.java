@@ -0,0 +1,150 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that a segmented download which fails part way keeps its finished segments and downloads only the missing
+ * ones when it is run again.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class SegmentedDownloadTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+    private static final int SEGMENTS = 4;
+
+    private Path directory;
+    private Path target;
+    private Path sidecar;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+    private byte[] content;
+    private MegaNode node;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("segmented-download-test");
+        target = directory.resolve("download.bin");
+        sidecar = directory.resolve("download.bin.segments");
+        megaApiJava = new MegaApiJava("test", directory.toString());
+        megaApiJava.setTransferChunkSize(16 * 1024);
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("test@example.com", "password").get();
+        megaAsyncClient.fetchNodes().get();
+        content = new byte[SEGMENTS * SEGMENT_SIZE];
+        new Random(1).nextBytes(content);
+        Path local = Files.write(directory.resolve("upload.bin"), content);
+        node = megaApiJava.getNodeByHandle(megaAsyncClient.upload(local.toString(), megaApiJava.getRootNode()).get()
+                .getNodeHandle());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        megaApiJava.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void failedDownloadResumesWithTheMissingSegments() throws Exception {
+        failThirdSegment();
+
+        long downloaded = megaAsyncClient.downloadSegmented(node, target, SEGMENT_SIZE, 1).get();
+        assertEquals(2 * SEGMENT_SIZE, downloaded);
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertFalse(Files.exists(sidecar));
+    }
+
+    @Test
+    public void differentSegmentSizeStartsOver() throws Exception {
+        failThirdSegment();
+
+        long downloaded = megaAsyncClient.downloadSegmented(node, target, SEGMENT_SIZE / 2, 1).get();
+        assertEquals(content.length, downloaded);
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertFalse(Files.exists(sidecar));
+    }
+
+    /*
+     * Runs a download one segment at a time and cancels its third segment, which is not retried.
+     */
+    private void failThirdSegment() throws InterruptedException {
+        SegmentCanceller canceller = new SegmentCanceller(3);
+        megaApiJava.addTransferListener(canceller);
+        try {
+            megaAsyncClient.downloadSegmented(node, target, SEGMENT_SIZE, 1).get();
+            fail("The download should have failed");
+        } catch (ExecutionException e) {
+            // Expected
+        } finally {
+            megaApiJava.removeTransferListener(canceller);
+        }
+        assertTrue(Files.exists(target));
+        assertTrue(Files.exists(sidecar));
+    }
+
+    /*
+     * Cancels the nth download which starts.
+     */
+    private static final class SegmentCanceller implements MegaTransferListenerInterface {
+        private final int cancelled;
+        private final AtomicInteger started = new AtomicInteger();
+
+        SegmentCanceller(int cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+            if (transfer.getType() == MegaTransfer.TYPE_DOWNLOAD && started.incrementAndGet() == cancelled) {
+                api.cancelTransfer(transfer);
+            }
+        }
+
+        @Override
+        public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+        }
+
+        @Override
+        public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+
+        }
+
+        @Override
+        public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+        }
+
+        @Override
+        public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+            return false;
+        }
+    }
+}
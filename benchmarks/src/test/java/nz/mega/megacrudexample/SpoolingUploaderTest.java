@@ -0,0 +1,140 @@
+package nz.mega.megacrudexample;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that SpoolingUploader spools content within maxMemoryPerUpload to the memory directory, spills larger content
+ * to the disk directory, and deletes the spool file once the upload has finished. Each upload is held in the queue
+ * of the scheduler behind a transfer which the test finishes itself, so its spool file can be found.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class SpoolingUploaderTest {
+
+    private static final int MAX_MEMORY_PER_UPLOAD = 2000;
+    private static final int BUFFER_SIZE = 512;
+
+    private Path directory;
+    private Path memoryDirectory;
+    private Path diskDirectory;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+    private TransferScheduler transferScheduler;
+    private SpoolingUploader spoolingUploader;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("spooling-uploader-test");
+        memoryDirectory = Files.createDirectory(directory.resolve("memory"));
+        diskDirectory = Files.createDirectory(directory.resolve("disk"));
+        megaApiJava = new MegaApiJava("test", directory.toString());
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("test@example.com", "password").get();
+        megaAsyncClient.fetchNodes().get();
+        transferScheduler = new TransferScheduler(megaAsyncClient, 1, 0, 0, 60, TimeUnit.SECONDS);
+        spoolingUploader = new SpoolingUploader(transferScheduler, TransferScheduler.Priority.NORMAL,
+                new ByteBufferPool(BUFFER_SIZE, 2), memoryDirectory, diskDirectory, MAX_MEMORY_PER_UPLOAD);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        spoolingUploader.close();
+        megaApiJava.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void smallStreamIsSpooledToMemory() throws Exception {
+        byte[] content = content(MAX_MEMORY_PER_UPLOAD);
+        CompletableFuture<String> blocker = block();
+        CompletableFuture<MegaTransfer> upload = spoolingUploader.upload(new ByteArrayInputStream(content),
+                "small.bin", megaApiJava.getRootNode());
+        assertEquals(1, spoolFiles(memoryDirectory));
+        assertEquals(0, spoolFiles(diskDirectory));
+
+        blocker.complete("blocker");
+        assertUploaded(content, upload.get());
+    }
+
+    @Test
+    public void largeStreamSpillsToDisk() throws Exception {
+        byte[] content = content(3 * MAX_MEMORY_PER_UPLOAD + 1);
+        CompletableFuture<String> blocker = block();
+        CompletableFuture<MegaTransfer> upload = spoolingUploader.upload(new ByteArrayInputStream(content),
+                "large.bin", megaApiJava.getRootNode());
+        assertEquals(0, spoolFiles(memoryDirectory));
+        assertEquals(1, spoolFiles(diskDirectory));
+
+        blocker.complete("blocker");
+        assertUploaded(content, upload.get());
+    }
+
+    @Test
+    public void largeArrayIsSpooledToDisk() throws Exception {
+        byte[] content = content(MAX_MEMORY_PER_UPLOAD + 1);
+        CompletableFuture<String> blocker = block();
+        CompletableFuture<MegaTransfer> upload = spoolingUploader.upload(content, "array.bin",
+                megaApiJava.getRootNode());
+        assertEquals(0, spoolFiles(memoryDirectory));
+        assertEquals(1, spoolFiles(diskDirectory));
+
+        blocker.complete("blocker");
+        assertUploaded(content, upload.get());
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    /*
+     * Starts an upload which holds the only slot until the returned future is completed.
+     */
+    private CompletableFuture<String> block() {
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        transferScheduler.submit(MegaTransfer.TYPE_UPLOAD, TransferScheduler.Priority.INTERACTIVE, "blocker", 1,
+                () -> blocker);
+        return blocker;
+    }
+
+    /*
+     * Checks that the uploaded file has the content and that its spool file has been deleted.
+     */
+    private void assertUploaded(byte[] content, MegaTransfer transfer) throws Exception {
+        MegaNode node = megaApiJava.getNodeByHandle(transfer.getNodeHandle());
+        Path downloaded = directory.resolve("downloaded");
+        megaAsyncClient.download(node, downloaded.toString()).get();
+        assertArrayEquals(content, Files.readAllBytes(downloaded));
+        assertEquals(0, spoolFiles(memoryDirectory) + spoolFiles(diskDirectory));
+    }
+
+    private static long spoolFiles(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+}
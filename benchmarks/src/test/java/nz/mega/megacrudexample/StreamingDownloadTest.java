@@ -0,0 +1,144 @@
+package nz.mega.megacrudexample;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that a stream whose consumer falls behind its buffer pool is paused and restarted without losing, repeating
+ * or reordering bytes, and that a failing consumer fails the stream.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class StreamingDownloadTest {
+
+    private static final int CHUNK_SIZE = 32 * 1024;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private Path directory;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+    private byte[] content;
+    private MegaNode node;
+
+    /*
+     * The number of times a download was started, counting every restart after a pause.
+     */
+    private final AtomicInteger downloadsStarted = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("streaming-download-test");
+        megaApiJava = new MegaApiJava("test", directory.toString());
+        megaApiJava.setTransferChunkSize(CHUNK_SIZE);
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        megaAsyncClient.login("test@example.com", "password").get();
+        megaAsyncClient.fetchNodes().get();
+        content = new byte[8 * CHUNK_SIZE + 123];
+        new Random(1).nextBytes(content);
+        Path local = Files.write(directory.resolve("stream.bin"), content);
+        node = megaApiJava.getNodeByHandle(megaAsyncClient.upload(local.toString(), megaApiJava.getRootNode()).get()
+                .getNodeHandle());
+        megaApiJava.addTransferListener(new StartCounter());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        megaApiJava.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void slowConsumerPausesTheStreamWithoutLosingBytes() throws Exception {
+        final ByteArrayOutputStream consumed = new ByteArrayOutputStream();
+        // Two buffers hold less than one chunk of the SDK, so the stream pauses at every chunk
+        long bytes = megaAsyncClient.stream(node, chunk -> {
+            byte[] copy = new byte[chunk.remaining()];
+            chunk.get(copy);
+            consumed.write(copy);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, new ByteBufferPool(BUFFER_SIZE, 2)).get();
+
+        assertEquals(content.length, bytes);
+        assertArrayEquals(content, consumed.toByteArray());
+        assertTrue("The stream was never paused", downloadsStarted.get() > 1);
+    }
+
+    @Test
+    public void failingConsumerFailsTheStream() throws Exception {
+        final AtomicInteger chunks = new AtomicInteger();
+        try {
+            megaAsyncClient.stream(node, chunk -> {
+                if (chunks.incrementAndGet() == 3) {
+                    throw new IOException("Disk full");
+                }
+            }, new ByteBufferPool(BUFFER_SIZE, 4)).get();
+            fail("The stream should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(3, chunks.get());
+    }
+
+    /*
+     * Counts the downloads which start.
+     */
+    private final class StartCounter implements MegaTransferListenerInterface {
+
+        @Override
+        public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+            if (transfer.getType() == MegaTransfer.TYPE_DOWNLOAD) {
+                downloadsStarted.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+        }
+
+        @Override
+        public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+
+        }
+
+        @Override
+        public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+        }
+
+        @Override
+        public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+            return false;
+        }
+    }
+}
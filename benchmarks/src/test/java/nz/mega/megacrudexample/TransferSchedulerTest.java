@@ -0,0 +1,146 @@
+package nz.mega.megacrudexample;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaTransfer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.file.Files.deleteIfExists;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the order in which TransferScheduler starts queued transfers. Every test fills the only slot with a transfer
+ * which the test finishes itself, queues transfers behind it and then lets them run one after another.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class TransferSchedulerTest {
+
+    private static final long MAX_WAIT_SECONDS = 60;
+
+    private Path directory;
+    private MegaApiJava megaApiJava;
+    private MegaAsyncClient megaAsyncClient;
+
+    /*
+     * The names of the queued transfers in the order they started.
+     */
+    private final List<String> started = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("transfer-scheduler-test");
+        megaApiJava = new MegaApiJava("test", directory.toString());
+        megaAsyncClient = new MegaAsyncClient(megaApiJava);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        megaApiJava.shutdown();
+        deleteIfExists(directory);
+    }
+
+    @Test
+    public void higherPriorityClassesStartFirst() {
+        TransferScheduler scheduler = scheduler(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+        CompletableFuture<String> blocker = block(scheduler);
+        queue(scheduler, TransferScheduler.Priority.BULK, "caller", "bulk", 1);
+        queue(scheduler, TransferScheduler.Priority.NORMAL, "caller", "normal", 1);
+        queue(scheduler, TransferScheduler.Priority.INTERACTIVE, "caller", "interactive", 1);
+
+        blocker.complete("blocker");
+        assertEquals(Arrays.asList("interactive", "normal", "bulk"), started);
+    }
+
+    @Test
+    public void callersTakeTurnsWithinAClass() {
+        TransferScheduler scheduler = scheduler(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+        CompletableFuture<String> blocker = block(scheduler);
+        for (int i = 0; i < 3; i++) {
+            queue(scheduler, TransferScheduler.Priority.NORMAL, "bulk caller", "a" + i, 1);
+        }
+        queue(scheduler, TransferScheduler.Priority.NORMAL, "user", "b0", 1);
+        queue(scheduler, TransferScheduler.Priority.NORMAL, "user", "b1", 1);
+
+        blocker.complete("blocker");
+        assertEquals(Arrays.asList("a0", "b0", "a1", "b1", "a2"), started);
+    }
+
+    @Test
+    public void eachCallersSmallestTransferStartsFirst() {
+        TransferScheduler scheduler = scheduler(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+        CompletableFuture<String> blocker = block(scheduler);
+        queue(scheduler, TransferScheduler.Priority.NORMAL, "caller", "large", 1000);
+        queue(scheduler, TransferScheduler.Priority.NORMAL, "caller", "small", 10);
+        queue(scheduler, TransferScheduler.Priority.NORMAL, "caller", "medium", 100);
+        queue(scheduler, TransferScheduler.Priority.NORMAL, "caller", "small again", 10);
+
+        blocker.complete("blocker");
+        assertEquals(Arrays.asList("small", "small again", "medium", "large"), started);
+    }
+
+    @Test
+    public void transfersWhichWaitedTooLongStartInTheOrderTheyWereQueued() throws InterruptedException {
+        TransferScheduler scheduler = scheduler(1, TimeUnit.MILLISECONDS);
+        CompletableFuture<String> blocker = block(scheduler);
+        queue(scheduler, TransferScheduler.Priority.BULK, "caller", "bulk", 1000);
+        queue(scheduler, TransferScheduler.Priority.INTERACTIVE, "caller", "interactive", 1);
+        Thread.sleep(10);
+
+        blocker.complete("blocker");
+        assertEquals(Arrays.asList("bulk", "interactive"), started);
+    }
+
+    @Test
+    public void cancelledTransfersAreNotStarted() {
+        TransferScheduler scheduler = scheduler(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+        CompletableFuture<String> blocker = block(scheduler);
+        CompletableFuture<String> cancelled = queue(scheduler, TransferScheduler.Priority.NORMAL, "caller",
+                "cancelled", 1);
+        CompletableFuture<String> kept = queue(scheduler, TransferScheduler.Priority.NORMAL, "caller", "kept", 2);
+        assertEquals(2, scheduler.getQueued(MegaTransfer.TYPE_DOWNLOAD));
+        cancelled.cancel(false);
+
+        blocker.complete("blocker");
+        assertEquals(Arrays.asList("kept"), started);
+        assertTrue(kept.isDone());
+        assertEquals(0, scheduler.getQueued(MegaTransfer.TYPE_DOWNLOAD));
+        assertEquals(0, scheduler.getRunning(MegaTransfer.TYPE_DOWNLOAD));
+    }
+
+    private TransferScheduler scheduler(long maxWait, TimeUnit unit) {
+        return new TransferScheduler(megaAsyncClient, 1, 0, 0, maxWait, unit);
+    }
+
+    /*
+     * Starts a download which holds the only slot until the returned future is completed.
+     */
+    private static CompletableFuture<String> block(TransferScheduler scheduler) {
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(MegaTransfer.TYPE_DOWNLOAD, TransferScheduler.Priority.INTERACTIVE, "blocker", 1,
+                () -> blocker);
+        assertEquals(1, scheduler.getRunning(MegaTransfer.TYPE_DOWNLOAD));
+        return blocker;
+    }
+
+    /*
+     * Queues a download which records its name when it starts and finishes straight away.
+     */
+    private CompletableFuture<String> queue(TransferScheduler scheduler, TransferScheduler.Priority priority,
+                                            Object caller, String name, long size) {
+        return scheduler.submit(MegaTransfer.TYPE_DOWNLOAD, priority, caller, size, () -> {
+            started.add(name);
+            return CompletableFuture.completedFuture(name);
+        });
+    }
+}
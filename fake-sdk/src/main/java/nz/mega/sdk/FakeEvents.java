@@ -0,0 +1,33 @@
+package nz.mega.sdk;
+
+/**
+ * Factory for the SDK event objects passed to listeners, so that listeners can be driven directly without going
+ * through MegaApiJava, for example to measure listener overhead on its own.
+ */
+public final class FakeEvents {
+
+    private FakeEvents() {
+    }
+
+    public static MegaRequest request(int type, int tag) {
+        return new MegaRequest(type, tag);
+    }
+
+    public static MegaTransfer transfer(int type, int tag, String fileName, long totalBytes) {
+        MegaTransfer transfer = new MegaTransfer(type, tag, fileName, fileName, 0, totalBytes - 1, false);
+        transfer.setTotalBytes(totalBytes);
+        return transfer;
+    }
+
+    public static void progress(MegaTransfer transfer, long deltaBytes) {
+        transfer.addTransferredBytes(deltaBytes, System.currentTimeMillis() - transfer.getStartTime());
+    }
+
+    public static MegaError error(int errorCode) {
+        return new MegaError(errorCode);
+    }
+
+    public static MegaNode node(long handle, long parentHandle, int type, String name, long size, int changes) {
+        return new MegaNode(handle, parentHandle, type, name, size, 0, 0, null, changes);
+    }
+}
@@ -0,0 +1,31 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for the MEGA SDK account details.
+ */
+public class MegaAccountDetails {
+
+    private final long storageUsed;
+    private final long storageMax;
+
+    MegaAccountDetails(long storageUsed, long storageMax) {
+        this.storageUsed = storageUsed;
+        this.storageMax = storageMax;
+    }
+
+    public MegaAccountDetails copy() {
+        return new MegaAccountDetails(storageUsed, storageMax);
+    }
+
+    public long getStorageUsed() {
+        return storageUsed;
+    }
+
+    public long getStorageMax() {
+        return storageMax;
+    }
+
+    public int getProLevel() {
+        return 0;
+    }
+}
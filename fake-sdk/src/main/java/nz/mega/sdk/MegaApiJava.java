@@ -0,0 +1,802 @@
+package nz.mega.sdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * An in-process stand-in for the MEGA SDK Java bindings' MegaApiJava.
+ * <p>
+ * It keeps an account's node tree and file contents in memory and answers requests and transfers by firing the
+ * same listener callbacks as the real SDK, on a single callback thread, after a configurable latency. Transfers move
+ * their data in chunks paced by a configurable bandwidth. No native library or network access is needed, so code
+ * written against the MEGA SDK can be benchmarked and load tested offline.
+ * <p>
+ * Only the part of the API used by the example client is implemented.
+ */
+public class MegaApiJava {
+
+    public static final long INVALID_HANDLE = ~(long) 0;
+
+    /*
+     * Handles of the root and rubbish bin folders.
+     */
+    private static final long ROOT_HANDLE = 1;
+    private static final long RUBBISH_HANDLE = 2;
+
+    /*
+     * Prefix of the session keys returned by dumpSession().
+     */
+    private static final String SESSION_PREFIX = "fake-session:";
+
+    /*
+     * Every callback is fired from this single thread, as the real SDK does.
+     */
+    private final ScheduledExecutorService callbackThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fake-mega-sdk");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<MegaListenerInterface> listeners = new CopyOnWriteArrayList<>();
+    private final List<MegaRequestListenerInterface> requestListeners = new CopyOnWriteArrayList<>();
+    private final List<MegaTransferListenerInterface> transferListeners = new CopyOnWriteArrayList<>();
+    private final List<MegaGlobalListenerInterface> globalListeners = new CopyOnWriteArrayList<>();
+
+    /*
+     * The fake account's node tree.
+     */
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> children = new ConcurrentHashMap<>();
+    private final AtomicLong nextHandle = new AtomicLong(100);
+    private final AtomicInteger nextTag = new AtomicInteger();
+    private final Map<Integer, MegaTransfer> transfers = new ConcurrentHashMap<>();
+
+    private volatile String loggedInEmail;
+    private volatile long requestLatencyNanos;
+    private volatile long bandwidthBytesPerSecond;
+    private volatile int transferChunkSize = 128 * 1024;
+    private volatile long storageMax = 50L * 1024 * 1024 * 1024;
+    private volatile int uploadLimit = -1;
+    private volatile double temporaryErrorRate;
+
+    /*
+     * When the simulated link is free again for uploads and downloads, in System.nanoTime(). Only used on the
+     * callback thread.
+     */
+    private long uploadLinkFreeNanos;
+    private long downloadLinkFreeNanos;
+
+    /**
+     * Creates a new fake MegaApiJava with an empty account.
+     * <p>
+     * The request latency, bandwidth and temporary error rate default to the nz.mega.sdk.fake.latencyMicros,
+     * nz.mega.sdk.fake.bandwidth and nz.mega.sdk.fake.temporaryErrorRate system properties, or to no delay and no
+     * errors at all.
+     *
+     * @param appKey Ignored
+     * @param basePath Ignored, nothing is cached locally
+     */
+    public MegaApiJava(String appKey, String basePath) {
+        requestLatencyNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong("nz.mega.sdk.fake.latencyMicros", 0));
+        bandwidthBytesPerSecond = Long.getLong("nz.mega.sdk.fake.bandwidth", 0);
+        temporaryErrorRate = Double.parseDouble(System.getProperty("nz.mega.sdk.fake.temporaryErrorRate", "0"));
+        addEntry(new Entry(ROOT_HANDLE, INVALID_HANDLE, MegaNode.TYPE_ROOT, "Cloud Drive", null, 0, null));
+        addEntry(new Entry(RUBBISH_HANDLE, INVALID_HANDLE, MegaNode.TYPE_RUBBISH, "Rubbish Bin", null, 0, null));
+    }
+
+    /*
+     * Fake configuration.
+     */
+
+    /**
+     * Sets the delay between starting a request, or the first byte of a transfer, and its result.
+     */
+    public void setRequestLatency(long latency, TimeUnit unit) {
+        requestLatencyNanos = unit.toNanos(latency);
+    }
+
+    /**
+     * Sets the bandwidth of the simulated link in each direction, or 0 for no limit. Concurrent transfers in the
+     * same direction share it.
+     */
+    public void setBandwidth(long bytesPerSecond) {
+        bandwidthBytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Sets the size of the chunks transfers report progress and streaming data in.
+     */
+    public void setTransferChunkSize(int chunkSize) {
+        transferChunkSize = chunkSize;
+    }
+
+    /**
+     * Sets the fraction of requests and transfers, between 0 and 1, which report a temporary error and then fail
+     * with API_EAGAIN, as when the MEGA servers are overloaded.
+     */
+    public void setTemporaryErrorRate(double rate) {
+        temporaryErrorRate = rate;
+    }
+
+    /**
+     * Sets the storage quota reported by getAccountDetails(), as when the account changes plan, and reports the
+     * change to onAccountUpdate(). Uploads which would take the account over the quota fail with API_EOVERQUOTA
+     * once all of their data has been sent.
+     */
+    public void setStorageMax(long storageMax) {
+        this.storageMax = storageMax;
+        callbackThread.execute(this::fireAccountUpdate);
+    }
+
+    /**
+     * Stops the callback thread.
+     */
+    public void shutdown() {
+        callbackThread.shutdownNow();
+    }
+
+    /*
+     * Listeners.
+     */
+
+    public void addListener(MegaListenerInterface listener) {
+        listeners.add(listener);
+    }
+
+    public void addRequestListener(MegaRequestListenerInterface listener) {
+        requestListeners.add(listener);
+    }
+
+    public void addTransferListener(MegaTransferListenerInterface listener) {
+        transferListeners.add(listener);
+    }
+
+    public void addGlobalListener(MegaGlobalListenerInterface listener) {
+        globalListeners.add(listener);
+    }
+
+    public void removeListener(MegaListenerInterface listener) {
+        listeners.remove(listener);
+    }
+
+    public void removeRequestListener(MegaRequestListenerInterface listener) {
+        requestListeners.remove(listener);
+    }
+
+    public void removeTransferListener(MegaTransferListenerInterface listener) {
+        transferListeners.remove(listener);
+    }
+
+    public void removeGlobalListener(MegaGlobalListenerInterface listener) {
+        globalListeners.remove(listener);
+    }
+
+    /*
+     * Session requests.
+     */
+
+    public void login(String email, String password) {
+        login(email, password, null);
+    }
+
+    public void login(final String email, String password, MegaRequestListenerInterface listener) {
+        final boolean valid = email != null && !email.isEmpty() && password != null && !password.isEmpty();
+        submit(MegaRequest.TYPE_LOGIN, listener, request -> {
+            request.setEmail(email);
+            if (!valid) {
+                return MegaError.API_ENOENT;
+            }
+            loggedInEmail = email;
+            request.setSessionKey(SESSION_PREFIX + email);
+            return MegaError.API_OK;
+        });
+    }
+
+    public void fastLogin(String session) {
+        fastLogin(session, null);
+    }
+
+    public void fastLogin(final String session, MegaRequestListenerInterface listener) {
+        submit(MegaRequest.TYPE_LOGIN, listener, request -> {
+            if (session == null || !session.startsWith(SESSION_PREFIX)) {
+                return MegaError.API_ESID;
+            }
+            loggedInEmail = session.substring(SESSION_PREFIX.length());
+            request.setSessionKey(session);
+            return MegaError.API_OK;
+        });
+    }
+
+    public String dumpSession() {
+        String email = loggedInEmail;
+        return email == null ? null : SESSION_PREFIX + email;
+    }
+
+    public void fetchNodes() {
+        fetchNodes(null);
+    }
+
+    public void fetchNodes(MegaRequestListenerInterface listener) {
+        submit(MegaRequest.TYPE_FETCH_NODES, listener,
+                request -> loggedInEmail == null ? MegaError.API_EACCESS : MegaError.API_OK);
+    }
+
+    public void getAccountDetails() {
+        getAccountDetails(null);
+    }
+
+    public void getAccountDetails(MegaRequestListenerInterface listener) {
+        submit(MegaRequest.TYPE_ACCOUNT_DETAILS, listener, request -> {
+            request.setMegaAccountDetails(new MegaAccountDetails(storageUsed(), storageMax));
+            return MegaError.API_OK;
+        });
+    }
+
+    public void logout() {
+        logout(null);
+    }
+
+    public void logout(MegaRequestListenerInterface listener) {
+        submit(MegaRequest.TYPE_LOGOUT, listener, request -> {
+            loggedInEmail = null;
+            return MegaError.API_OK;
+        });
+    }
+
+    public void localLogout() {
+        localLogout(null);
+    }
+
+    public void localLogout(MegaRequestListenerInterface listener) {
+        logout(listener);
+    }
+
+    public int isLoggedIn() {
+        return loggedInEmail == null ? 0 : 1;
+    }
+
+    public String getMyEmail() {
+        return loggedInEmail;
+    }
+
+    /*
+     * Node requests.
+     */
+
+    public void createFolder(String name, MegaNode parent) {
+        createFolder(name, parent, null);
+    }
+
+    public void createFolder(final String name, final MegaNode parent, MegaRequestListenerInterface listener) {
+        submit(MegaRequest.TYPE_CREATE_FOLDER, listener, request -> {
+            request.setName(name);
+            if (parent == null || !entries.containsKey(parent.getHandle())) {
+                return MegaError.API_ENOENT;
+            }
+            request.setParentHandle(parent.getHandle());
+            Entry folder = new Entry(nextHandle.getAndIncrement(), parent.getHandle(), MegaNode.TYPE_FOLDER, name,
+                    null, System.currentTimeMillis() / 1000, null);
+            addEntry(folder);
+            request.setNodeHandle(folder.handle);
+            fireNodesUpdate(Collections.singletonList(folder.toNode(0)));
+            return MegaError.API_OK;
+        });
+    }
+
+    public void remove(MegaNode node) {
+        remove(node, null);
+    }
+
+    public void remove(final MegaNode node, MegaRequestListenerInterface listener) {
+        submit(MegaRequest.TYPE_REMOVE, listener, request -> {
+            if (node == null || !entries.containsKey(node.getHandle())) {
+                return MegaError.API_ENOENT;
+            }
+            request.setNodeHandle(node.getHandle());
+            List<MegaNode> removed = new ArrayList<>();
+            removeEntry(node.getHandle(), removed);
+            fireNodesUpdate(removed);
+            return MegaError.API_OK;
+        });
+    }
+
+    /*
+     * Transfers.
+     */
+
+    public void startUpload(String localPath, MegaNode parent) {
+        startUpload(localPath, parent, null);
+    }
+
+    public void startUpload(final String localPath, final MegaNode parent,
+                            final MegaTransferListenerInterface listener) {
+        final Path path = Paths.get(localPath);
+        final MegaTransfer transfer = new MegaTransfer(MegaTransfer.TYPE_UPLOAD, nextTag.incrementAndGet(),
+                localPath, path.getFileName().toString(), 0, 0, false);
+        callbackThread.execute(() -> {
+            byte[] content;
+            long modificationTime;
+            try {
+                content = Files.readAllBytes(path);
+                modificationTime = Files.getLastModifiedTime(path).toMillis() / 1000;
+            } catch (IOException e) {
+                startTransfer(transfer, listener);
+                finishTransfer(transfer, listener, MegaError.API_EREAD);
+                return;
+            }
+            if (parent != null) {
+                transfer.setParentHandle(parent.getHandle());
+            }
+            transfer.setTotalBytes(content.length);
+            startTransfer(transfer, listener);
+            final byte[] data = content;
+            final long mtime = modificationTime;
+            runTransfer(transfer, listener, data, 0, false, () -> {
+                if (parent == null || !entries.containsKey(parent.getHandle())) {
+                    return MegaError.API_ENOENT;
+                }
+                if (storageUsed() + data.length > storageMax) {
+                    return MegaError.API_EOVERQUOTA;
+                }
+                Entry file = new Entry(nextHandle.getAndIncrement(), parent.getHandle(), MegaNode.TYPE_FILE,
+                        transfer.getFileName(), data, mtime, fingerprintOf(data, mtime));
+                addEntry(file);
+                transfer.setNodeHandle(file.handle);
+                fireNodesUpdate(Collections.singletonList(file.toNode(0)));
+                return MegaError.API_OK;
+            });
+        });
+    }
+
+    public void startDownload(MegaNode node, String localPath) {
+        startDownload(node, localPath, null);
+    }
+
+    public void startDownload(final MegaNode node, final String localPath,
+                              final MegaTransferListenerInterface listener) {
+        final Entry entry = node == null ? null : entries.get(node.getHandle());
+        final MegaTransfer transfer = new MegaTransfer(MegaTransfer.TYPE_DOWNLOAD, nextTag.incrementAndGet(),
+                localPath, node == null ? null : node.getName(), 0, 0, false);
+        callbackThread.execute(() -> {
+            startTransfer(transfer, listener);
+            if (entry == null || entry.content == null) {
+                finishTransfer(transfer, listener, MegaError.API_ENOENT);
+                return;
+            }
+            transfer.setNodeHandle(entry.handle);
+            transfer.setTotalBytes(entry.content.length);
+            runTransfer(transfer, listener, entry.content, 0, false, () -> {
+                try {
+                    Path target = Paths.get(localPath);
+                    if (Files.isDirectory(target) || localPath.endsWith(File.separator)) {
+                        target = target.resolve(entry.name);
+                    }
+                    Files.write(target, entry.content);
+                    target.toFile().setLastModified(entry.modificationTime * 1000);
+                    return MegaError.API_OK;
+                } catch (IOException e) {
+                    return MegaError.API_EWRITE;
+                }
+            });
+        });
+    }
+
+    public void startStreaming(final MegaNode node, final long startPos, final long size,
+                               final MegaTransferListenerInterface listener) {
+        final Entry entry = node == null ? null : entries.get(node.getHandle());
+        final MegaTransfer transfer = new MegaTransfer(MegaTransfer.TYPE_DOWNLOAD, nextTag.incrementAndGet(),
+                null, node == null ? null : node.getName(), startPos, startPos + size - 1, true);
+        callbackThread.execute(() -> {
+            startTransfer(transfer, listener);
+            if (entry == null || entry.content == null || startPos < 0 || startPos + size > entry.content.length) {
+                finishTransfer(transfer, listener, entry == null ? MegaError.API_ENOENT : MegaError.API_EARGS);
+                return;
+            }
+            transfer.setNodeHandle(entry.handle);
+            transfer.setTotalBytes(size);
+            byte[] range = new byte[(int) size];
+            System.arraycopy(entry.content, (int) startPos, range, 0, range.length);
+            runTransfer(transfer, listener, range, 0, true, () -> MegaError.API_OK);
+        });
+    }
+
+    public void cancelTransfer(MegaTransfer transfer) {
+        MegaTransfer running = transfers.get(transfer.getTag());
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    public void setUploadLimit(int bpslimit) {
+        uploadLimit = bpslimit;
+    }
+
+    /*
+     * Node tree queries.
+     */
+
+    public MegaNode getRootNode() {
+        return toNode(ROOT_HANDLE);
+    }
+
+    public MegaNode getRubbishNode() {
+        return toNode(RUBBISH_HANDLE);
+    }
+
+    public MegaNode getNodeByHandle(long handle) {
+        return toNode(handle);
+    }
+
+    public MegaNode getParentNode(MegaNode node) {
+        Entry entry = node == null ? null : entries.get(node.getHandle());
+        return entry == null ? null : toNode(entry.parentHandle);
+    }
+
+    public MegaNode getNodeByPath(String path) {
+        return getNodeByPath(path, null);
+    }
+
+    public MegaNode getNodeByPath(String path, MegaNode n) {
+        Entry current = path.startsWith("/") || n == null ? entries.get(ROOT_HANDLE) : entries.get(n.getHandle());
+        for (String part : path.split("/")) {
+            if (current == null) {
+                return null;
+            }
+            if (part.isEmpty() || part.equals(".")) {
+                continue;
+            }
+            if (part.equals("..")) {
+                current = entries.get(current.parentHandle);
+                continue;
+            }
+            current = childNamed(current.handle, part);
+        }
+        return current == null ? null : current.toNode(0);
+    }
+
+    public String getNodePath(MegaNode node) {
+        Entry entry = node == null ? null : entries.get(node.getHandle());
+        if (entry == null) {
+            return null;
+        }
+        if (entry.handle == ROOT_HANDLE) {
+            return "/";
+        }
+        StringBuilder path = new StringBuilder();
+        while (entry != null && entry.handle != ROOT_HANDLE) {
+            path.insert(0, "/" + entry.name);
+            entry = entries.get(entry.parentHandle);
+        }
+        return path.toString();
+    }
+
+    public ArrayList<MegaNode> getChildren(MegaNode parent) {
+        ArrayList<MegaNode> nodes = new ArrayList<>();
+        Set<Long> handles = parent == null ? null : children.get(parent.getHandle());
+        if (handles != null) {
+            for (Long handle : handles) {
+                MegaNode child = toNode(handle);
+                if (child != null) {
+                    nodes.add(child);
+                }
+            }
+        }
+        nodes.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return nodes;
+    }
+
+    public int getNumChildren(MegaNode parent) {
+        Set<Long> handles = parent == null ? null : children.get(parent.getHandle());
+        return handles == null ? 0 : handles.size();
+    }
+
+    public String getFingerprint(String filePath) {
+        try {
+            Path path = Paths.get(filePath);
+            return fingerprintOf(Files.readAllBytes(path), Files.getLastModifiedTime(path).toMillis() / 1000);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public String getFingerprint(MegaNode node) {
+        Entry entry = node == null ? null : entries.get(node.getHandle());
+        return entry == null ? null : entry.fingerprint;
+    }
+
+    public MegaNode getNodeByFingerprint(String fingerprint) {
+        for (Entry entry : entries.values()) {
+            if (fingerprint != null && fingerprint.equals(entry.fingerprint)) {
+                return entry.toNode(0);
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Request machinery.
+     */
+
+    /*
+     * The part of a request which runs on the callback thread once its latency has passed.
+     */
+    private interface Operation {
+        int apply(MegaRequest request);
+    }
+
+    private void submit(final int type, final MegaRequestListenerInterface listener, final Operation operation) {
+        final MegaRequest request = new MegaRequest(type, nextTag.incrementAndGet());
+        callbackThread.execute(() -> {
+            for (MegaRequestListenerInterface l : requestListenersOf(listener)) {
+                l.onRequestStart(this, request);
+            }
+            callbackThread.schedule(() -> {
+                MegaError error;
+                if (injectTemporaryError()) {
+                    error = new MegaError(MegaError.API_EAGAIN);
+                    for (MegaRequestListenerInterface l : requestListenersOf(listener)) {
+                        l.onRequestTemporaryError(this, request, error);
+                    }
+                }
+                else {
+                    error = new MegaError(operation.apply(request));
+                }
+                for (MegaRequestListenerInterface l : requestListenersOf(listener)) {
+                    l.onRequestFinish(this, request, error);
+                }
+            }, requestLatencyNanos, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    private boolean injectTemporaryError() {
+        double rate = temporaryErrorRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private List<MegaRequestListenerInterface> requestListenersOf(MegaRequestListenerInterface listener) {
+        List<MegaRequestListenerInterface> all = new ArrayList<>(requestListeners);
+        all.addAll(listeners);
+        if (listener != null) {
+            all.add(listener);
+        }
+        return all;
+    }
+
+    private List<MegaTransferListenerInterface> transferListenersOf(MegaTransferListenerInterface listener) {
+        List<MegaTransferListenerInterface> all = new ArrayList<>(transferListeners);
+        all.addAll(listeners);
+        if (listener != null) {
+            all.add(listener);
+        }
+        return all;
+    }
+
+    private long storageUsed() {
+        long used = 0;
+        for (Entry entry : entries.values()) {
+            used += entry.size();
+        }
+        return used;
+    }
+
+    private void fireAccountUpdate() {
+        List<MegaGlobalListenerInterface> all = new ArrayList<>(globalListeners);
+        all.addAll(listeners);
+        for (MegaGlobalListenerInterface l : all) {
+            l.onAccountUpdate(this);
+        }
+    }
+
+    private void fireNodesUpdate(List<MegaNode> nodes) {
+        List<MegaGlobalListenerInterface> all = new ArrayList<>(globalListeners);
+        all.addAll(listeners);
+        for (MegaGlobalListenerInterface l : all) {
+            l.onNodesUpdate(this, new ArrayList<>(nodes));
+        }
+    }
+
+    /*
+     * Transfer machinery.
+     */
+
+    /*
+     * The part of a transfer which runs on the callback thread once all of its data has been moved.
+     */
+    private interface Completion {
+        int complete();
+    }
+
+    private void startTransfer(MegaTransfer transfer, MegaTransferListenerInterface listener) {
+        transfers.put(transfer.getTag(), transfer);
+        for (MegaTransferListenerInterface l : transferListenersOf(listener)) {
+            l.onTransferStart(this, transfer);
+        }
+    }
+
+    private void finishTransfer(MegaTransfer transfer, MegaTransferListenerInterface listener, int errorCode) {
+        transfers.remove(transfer.getTag());
+        MegaError error = new MegaError(errorCode);
+        for (MegaTransferListenerInterface l : transferListenersOf(listener)) {
+            l.onTransferFinish(this, transfer, error);
+        }
+    }
+
+    /*
+     * Moves a transfer's data one chunk at a time, pacing the chunks to the configured bandwidth, then completes it.
+     */
+    private void runTransfer(final MegaTransfer transfer, final MegaTransferListenerInterface listener,
+                             final byte[] data, final int offset, final boolean streaming,
+                             final Completion completion) {
+        long delay = chunkDelayNanos(transfer.getType(), Math.min(transferChunkSize, data.length - offset),
+                offset == 0 ? requestLatencyNanos : 0);
+        callbackThread.schedule(() -> {
+            if (transfer.isCancelled()) {
+                finishTransfer(transfer, listener, MegaError.API_EINCOMPLETE);
+                return;
+            }
+            if (offset == 0 && injectTemporaryError()) {
+                MegaError error = new MegaError(MegaError.API_EAGAIN);
+                for (MegaTransferListenerInterface l : transferListenersOf(listener)) {
+                    l.onTransferTemporaryError(this, transfer, error);
+                }
+                finishTransfer(transfer, listener, MegaError.API_EAGAIN);
+                return;
+            }
+            int length = Math.min(transferChunkSize, data.length - offset);
+            if (length > 0) {
+                transfer.addTransferredBytes(length, System.currentTimeMillis() - transfer.getStartTime());
+                boolean carryOn = !streaming;
+                if (streaming) {
+                    byte[] chunk = new byte[length];
+                    System.arraycopy(data, offset, chunk, 0, length);
+                    for (MegaTransferListenerInterface l : transferListenersOf(listener)) {
+                        // Any listener which wants more data keeps the stream going, as in the real SDK
+                        carryOn |= l.onTransferData(this, transfer, chunk);
+                    }
+                }
+                for (MegaTransferListenerInterface l : transferListenersOf(listener)) {
+                    l.onTransferUpdate(this, transfer);
+                }
+                if (!carryOn) {
+                    finishTransfer(transfer, listener, MegaError.API_EINCOMPLETE);
+                    return;
+                }
+            }
+            if (offset + length < data.length) {
+                runTransfer(transfer, listener, data, offset + length, streaming, completion);
+            }
+            else {
+                finishTransfer(transfer, listener, completion.complete());
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Reserves the link of the transfer's direction for one chunk, after an initial latency, and returns the delay
+     * until the chunk has been moved. Concurrent transfers in one direction queue for the same link.
+     */
+    private long chunkDelayNanos(int transferType, int chunkLength, long latencyNanos) {
+        long bandwidth = bandwidthBytesPerSecond;
+        boolean upload = transferType == MegaTransfer.TYPE_UPLOAD;
+        if (upload && uploadLimit > 0) {
+            bandwidth = bandwidth == 0 ? uploadLimit : Math.min(bandwidth, uploadLimit);
+        }
+        if (bandwidth <= 0) {
+            return latencyNanos;
+        }
+        long now = System.nanoTime();
+        long linkFree = upload ? uploadLinkFreeNanos : downloadLinkFreeNanos;
+        long done = Math.max(now + latencyNanos, linkFree) + TimeUnit.SECONDS.toNanos(1) * chunkLength / bandwidth;
+        if (upload) {
+            uploadLinkFreeNanos = done;
+        }
+        else {
+            downloadLinkFreeNanos = done;
+        }
+        return done - now;
+    }
+
+    /*
+     * Node tree machinery.
+     */
+
+    private static String fingerprintOf(byte[] content, long modificationTime) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return content.length + ":" + Long.toHexString(crc.getValue()) + ":" + modificationTime;
+    }
+
+    private void addEntry(Entry entry) {
+        entries.put(entry.handle, entry);
+        children.computeIfAbsent(entry.handle, h -> ConcurrentHashMap.newKeySet());
+        if (entry.parentHandle != INVALID_HANDLE) {
+            children.computeIfAbsent(entry.parentHandle, h -> ConcurrentHashMap.newKeySet()).add(entry.handle);
+        }
+    }
+
+    private void removeEntry(long handle, List<MegaNode> removed) {
+        Set<Long> childHandles = children.remove(handle);
+        if (childHandles != null) {
+            for (Long child : childHandles) {
+                removeEntry(child, removed);
+            }
+        }
+        Entry entry = entries.remove(handle);
+        if (entry != null) {
+            Set<Long> siblings = children.get(entry.parentHandle);
+            if (siblings != null) {
+                siblings.remove(handle);
+            }
+            removed.add(entry.toNode(MegaNode.CHANGE_TYPE_REMOVED));
+        }
+    }
+
+    private Entry childNamed(long parentHandle, String name) {
+        Set<Long> handles = children.get(parentHandle);
+        if (handles == null) {
+            return null;
+        }
+        for (Long handle : handles) {
+            Entry child = entries.get(handle);
+            if (child != null && child.name.equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private MegaNode toNode(long handle) {
+        Entry entry = entries.get(handle);
+        return entry == null ? null : entry.toNode(0);
+    }
+
+    /*
+     * One node of the fake account.
+     */
+    private static final class Entry {
+        final long handle;
+        final long parentHandle;
+        final int type;
+        final String name;
+        final byte[] content;
+        final long modificationTime;
+        final String fingerprint;
+
+        Entry(long handle, long parentHandle, int type, String name, byte[] content, long modificationTime,
+              String fingerprint) {
+            this.handle = handle;
+            this.parentHandle = parentHandle;
+            this.type = type;
+            this.name = name;
+            this.content = content;
+            this.modificationTime = modificationTime;
+            this.fingerprint = fingerprint;
+        }
+
+        long size() {
+            return content == null ? 0 : content.length;
+        }
+
+        MegaNode toNode(int changes) {
+            return new MegaNode(handle, parentHandle, type, name, size(), modificationTime, modificationTime,
+                    fingerprint, changes);
+        }
+    }
+}
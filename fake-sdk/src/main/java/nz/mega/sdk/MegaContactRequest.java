@@ -0,0 +1,7 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for a MEGA SDK contact request. The fake SDK has no contacts.
+ */
+public class MegaContactRequest {
+}
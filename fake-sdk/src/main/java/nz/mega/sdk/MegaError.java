@@ -0,0 +1,89 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for the MEGA SDK error, with the same error codes.
+ */
+public class MegaError {
+
+    public static final int API_OK = 0;
+    public static final int API_EINTERNAL = -1;
+    public static final int API_EARGS = -2;
+    public static final int API_EAGAIN = -3;
+    public static final int API_ERATELIMIT = -4;
+    public static final int API_EFAILED = -5;
+    public static final int API_ETOOMANY = -6;
+    public static final int API_ERANGE = -7;
+    public static final int API_EEXPIRED = -8;
+    public static final int API_ENOENT = -9;
+    public static final int API_ECIRCULAR = -10;
+    public static final int API_EACCESS = -11;
+    public static final int API_EEXIST = -12;
+    public static final int API_EINCOMPLETE = -13;
+    public static final int API_EKEY = -14;
+    public static final int API_ESID = -15;
+    public static final int API_EBLOCKED = -16;
+    public static final int API_EOVERQUOTA = -17;
+    public static final int API_ETEMPUNAVAIL = -18;
+    public static final int API_ETOOMANYCONNECTIONS = -19;
+    public static final int API_EWRITE = -20;
+    public static final int API_EREAD = -21;
+    public static final int API_EAPPKEY = -22;
+
+    private final int errorCode;
+
+    MegaError(int errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public MegaError copy() {
+        return new MegaError(errorCode);
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    public String getErrorString() {
+        return getErrorString(errorCode);
+    }
+
+    public static String getErrorString(int errorCode) {
+        switch (errorCode) {
+            case API_OK:
+                return "No error";
+            case API_EINTERNAL:
+                return "Internal error";
+            case API_EARGS:
+                return "Invalid argument";
+            case API_EAGAIN:
+                return "Request failed, retrying";
+            case API_ERATELIMIT:
+                return "Rate limit exceeded";
+            case API_ENOENT:
+                return "Not found";
+            case API_EACCESS:
+                return "Access denied";
+            case API_EEXIST:
+                return "Already exists";
+            case API_EINCOMPLETE:
+                return "Incomplete";
+            case API_ESID:
+                return "Invalid or expired user session, please relogin";
+            case API_EOVERQUOTA:
+                return "Storage quota exceeded";
+            case API_ETEMPUNAVAIL:
+                return "Temporarily not available";
+            case API_EWRITE:
+                return "Write error";
+            case API_EREAD:
+                return "Read error";
+            default:
+                return "Unknown error";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getErrorString();
+    }
+}
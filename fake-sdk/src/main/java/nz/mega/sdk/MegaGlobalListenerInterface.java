@@ -0,0 +1,19 @@
+package nz.mega.sdk;
+
+import java.util.ArrayList;
+
+/**
+ * Stand-in for the MEGA SDK global listener interface.
+ */
+public interface MegaGlobalListenerInterface {
+
+    void onUsersUpdate(MegaApiJava api, ArrayList<MegaUser> users);
+
+    void onNodesUpdate(MegaApiJava api, ArrayList<MegaNode> nodes);
+
+    void onAccountUpdate(MegaApiJava api);
+
+    void onContactRequestsUpdate(MegaApiJava api, ArrayList<MegaContactRequest> requests);
+
+    void onReloadNeeded(MegaApiJava api);
+}
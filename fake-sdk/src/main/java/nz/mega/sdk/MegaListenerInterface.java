@@ -0,0 +1,8 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for the MEGA SDK listener interface, which receives request, transfer and global events.
+ */
+public interface MegaListenerInterface
+        extends MegaRequestListenerInterface, MegaTransferListenerInterface, MegaGlobalListenerInterface {
+}
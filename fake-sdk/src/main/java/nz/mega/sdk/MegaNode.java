@@ -0,0 +1,118 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for a MEGA SDK node: an immutable snapshot of a file or folder in the fake node tree.
+ */
+public class MegaNode {
+
+    public static final int TYPE_UNKNOWN = -1;
+    public static final int TYPE_FILE = 0;
+    public static final int TYPE_FOLDER = 1;
+    public static final int TYPE_ROOT = 2;
+    public static final int TYPE_INCOMING = 3;
+    public static final int TYPE_RUBBISH = 4;
+
+    public static final int CHANGE_TYPE_REMOVED = 0x01;
+    public static final int CHANGE_TYPE_ATTRIBUTES = 0x02;
+    public static final int CHANGE_TYPE_OWNER = 0x04;
+    public static final int CHANGE_TYPE_TIMESTAMP = 0x08;
+    public static final int CHANGE_TYPE_FILE_ATTRIBUTES = 0x10;
+    public static final int CHANGE_TYPE_INSHARE = 0x20;
+    public static final int CHANGE_TYPE_OUTSHARE = 0x40;
+    public static final int CHANGE_TYPE_PARENT = 0x80;
+    public static final int CHANGE_TYPE_PENDINGSHARE = 0x100;
+
+    private final long handle;
+    private final long parentHandle;
+    private final int type;
+    private final String name;
+    private final long size;
+    private final long creationTime;
+    private final long modificationTime;
+    private final String fingerprint;
+    private final int changes;
+
+    MegaNode(long handle, long parentHandle, int type, String name, long size, long creationTime,
+             long modificationTime, String fingerprint, int changes) {
+        this.handle = handle;
+        this.parentHandle = parentHandle;
+        this.type = type;
+        this.name = name;
+        this.size = size;
+        this.creationTime = creationTime;
+        this.modificationTime = modificationTime;
+        this.fingerprint = fingerprint;
+        this.changes = changes;
+    }
+
+    public MegaNode copy() {
+        return new MegaNode(handle, parentHandle, type, name, size, creationTime, modificationTime, fingerprint,
+                changes);
+    }
+
+    MegaNode withChanges(int changeFlags) {
+        return new MegaNode(handle, parentHandle, type, name, size, creationTime, modificationTime, fingerprint,
+                changeFlags);
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBase64Handle() {
+        return Long.toHexString(handle);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public long getModificationTime() {
+        return modificationTime;
+    }
+
+    public long getHandle() {
+        return handle;
+    }
+
+    public long getParentHandle() {
+        return parentHandle;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getChanges() {
+        return changes;
+    }
+
+    public boolean hasChanged(int changeType) {
+        return (changes & changeType) != 0;
+    }
+
+    public boolean isFile() {
+        return type == TYPE_FILE;
+    }
+
+    public boolean isFolder() {
+        return type != TYPE_FILE && type != TYPE_UNKNOWN;
+    }
+
+    public boolean isRemoved() {
+        return hasChanged(CHANGE_TYPE_REMOVED);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,136 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for a MEGA SDK request.
+ */
+public class MegaRequest {
+
+    public static final int TYPE_LOGIN = 0;
+    public static final int TYPE_CREATE_FOLDER = 1;
+    public static final int TYPE_MOVE = 2;
+    public static final int TYPE_COPY = 3;
+    public static final int TYPE_RENAME = 4;
+    public static final int TYPE_REMOVE = 5;
+    public static final int TYPE_SHARE = 6;
+    public static final int TYPE_IMPORT_LINK = 7;
+    public static final int TYPE_EXPORT = 8;
+    public static final int TYPE_FETCH_NODES = 9;
+    public static final int TYPE_ACCOUNT_DETAILS = 10;
+    public static final int TYPE_CHANGE_PW = 11;
+    public static final int TYPE_UPLOAD = 12;
+    public static final int TYPE_LOGOUT = 13;
+    public static final int TYPE_DELETE = 45;
+
+    private final int type;
+    private final int tag;
+    private volatile long nodeHandle = MegaApiJava.INVALID_HANDLE;
+    private volatile long parentHandle = MegaApiJava.INVALID_HANDLE;
+    private volatile String name;
+    private volatile String email;
+    private volatile String sessionKey;
+    private volatile MegaAccountDetails accountDetails;
+
+    MegaRequest(int type, int tag) {
+        this.type = type;
+        this.tag = tag;
+    }
+
+    public MegaRequest copy() {
+        MegaRequest copy = new MegaRequest(type, tag);
+        copy.nodeHandle = nodeHandle;
+        copy.parentHandle = parentHandle;
+        copy.name = name;
+        copy.email = email;
+        copy.sessionKey = sessionKey;
+        copy.accountDetails = accountDetails;
+        return copy;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getRequestString() {
+        switch (type) {
+            case TYPE_LOGIN:
+                return "LOGIN";
+            case TYPE_CREATE_FOLDER:
+                return "CREATE_FOLDER";
+            case TYPE_REMOVE:
+                return "REMOVE";
+            case TYPE_FETCH_NODES:
+                return "FETCH_NODES";
+            case TYPE_ACCOUNT_DETAILS:
+                return "ACCOUNT_DETAILS";
+            case TYPE_LOGOUT:
+                return "LOGOUT";
+            default:
+                return "TYPE_" + type;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getRequestString();
+    }
+
+    public int getTag() {
+        return tag;
+    }
+
+    public long getNodeHandle() {
+        return nodeHandle;
+    }
+
+    void setNodeHandle(long nodeHandle) {
+        this.nodeHandle = nodeHandle;
+    }
+
+    public long getParentHandle() {
+        return parentHandle;
+    }
+
+    void setParentHandle(long parentHandle) {
+        this.parentHandle = parentHandle;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getSessionKey() {
+        return sessionKey;
+    }
+
+    void setSessionKey(String sessionKey) {
+        this.sessionKey = sessionKey;
+    }
+
+    public MegaAccountDetails getMegaAccountDetails() {
+        return accountDetails;
+    }
+
+    void setMegaAccountDetails(MegaAccountDetails accountDetails) {
+        this.accountDetails = accountDetails;
+    }
+
+    public long getTransferredBytes() {
+        return 0;
+    }
+
+    public long getTotalBytes() {
+        return 0;
+    }
+}
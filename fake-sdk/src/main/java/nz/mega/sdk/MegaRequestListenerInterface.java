@@ -0,0 +1,15 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for the MEGA SDK request listener interface.
+ */
+public interface MegaRequestListenerInterface {
+
+    void onRequestStart(MegaApiJava api, MegaRequest request);
+
+    void onRequestUpdate(MegaApiJava api, MegaRequest request);
+
+    void onRequestFinish(MegaApiJava api, MegaRequest request, MegaError e);
+
+    void onRequestTemporaryError(MegaApiJava api, MegaRequest request, MegaError e);
+}
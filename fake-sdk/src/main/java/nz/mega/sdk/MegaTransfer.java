@@ -0,0 +1,163 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for a MEGA SDK transfer.
+ */
+public class MegaTransfer {
+
+    public static final int TYPE_DOWNLOAD = 0;
+    public static final int TYPE_UPLOAD = 1;
+
+    private final int type;
+    private final int tag;
+    private final String path;
+    private final String fileName;
+    private final long startPos;
+    private final long endPos;
+    private final boolean streaming;
+    private final long startTime = System.currentTimeMillis();
+    private volatile long nodeHandle = MegaApiJava.INVALID_HANDLE;
+    private volatile long parentHandle = MegaApiJava.INVALID_HANDLE;
+    private volatile long totalBytes;
+    private volatile long transferredBytes;
+    private volatile long deltaSize;
+    private volatile long speed;
+    private volatile long updateTime = startTime;
+    private volatile int numRetry;
+    private volatile boolean cancelled;
+
+    MegaTransfer(int type, int tag, String path, String fileName, long startPos, long endPos, boolean streaming) {
+        this.type = type;
+        this.tag = tag;
+        this.path = path;
+        this.fileName = fileName;
+        this.startPos = startPos;
+        this.endPos = endPos;
+        this.streaming = streaming;
+    }
+
+    public MegaTransfer copy() {
+        MegaTransfer copy = new MegaTransfer(type, tag, path, fileName, startPos, endPos, streaming);
+        copy.nodeHandle = nodeHandle;
+        copy.parentHandle = parentHandle;
+        copy.totalBytes = totalBytes;
+        copy.transferredBytes = transferredBytes;
+        copy.deltaSize = deltaSize;
+        copy.speed = speed;
+        copy.updateTime = updateTime;
+        copy.numRetry = numRetry;
+        return copy;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getTransferString() {
+        return type == TYPE_UPLOAD ? "UPLOAD" : "DOWNLOAD";
+    }
+
+    @Override
+    public String toString() {
+        return getTransferString();
+    }
+
+    public int getTag() {
+        return tag;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getParentPath() {
+        return null;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getStartPos() {
+        return startPos;
+    }
+
+    public long getEndPos() {
+        return endPos;
+    }
+
+    public boolean isStreamingTransfer() {
+        return streaming;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    public long getNodeHandle() {
+        return nodeHandle;
+    }
+
+    void setNodeHandle(long nodeHandle) {
+        this.nodeHandle = nodeHandle;
+    }
+
+    public long getParentHandle() {
+        return parentHandle;
+    }
+
+    void setParentHandle(long parentHandle) {
+        this.parentHandle = parentHandle;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    void addTransferredBytes(long delta, long elapsedMillis) {
+        transferredBytes += delta;
+        deltaSize = delta;
+        speed = elapsedMillis <= 0 ? 0 : transferredBytes * 1000 / elapsedMillis;
+        updateTime = System.currentTimeMillis();
+    }
+
+    public long getDeltaSize() {
+        return deltaSize;
+    }
+
+    public long getSpeed() {
+        return speed;
+    }
+
+    public int getNumRetry() {
+        return numRetry;
+    }
+
+    void incrementNumRetry() {
+        numRetry++;
+    }
+
+    public int getMaxRetries() {
+        return 0;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+}
@@ -0,0 +1,17 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for the MEGA SDK transfer listener interface.
+ */
+public interface MegaTransferListenerInterface {
+
+    void onTransferStart(MegaApiJava api, MegaTransfer transfer);
+
+    void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e);
+
+    void onTransferUpdate(MegaApiJava api, MegaTransfer transfer);
+
+    void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e);
+
+    boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer);
+}
@@ -0,0 +1,11 @@
+package nz.mega.sdk;
+
+/**
+ * Stand-in for a MEGA SDK contact. The fake SDK has no contacts.
+ */
+public class MegaUser {
+
+    public String getEmail() {
+        return null;
+    }
+}
@@ -0,0 +1,132 @@
+package nz.mega.megacrudexample;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The per-file results of a BulkUploader run.
+ * <p>
+ * The counters are updated from the MEGA SDK callback thread as each transfer finishes, so a report can be read
+ * while the upload is still running to follow its progress.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class BulkUploadReport {
+
+    /*
+     * Counts of files started, finished successfully and failed, and of remote folders created.
+     */
+    private final AtomicInteger filesStarted = new AtomicInteger();
+    private final AtomicInteger filesUploaded = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private final AtomicInteger foldersCreated = new AtomicInteger();
+
+    /*
+     * Total size of the successfully uploaded files.
+     */
+    private final AtomicLong bytesUploaded = new AtomicLong();
+
+    /*
+     * The cause of every failed file upload or folder creation, keyed by the local path.
+     */
+    private final Map<Path, Throwable> failures = new ConcurrentHashMap<>();
+
+    /*
+     * Wall time of the whole run, set once the last transfer has finished.
+     */
+    private volatile long elapsedNanos;
+
+    void fileStarted() {
+        filesStarted.incrementAndGet();
+    }
+
+    void fileUploaded(long size) {
+        filesUploaded.incrementAndGet();
+        bytesUploaded.addAndGet(size);
+    }
+
+    void fileFailed(Path localFile, Throwable cause) {
+        filesFailed.incrementAndGet();
+        failures.put(localFile, cause);
+    }
+
+    void folderFailed(Path localDirectory, Throwable cause) {
+        failures.put(localDirectory, cause);
+    }
+
+    void folderCreated() {
+        foldersCreated.incrementAndGet();
+    }
+
+    void finished(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return The number of file uploads which have been started
+     */
+    public int getFilesStarted() {
+        return filesStarted.get();
+    }
+
+    /**
+     * @return The number of files which have been uploaded successfully
+     */
+    public int getFilesUploaded() {
+        return filesUploaded.get();
+    }
+
+    /**
+     * @return The number of file uploads which have failed
+     */
+    public int getFilesFailed() {
+        return filesFailed.get();
+    }
+
+    /**
+     * @return The number of file uploads which have been started but not finished yet
+     */
+    public int getFilesInFlight() {
+        return filesStarted.get() - filesUploaded.get() - filesFailed.get();
+    }
+
+    /**
+     * @return The number of remote folders which were created
+     */
+    public int getFoldersCreated() {
+        return foldersCreated.get();
+    }
+
+    /**
+     * @return The total size in bytes of the files which have been uploaded successfully
+     */
+    public long getBytesUploaded() {
+        return bytesUploaded.get();
+    }
+
+    /**
+     * @return The cause of every failed file upload or folder creation, keyed by the local path
+     */
+    public Map<Path, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return The wall time of the whole run in nanoseconds, or 0 if it has not finished yet
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return "Uploaded " + getFilesUploaded() + " of " + getFilesStarted() + " files (" + getFilesFailed()
+                + " failed, " + getFoldersCreated() + " folders created), " + getBytesUploaded() + " bytes in "
+                + String.format("%.2f", seconds) + " s";
+    }
+}
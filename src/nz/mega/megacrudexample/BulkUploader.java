@@ -0,0 +1,204 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaTransfer;
+
+/**
+ * Uploads a whole local directory tree to a remote folder.
+ * <p>
+ * The local tree is walked once. Every local directory is matched to a remote folder, which is created if it does
+ * not exist yet, and every regular file is uploaded into the remote folder of its directory. Up to maxInFlight
+ * uploads are kept running at once. When that many are in flight the walk blocks until one finishes, so a tree of
+ * any size is uploaded with a bounded number of outstanding transfers.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class BulkUploader {
+
+    /*
+     * Starts the folder requests and upload transfers.
+     */
+    private final MegaAsyncClient megaAsyncClient;
+
+    /*
+     * The maximum number of uploads in flight at once.
+     */
+    private final int maxInFlight;
+
+    /*
+     * Queues the uploads behind interactive transfers, or null to start them straight away.
+     */
+    private final TransferScheduler transferScheduler;
+
+    /**
+     * Creates a new BulkUploader which starts its uploads straight away.
+     *
+     * @param megaAsyncClient The client to start folder requests and upload transfers on
+     * @param maxInFlight The maximum number of uploads in flight at once
+     */
+    public BulkUploader(MegaAsyncClient megaAsyncClient, int maxInFlight) {
+        this(megaAsyncClient, maxInFlight, null);
+    }
+
+    /**
+     * Creates a new BulkUploader which queues its uploads as BULK transfers of their own caller in a
+     * TransferScheduler.
+     *
+     * @param megaAsyncClient The client to start folder requests on
+     * @param maxInFlight The maximum number of uploads in flight or queued at once
+     * @param transferScheduler The scheduler to queue the uploads in, or null to start them straight away
+     */
+    public BulkUploader(MegaAsyncClient megaAsyncClient, int maxInFlight, TransferScheduler transferScheduler) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+        }
+        this.megaAsyncClient = megaAsyncClient;
+        this.maxInFlight = maxInFlight;
+        this.transferScheduler = transferScheduler;
+    }
+
+    /**
+     * Uploads the contents of a local directory into a remote folder and waits for every upload to finish.
+     * <p>
+     * A folder with the same name as the local directory is used, or created, in the remote parent folder.
+     *
+     * @param localDirectory The local directory to upload
+     * @param remoteParent The remote folder to upload the directory into
+     * @return The per-file results of the upload
+     * @throws IOException If the local directory cannot be walked
+     * @throws InterruptedException If the calling thread is interrupted while waiting for uploads
+     */
+    public BulkUploadReport upload(Path localDirectory, MegaNode remoteParent)
+            throws IOException, InterruptedException {
+        final BulkUploadReport report = new BulkUploadReport();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final Map<Path, MegaNode> remoteFolders = new HashMap<>();
+        remoteFolders.put(localDirectory.toAbsolutePath().getParent(), remoteParent);
+        long start = System.nanoTime();
+
+        try {
+            Files.walkFileTree(localDirectory.toAbsolutePath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    MegaNode parent = remoteFolders.get(dir.getParent());
+                    MegaNode folder = parent == null ? null : findOrCreateFolder(dir, parent, report);
+                    if (folder == null) {
+                        // Without a remote folder nothing below this directory can be uploaded
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    remoteFolders.put(dir, folder);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (attrs.isRegularFile()) {
+                        startUpload(file, attrs.size(), remoteFolders.get(file.getParent()), inFlight, report);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // An unreadable file or directory fails on its own instead of aborting the whole upload
+                    if (Files.isDirectory(file)) {
+                        report.folderFailed(file, e);
+                    }
+                    else {
+                        report.fileFailed(file, e);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                    // The folder is not needed once all of its files have been started
+                    remoteFolders.remove(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (WalkInterruptedException e) {
+            throw (InterruptedException) e.getCause();
+        } finally {
+            // Wait for the uploads still in flight by taking back every permit
+            inFlight.acquireUninterruptibly(maxInFlight);
+            report.finished(System.nanoTime() - start);
+        }
+        return report;
+    }
+
+    /*
+     * Starts the upload of one file once an in flight slot is free.
+     */
+    private void startUpload(final Path file, final long size, MegaNode parent, final Semaphore inFlight,
+                             final BulkUploadReport report) throws WalkInterruptedException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            throw new WalkInterruptedException(e);
+        }
+        report.fileStarted();
+        // Each run is a caller of its own, so concurrent bulk uploads share the transfer slots fairly
+        CompletableFuture<MegaTransfer> upload = transferScheduler == null
+                ? megaAsyncClient.upload(file.toString(), parent)
+                : transferScheduler.upload(TransferScheduler.Priority.BULK, report, file, parent, size);
+        upload.whenComplete((transfer, failure) -> {
+            if (failure == null) {
+                report.fileUploaded(size);
+            }
+            else {
+                report.fileFailed(file, failure);
+            }
+            inFlight.release();
+        });
+    }
+
+    /*
+     * Returns the remote folder matching a local directory, creating it if it does not exist.
+     */
+    private MegaNode findOrCreateFolder(Path dir, MegaNode parent, BulkUploadReport report)
+            throws WalkInterruptedException {
+        MegaApiJava megaApiJava = megaAsyncClient.getApi();
+        String name = dir.getFileName().toString();
+        MegaNode existing = megaApiJava.getNodeByPath(name, parent);
+        if (existing != null) {
+            return existing.isFolder() ? existing : null;
+        }
+        try {
+            MegaRequest request = megaAsyncClient.createFolder(name, parent).get();
+            report.folderCreated();
+            return megaApiJava.getNodeByHandle(request.getNodeHandle());
+        } catch (InterruptedException e) {
+            throw new WalkInterruptedException(e);
+        } catch (ExecutionException e) {
+            report.folderFailed(dir, e.getCause());
+            return null;
+        }
+    }
+
+    /*
+     * Carries an interruption out of the file visitor, which may only throw IOException.
+     */
+    private static class WalkInterruptedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        WalkInterruptedException(InterruptedException cause) {
+            super(cause);
+        }
+    }
+}
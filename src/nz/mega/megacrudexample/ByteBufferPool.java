@@ -0,0 +1,109 @@
+package nz.mega.megacrudexample;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of reusable direct ByteBuffers of one fixed size.
+ * <p>
+ * Buffers are allocated lazily up to maxBuffers. Once every buffer is in use acquire() blocks until one is released,
+ * which caps the memory a single stream can hold and pushes back on whoever is producing the data.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class ByteBufferPool {
+
+    /*
+     * The capacity of every buffer in this pool.
+     */
+    private final int bufferSize;
+
+    /*
+     * The maximum number of buffers this pool will allocate.
+     */
+    private final int maxBuffers;
+
+    /*
+     * Released buffers ready for reuse.
+     */
+    private final BlockingQueue<ByteBuffer> free;
+
+    /*
+     * The number of buffers allocated so far.
+     */
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    /**
+     * Creates a new ByteBufferPool.
+     *
+     * @param bufferSize The capacity of every buffer in bytes
+     * @param maxBuffers The maximum number of buffers to allocate
+     */
+    public ByteBufferPool(int bufferSize, int maxBuffers) {
+        if (bufferSize < 1 || maxBuffers < 1) {
+            throw new IllegalArgumentException("bufferSize and maxBuffers must be at least 1");
+        }
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.free = new ArrayBlockingQueue<>(maxBuffers);
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating one if the limit has not been reached, or waits for one to
+     * be released.
+     *
+     * @return A cleared buffer of bufferSize capacity
+     * @throws InterruptedException If the calling thread is interrupted while waiting for a buffer
+     */
+    public ByteBuffer acquire() throws InterruptedException {
+        ByteBuffer buffer = tryAcquire();
+        return buffer != null ? buffer : free.take();
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating one if the limit has not been reached, without waiting.
+     *
+     * @return A cleared buffer of bufferSize capacity, or null if every buffer is in use
+     */
+    public ByteBuffer tryAcquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        // Allocate a new buffer unless another thread has already taken the last allocation
+        int count = allocated.get();
+        while (count < maxBuffers) {
+            if (allocated.compareAndSet(count, count + 1)) {
+                return ByteBuffer.allocateDirect(bufferSize);
+            }
+            count = allocated.get();
+        }
+        return free.poll();
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     *
+     * @param buffer A buffer previously taken from this pool
+     */
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        free.offer(buffer);
+    }
+
+    /**
+     * @return The capacity of every buffer in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return The maximum number of bytes this pool can hold
+     */
+    public long getCapacityBytes() {
+        return (long) bufferSize * maxBuffers;
+    }
+}
@@ -0,0 +1,372 @@
+package nz.mega.megacrudexample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaContactRequest;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaListenerInterface;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaUser;
+
+/**
+ * Sits between the MEGA SDK and application listeners and runs the listeners on a pool of worker threads, so that
+ * their work never delays later SDK events.
+ * <p>
+ * The SDK objects of every event are copied on the callback thread, as they are only valid until the callback
+ * returns. Request and transfer events are striped by tag, which stays the same for the whole life of a request or
+ * transfer, so the events of one request or transfer are handed to listeners in order and unrelated ones run in
+ * parallel. There is no ordering between different requests or transfers, even of the same node. Nodes
+ * updates and the other account-wide events run on a lane of their own, in SDK order: a nodes update is a batch in
+ * which parents come before their children, and splitting it across stripes would lose that order.
+ * <p>
+ * onTransferData() is called inline on the SDK thread, because its buffer is only valid during the call and its
+ * result decides whether the transfer continues.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class CallbackDispatcher implements MegaListenerInterface, AutoCloseable {
+
+    /**
+     * What the SDK callback thread does when the queue of a stripe is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Wait for room, which slows the SDK down to the pace of the listeners. No event is lost.
+         */
+        BLOCK,
+
+        /**
+         * Drop the event and count it. The SDK is never slowed down.
+         */
+        DROP,
+
+        /**
+         * Run the listeners on the SDK callback thread. No event is lost, but the event may overtake earlier
+         * events of its stripe which are still queued.
+         */
+        CALLER_RUNS
+    }
+
+    /*
+     * Marks the end of a stripe's queue on close().
+     */
+    private static final Runnable STOP = () -> {
+    };
+
+    private final List<MegaListenerInterface> listeners = new CopyOnWriteArrayList<>();
+    private final Stripe[] stripes;
+    private final Stripe globalLane;
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Creates a new CallbackDispatcher and starts its worker threads.
+     *
+     * @param stripes The number of worker threads request and transfer events are striped over
+     * @param queueCapacity The number of events each worker can have queued
+     * @param overflowPolicy What to do with an event whose worker's queue is full
+     */
+    public CallbackDispatcher(int stripes, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe("mega-callback-" + i, queueCapacity);
+        }
+        this.globalLane = new Stripe("mega-callback-global", queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Adds a listener which receives every event on a worker thread.
+     *
+     * @param listener The application listener
+     */
+    public void addListener(MegaListenerInterface listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener The application listener to stop dispatching to
+     */
+    public void removeListener(MegaListenerInterface listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return The number of events queued over all workers
+     */
+    public int getQueueDepth() {
+        int depth = globalLane.queue.size();
+        for (Stripe stripe : stripes) {
+            depth += stripe.queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * @return The deepest any worker's queue has been
+     */
+    public int getMaxQueueDepth() {
+        int max = globalLane.maxDepth.get();
+        for (Stripe stripe : stripes) {
+            max = Math.max(max, stripe.maxDepth.get());
+        }
+        return max;
+    }
+
+    /**
+     * @return The number of events handed to the workers
+     */
+    public long getDispatched() {
+        long dispatched = globalLane.dispatched.sum();
+        for (Stripe stripe : stripes) {
+            dispatched += stripe.dispatched.sum();
+        }
+        return dispatched;
+    }
+
+    /**
+     * @return The number of events dropped, or run on the SDK thread, because their worker's queue was full
+     */
+    public long getOverflows() {
+        long overflows = globalLane.overflows.sum();
+        for (Stripe stripe : stripes) {
+            overflows += stripe.overflows.sum();
+        }
+        return overflows;
+    }
+
+    /**
+     * Stops the workers once they have handled the events already queued.
+     */
+    @Override
+    public void close() {
+        globalLane.stop();
+        for (Stripe stripe : stripes) {
+            stripe.stop();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Callback dispatcher: " + getDispatched() + " events, queued=" + getQueueDepth() + " max queued="
+                + getMaxQueueDepth() + " overflows (" + overflowPolicy + ")=" + getOverflows();
+    }
+
+    @Override
+    public void onRequestStart(MegaApiJava api, MegaRequest request) {
+        final MegaRequest copy = request.copy();
+        dispatch(stripeOf(copy), listener -> listener.onRequestStart(api, copy));
+    }
+
+    @Override
+    public void onRequestUpdate(MegaApiJava api, MegaRequest request) {
+        final MegaRequest copy = request.copy();
+        dispatch(stripeOf(copy), listener -> listener.onRequestUpdate(api, copy));
+    }
+
+    @Override
+    public void onRequestFinish(MegaApiJava api, MegaRequest request, MegaError e) {
+        final MegaRequest copy = request.copy();
+        final MegaError error = e.copy();
+        dispatch(stripeOf(copy), listener -> listener.onRequestFinish(api, copy, error));
+    }
+
+    @Override
+    public void onRequestTemporaryError(MegaApiJava api, MegaRequest request, MegaError e) {
+        final MegaRequest copy = request.copy();
+        final MegaError error = e.copy();
+        dispatch(stripeOf(copy), listener -> listener.onRequestTemporaryError(api, copy, error));
+    }
+
+    @Override
+    public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+        final MegaTransfer copy = transfer.copy();
+        dispatch(stripeOf(copy), listener -> listener.onTransferStart(api, copy));
+    }
+
+    @Override
+    public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+        final MegaTransfer copy = transfer.copy();
+        dispatch(stripeOf(copy), listener -> listener.onTransferUpdate(api, copy));
+    }
+
+    @Override
+    public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+        final MegaTransfer copy = transfer.copy();
+        final MegaError error = e.copy();
+        dispatch(stripeOf(copy), listener -> listener.onTransferFinish(api, copy, error));
+    }
+
+    @Override
+    public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+        final MegaTransfer copy = transfer.copy();
+        final MegaError error = e.copy();
+        dispatch(stripeOf(copy), listener -> listener.onTransferTemporaryError(api, copy, error));
+    }
+
+    /**
+     * Calls every listener inline on the SDK thread.
+     *
+     * @param api The MEGA Java API object which called the data transfer event
+     * @param transfer The MEGA Transfer which received the data
+     * @param buffer The received data, only valid until this method returns
+     * @return True if any listener wants the transfer to continue
+     */
+    @Override
+    public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+        boolean result = false;
+        for (MegaListenerInterface listener : listeners) {
+            result |= listener.onTransferData(api, transfer, buffer);
+        }
+        return result;
+    }
+
+    @Override
+    public void onUsersUpdate(MegaApiJava api, ArrayList<MegaUser> users) {
+        final ArrayList<MegaUser> copy = users == null ? null : new ArrayList<>(users);
+        dispatch(globalLane, listener -> listener.onUsersUpdate(api, copy));
+    }
+
+    @Override
+    public void onNodesUpdate(MegaApiJava api, ArrayList<MegaNode> nodes) {
+        ArrayList<MegaNode> copies = null;
+        if (nodes != null) {
+            copies = new ArrayList<>(nodes.size());
+            for (MegaNode node : nodes) {
+                copies.add(node.copy());
+            }
+        }
+        final ArrayList<MegaNode> copy = copies;
+        dispatch(globalLane, listener -> listener.onNodesUpdate(api, copy));
+    }
+
+    @Override
+    public void onAccountUpdate(MegaApiJava api) {
+        dispatch(globalLane, listener -> listener.onAccountUpdate(api));
+    }
+
+    @Override
+    public void onContactRequestsUpdate(MegaApiJava api, ArrayList<MegaContactRequest> requests) {
+        final ArrayList<MegaContactRequest> copy = requests == null ? null : new ArrayList<>(requests);
+        dispatch(globalLane, listener -> listener.onContactRequestsUpdate(api, copy));
+    }
+
+    @Override
+    public void onReloadNeeded(MegaApiJava api) {
+        dispatch(globalLane, listener -> listener.onReloadNeeded(api));
+    }
+
+    /*
+     * Requests such as createFolder have no node handle until they finish, so requests are striped by tag to keep
+     * their events ordered.
+     */
+    private Stripe stripeOf(MegaRequest request) {
+        return stripeOf(request.getTag());
+    }
+
+    /*
+     * Uploads have no node handle until they finish, so transfers are striped by tag to keep their events ordered.
+     */
+    private Stripe stripeOf(MegaTransfer transfer) {
+        return stripeOf(transfer.getTag());
+    }
+
+    private Stripe stripeOf(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return stripes[Math.floorMod((int) (mixed ^ (mixed >>> 32)), stripes.length)];
+    }
+
+    /*
+     * Queues a call of every listener on a stripe, applying the overflow policy if its queue is full.
+     */
+    private void dispatch(Stripe stripe, final Consumer<MegaListenerInterface> call) {
+        Runnable task = () -> {
+            for (MegaListenerInterface listener : listeners) {
+                try {
+                    call.accept(listener);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        stripe.dispatched.increment();
+        if (stripe.queue.offer(task)) {
+            stripe.recordDepth();
+            return;
+        }
+        stripe.overflows.increment();
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    stripe.queue.put(task);
+                    stripe.recordDepth();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    task.run();
+                }
+                break;
+            case CALLER_RUNS:
+                task.run();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /*
+     * One worker thread and its queue.
+     */
+    private static final class Stripe {
+        private final BlockingQueue<Runnable> queue;
+        private final Thread worker;
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final LongAdder dispatched = new LongAdder();
+        private final LongAdder overflows = new LongAdder();
+
+        Stripe(String name, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.worker = new Thread(this::run, name);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+
+        void recordDepth() {
+            int depth = queue.size();
+            int max;
+            while (depth > (max = maxDepth.get()) && !maxDepth.compareAndSet(max, depth)) {
+                // Retry until the maximum is at least this depth
+            }
+        }
+
+        void stop() {
+            try {
+                queue.put(STOP);
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void run() {
+            try {
+                Runnable task;
+                while ((task = queue.take()) != STOP) {
+                    task.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package nz.mega.megacrudexample;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+import nz.mega.sdk.MegaNode;
+
+/**
+ * Turns the node lists passed to onNodesUpdate() into an ordered stream of typed NodeChangeEvents and fans them out
+ * to any number of subscribers.
+ * <p>
+ * publish() is called on the MEGA SDK callback thread. It only writes the events into a bounded ring buffer and
+ * schedules a drain task for each subscriber with new events, so it never waits for a subscriber. Each subscriber
+ * has its own position in the ring and receives events in order on the given executor. A subscriber which falls
+ * more than the ring's capacity behind skips to the oldest event still held and is told how many it missed.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class ChangeFeed {
+
+    /*
+     * The ring buffer of the most recent events, indexed by sequence modulo capacity.
+     */
+    private final AtomicReferenceArray<NodeChangeEvent> ring;
+    private final int mask;
+
+    /*
+     * The sequence the next published event will get. Every event below it has been written to the ring.
+     */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /*
+     * The executor subscribers' drain tasks run on.
+     */
+    private final Executor executor;
+
+    /*
+     * Looks up the name a node had before a change. The default remembers the names seen in published events.
+     */
+    private volatile LongFunction<String> previousNames;
+    private final Map<Long, String> seenNames = new ConcurrentHashMap<>();
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new ChangeFeed.
+     *
+     * @param capacity The number of events held for subscribers, rounded up to a power of two
+     * @param executor The executor subscribers receive events on
+     */
+    public ChangeFeed(int capacity, Executor executor) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.executor = executor;
+        this.previousNames = seenNames::get;
+    }
+
+    /**
+     * Replaces the lookup of the name a node had before a change, for example with a lookup in a full index of the
+     * node tree so that renames of nodes created before this process started are recognised.
+     *
+     * @param previousNames Returns the last known name of a node handle, or null if it is not known
+     */
+    public void setPreviousNames(LongFunction<String> previousNames) {
+        this.previousNames = previousNames;
+    }
+
+    /**
+     * Publishes the changes reported by onNodesUpdate().
+     *
+     * @param nodes The changed nodes, or null if the whole node tree was reloaded
+     */
+    public void publish(List<MegaNode> nodes) {
+        long now = System.currentTimeMillis();
+        if (nodes == null) {
+            append(NodeChangeType.RELOADED, null, null, now);
+        }
+        else {
+            for (MegaNode node : nodes) {
+                publish(node, now);
+            }
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.schedule();
+        }
+    }
+
+    /**
+     * Subscribes to the events published from now on.
+     *
+     * @param listener The listener to hand events to
+     * @return The subscription, which must be closed once the listener is no longer needed
+     */
+    public Subscription subscribe(NodeChangeListener listener) {
+        return subscribe(listener, nextSequence.get());
+    }
+
+    /**
+     * Subscribes to the events published from a given sequence on, replaying events still held in the ring.
+     *
+     * @param listener The listener to hand events to
+     * @param fromSequence The sequence of the first event to receive, for example one past the last event a
+     *                     previous subscription processed
+     * @return The subscription, which must be closed once the listener is no longer needed
+     */
+    public Subscription subscribe(NodeChangeListener listener, long fromSequence) {
+        Subscription subscription = new Subscription(listener, fromSequence);
+        subscriptions.add(subscription);
+        subscription.schedule();
+        return subscription;
+    }
+
+    /**
+     * @return The sequence the next published event will get
+     */
+    public long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    /*
+     * Classifies one changed node. A node can carry several changes at once, which become one event each.
+     */
+    private void publish(MegaNode node, long now) {
+        long handle = node.getHandle();
+        String name = node.getName();
+        if (node.getChanges() == 0) {
+            seenNames.put(handle, name);
+            append(NodeChangeType.CREATED, node, null, now);
+            return;
+        }
+        if (node.hasChanged(MegaNode.CHANGE_TYPE_REMOVED)) {
+            seenNames.remove(handle);
+            append(NodeChangeType.REMOVED, node, null, now);
+            return;
+        }
+        if (node.hasChanged(MegaNode.CHANGE_TYPE_PARENT)) {
+            append(NodeChangeType.MOVED, node, null, now);
+        }
+        boolean renamed = false;
+        if (node.hasChanged(MegaNode.CHANGE_TYPE_ATTRIBUTES)) {
+            String previousName = previousNames.apply(handle);
+            if (previousName != null && !previousName.equals(name)) {
+                append(NodeChangeType.RENAMED, node, previousName, now);
+                renamed = true;
+            }
+        }
+        seenNames.put(handle, name);
+        if (!renamed && (node.getChanges() & ~MegaNode.CHANGE_TYPE_PARENT) != 0) {
+            append(NodeChangeType.ATTRIBUTES_CHANGED, node, null, now);
+        }
+    }
+
+    /*
+     * Writes an event into the ring. Only ever called from the SDK callback thread.
+     */
+    private void append(NodeChangeType type, MegaNode node, String previousName, long now) {
+        long sequence = nextSequence.get();
+        NodeChangeEvent event = node == null
+                ? new NodeChangeEvent(sequence, type, -1, -1, null, null, false, 0, 0, now)
+                : new NodeChangeEvent(sequence, type, node.getHandle(), node.getParentHandle(), node.getName(),
+                previousName, node.isFolder(), node.getSize(), node.getModificationTime(), now);
+        ring.set((int) (sequence & mask), event);
+        // Publishing the new sequence makes the event visible to subscribers
+        nextSequence.set(sequence + 1);
+    }
+
+    /**
+     * A subscriber's position in the feed.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final NodeChangeListener listener;
+
+        /*
+         * The sequence of the next event to hand to the listener. Only used by the drain task.
+         */
+        private long position;
+
+        /*
+         * Set while a drain task is scheduled or running, so at most one runs at a time.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile long delivered;
+
+        private Subscription(NodeChangeListener listener, long fromSequence) {
+            this.listener = listener;
+            this.position = fromSequence;
+            this.delivered = fromSequence;
+        }
+
+        /**
+         * @return The number of published events this subscriber has not received yet
+         */
+        public long getLag() {
+            return Math.max(0, nextSequence.get() - delivered);
+        }
+
+        /**
+         * Stops delivering events to the listener.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+
+        private void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                long end = nextSequence.get();
+                while (!closed && position < end) {
+                    long oldest = Math.max(0, end - ring.length());
+                    if (position < oldest) {
+                        listener.onOverrun(oldest - position);
+                        position = oldest;
+                    }
+                    NodeChangeEvent event = ring.get((int) (position & mask));
+                    if (event == null || event.getSequence() != position) {
+                        // Overwritten while being read, pick up the overrun on the next pass
+                        end = nextSequence.get();
+                        continue;
+                    }
+                    listener.onChange(event);
+                    position++;
+                    delivered = position;
+                    end = nextSequence.get();
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // Events published after the last check would otherwise wait for the next publish
+            if (!closed && position < nextSequence.get()) {
+                schedule();
+            }
+        }
+    }
+}
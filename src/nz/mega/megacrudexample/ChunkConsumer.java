@@ -0,0 +1,38 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Receives the chunks of a streaming download.
+ * <p>
+ * Chunks are delivered in order on a single thread. The buffer is returned to its pool once accept() returns, so it
+ * must not be kept.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public interface ChunkConsumer {
+
+    /**
+     * Processes one chunk of downloaded data.
+     *
+     * @param chunk A buffer positioned at the start of the chunk, with its limit at the end of the chunk
+     * @throws IOException If the chunk cannot be processed, which cancels the download
+     */
+    void accept(ByteBuffer chunk) throws IOException;
+
+    /**
+     * Creates a consumer which writes every chunk to a channel.
+     *
+     * @param channel The channel to write the downloaded data to
+     * @return A consumer which writes each chunk fully to the channel
+     */
+    static ChunkConsumer of(final WritableByteChannel channel) {
+        return chunk -> {
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        };
+    }
+}
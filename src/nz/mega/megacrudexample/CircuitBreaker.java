@@ -0,0 +1,143 @@
+package nz.mega.megacrudexample;
+
+/**
+ * A circuit breaker over the most recent outcomes of one operation type.
+ * <p>
+ * While CLOSED every call is allowed. Once at least minimumCalls of the last windowSize outcomes have been recorded
+ * and the failure ratio reaches failureThreshold the breaker OPENs and rejects calls for openMillis. It then lets a
+ * single trial call through (HALF_OPEN): success closes it again, failure re-opens it.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureThreshold;
+    private final long openMillis;
+
+    /*
+     * Ring of the most recent outcomes, true for a failure.
+     */
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * Creates a new CircuitBreaker.
+     *
+     * @param windowSize The number of most recent outcomes the failure ratio is computed over
+     * @param minimumCalls The number of outcomes needed before the breaker can open
+     * @param failureThreshold The failure ratio between 0 and 1 which opens the breaker
+     * @param openMillis How long the breaker stays open before letting a trial call through
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureThreshold, long openMillis) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * Asks whether a call may be made now.
+     *
+     * @return True if the call may go ahead
+     */
+    public synchronized boolean allowCall() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Records a successful call.
+     */
+    public synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * Records a failed call.
+     */
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls && failures >= failureThreshold * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * @return The current state of the breaker
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return How long until an open breaker lets a trial call through in milliseconds, or 0 if it is not open
+     */
+    public synchronized long getRetryAfterMillis() {
+        return state != State.OPEN ? 0 : Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            // Overwrite the oldest outcome
+            if (outcomes[next]) {
+                failures--;
+            }
+        }
+        else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        trialInFlight = false;
+    }
+}
@@ -0,0 +1,21 @@
+package nz.mega.megacrudexample;
+
+/**
+ * An exception which reports that an operation was not started because the circuit breaker for its type is open.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class CircuitOpenException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new CircuitOpenException.
+     *
+     * @param operation The key of the operation type whose circuit is open
+     * @param retryAfterMillis How long until the circuit breaker lets a trial operation through
+     */
+    public CircuitOpenException(int operation, long retryAfterMillis) {
+        super("Circuit open for operation " + operation + ", retry after " + retryAfterMillis + " ms");
+    }
+}
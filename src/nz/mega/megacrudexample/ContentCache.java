@@ -0,0 +1,444 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+
+import static java.nio.file.Files.deleteIfExists;
+
+/**
+ * A size-bounded local copy of recently read remote files, so that reading a file again costs a local copy instead
+ * of a download.
+ * <p>
+ * Each cached file is stored under a name made of its node handle and version, the node's size and modification
+ * time, so a new version of a file is never served from the cached copy of an older one. When the cached files
+ * exceed the byte budget the least recently read ones are evicted. invalidate() must be called from onNodesUpdate()
+ * so that a file which is changed or removed is dropped straight away. Hits are copied with FileChannel.transferTo(),
+ * which the operating system can do without copying the data through the JVM. Concurrent misses of the same file
+ * share one download, which is queued in a TransferScheduler when the cache has one.
+ * <p>
+ * The cached files are kept between runs. The least recently read order is not, so after a restart the files are
+ * evicted oldest first.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class ContentCache {
+
+    /*
+     * Downloads in progress end with this suffix. Left over ones are deleted when the cache is opened, unless they are
+     * segmented downloads which can be resumed.
+     */
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    /*
+     * The suffix SegmentedDownload adds to the name of its local file for the sidecar of finished segments.
+     */
+    private static final String SEGMENTS_SUFFIX = ".segments";
+
+    private final MegaAsyncClient megaAsyncClient;
+    private final Path directory;
+    private final long budgetBytes;
+
+    /*
+     * Queues the downloads of misses with the application's other transfers, or null to start them straight away.
+     */
+    private final TransferScheduler transferScheduler;
+    private final TransferScheduler.Priority priority;
+
+    /*
+     * The cached file of each node handle, least recently read first. Guarded by this object's monitor.
+     */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    /*
+     * The download of every file being fetched into the cache, keyed by file name.
+     */
+    private final Map<String, CompletableFuture<Path>> fetching = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new ContentCache, taking over the files already cached in the directory.
+     *
+     * @param megaAsyncClient The client to download misses with
+     * @param directory The directory to keep the cached files in, created if it does not exist
+     * @param budgetBytes The total size of the cached files above which the least recently read are evicted
+     * @throws IOException If the directory cannot be created or listed
+     */
+    public ContentCache(MegaAsyncClient megaAsyncClient, Path directory, long budgetBytes) throws IOException {
+        this(megaAsyncClient, directory, budgetBytes, null, null);
+    }
+
+    /**
+     * Creates a new ContentCache which queues the downloads of misses in a TransferScheduler, taking over the files
+     * already cached in the directory.
+     *
+     * @param megaAsyncClient The client to download misses with
+     * @param directory The directory to keep the cached files in, created if it does not exist
+     * @param budgetBytes The total size of the cached files above which the least recently read are evicted
+     * @param transferScheduler The scheduler to queue the downloads in, or null to start them straight away
+     * @param priority The priority class of the downloads
+     * @throws IOException If the directory cannot be created or listed
+     */
+    public ContentCache(MegaAsyncClient megaAsyncClient, Path directory, long budgetBytes,
+                        TransferScheduler transferScheduler, TransferScheduler.Priority priority) throws IOException {
+        this.megaAsyncClient = megaAsyncClient;
+        this.directory = directory;
+        this.budgetBytes = budgetBytes;
+        this.transferScheduler = transferScheduler;
+        this.priority = priority;
+        Files.createDirectories(directory);
+        load();
+    }
+
+    /**
+     * Copies a remote file to a local file, from the cache if it holds the node's current version and otherwise by
+     * downloading it into the cache first. Files larger than the whole budget are downloaded straight to the local
+     * file.
+     *
+     * @param node The file node to read
+     * @param target The local file to copy the file to
+     * @return A future which completes with the number of bytes copied
+     */
+    public CompletableFuture<Long> read(final MegaNode node, final Path target) {
+        return fetch(node, target).thenApply(cached -> {
+            if (cached == null) {
+                return node.getSize();
+            }
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                long copied = copy(node, cached, out);
+                Files.setLastModifiedTime(target, FileTime.from(node.getModificationTime(), TimeUnit.SECONDS));
+                return copied;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Copies a remote file to a channel, from the cache if it holds the node's current version and otherwise by
+     * downloading it into the cache first.
+     *
+     * @param node The file node to read
+     * @param channel The channel to write the file's contents to
+     * @return A future which completes with the number of bytes copied
+     */
+    public CompletableFuture<Long> read(final MegaNode node, final WritableByteChannel channel) {
+        return fetch(node, null).thenApply(cached -> {
+            try {
+                return copy(node, cached, channel);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Drops the cached copies of nodes which have changed or been removed.
+     *
+     * @param nodes The nodes reported by onNodesUpdate(), or null to drop every cached file
+     */
+    public synchronized void invalidate(List<MegaNode> nodes) {
+        if (nodes == null) {
+            clear();
+            return;
+        }
+        for (MegaNode node : nodes) {
+            Entry entry = entries.remove(node.getHandle());
+            if (entry != null) {
+                delete(entry);
+            }
+        }
+    }
+
+    /**
+     * Deletes every cached file, for example when the user logs out for good.
+     */
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            delete(entry);
+        }
+        entries.clear();
+    }
+
+    /**
+     * @return The fraction of reads served from the cache, or 0 if there have been none
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return The number of bytes served from the cache instead of being downloaded
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * @return The total size of the cached files
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Content cache: " + entries.size() + " files, " + cachedBytes + " of " + budgetBytes + " bytes, "
+                + hits.sum() + " hits, " + misses.sum() + " misses (" + String.format("%.1f", 100 * getHitRatio())
+                + " %), " + bytesSaved.sum() + " bytes saved, " + evictions.sum() + " evictions";
+    }
+
+    /*
+     * Opens the cached file of the node's current version, downloading it on a miss. A file larger than the budget
+     * is downloaded to the bypass path instead, if there is one, and null is returned.
+     * The file is opened under the lock, so an eviction racing with the caller's copy only unlinks the file and the
+     * copy still reads it whole.
+     */
+    private CompletableFuture<FileChannel> fetch(final MegaNode node, Path bypass) {
+        final String name = fileName(node);
+        final boolean bypassing = bypass != null && node.getSize() > budgetBytes;
+        final CompletableFuture<Path> pending = new CompletableFuture<>();
+        CompletableFuture<Path> existing = null;
+        synchronized (this) {
+            Entry entry = entries.get(node.getHandle());
+            if (entry != null && entry.name.equals(name)) {
+                try {
+                    FileChannel channel = FileChannel.open(entry.path, StandardOpenOption.READ);
+                    hits.increment();
+                    bytesSaved.add(entry.size);
+                    return CompletableFuture.completedFuture(channel);
+                } catch (IOException e) {
+                    // Deleted behind the cache's back; download it again
+                    entries.remove(node.getHandle());
+                    cachedBytes -= entry.size;
+                }
+            }
+            misses.increment();
+            if (!bypassing) {
+                // Registered under the lock which add() holds, so a miss either joins a download or finds its file
+                existing = fetching.putIfAbsent(name, pending);
+            }
+        }
+        if (bypassing) {
+            return download(node, bypass).thenApply(path -> null);
+        }
+        if (existing == null) {
+            final Path partial = directory.resolve(name + PARTIAL_SUFFIX);
+            download(node, partial).whenComplete((downloaded, failure) -> {
+                if (failure != null) {
+                    fetching.remove(name, pending);
+                    pending.completeExceptionally(failure);
+                    return;
+                }
+                Path path = directory.resolve(name);
+                try {
+                    verify(node, partial);
+                    Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    fetching.remove(name, pending);
+                    pending.completeExceptionally(e);
+                    return;
+                }
+                synchronized (this) {
+                    // The download is only forgotten once its file can be found in the cache
+                    add(node.getHandle(), new Entry(name, path, node.getSize()));
+                    fetching.remove(name, pending);
+                }
+                pending.complete(path);
+            });
+        }
+        return (existing != null ? existing : pending).thenApply(path -> {
+            synchronized (this) {
+                try {
+                    return FileChannel.open(path, StandardOpenOption.READ);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<Path> download(MegaNode node, final Path path) {
+        CompletableFuture<?> download;
+        if (transferScheduler == null) {
+            download = node.getSize() >= MEGACRUD.SEGMENTED_DOWNLOAD_THRESHOLD
+                    ? megaAsyncClient.downloadSegmented(node, path)
+                    : megaAsyncClient.download(node, path.toString());
+        }
+        else if (node.getSize() >= MEGACRUD.SEGMENTED_DOWNLOAD_THRESHOLD) {
+            download = transferScheduler.submit(MegaTransfer.TYPE_DOWNLOAD, priority, this, node.getSize(),
+                    () -> megaAsyncClient.downloadSegmented(node, path));
+        }
+        else {
+            download = transferScheduler.download(priority, this, node, path.toString());
+        }
+        return download.thenApply(result -> path);
+    }
+
+    /*
+     * Compares the fingerprint of a file downloaded in segments with the node's, deleting the file if they differ.
+     * A segmented download is written by many streams and may have been resumed, so unlike a single transfer the SDK
+     * has not checked it.
+     */
+    private void verify(MegaNode node, Path partial) throws IOException {
+        if (node.getSize() < MEGACRUD.SEGMENTED_DOWNLOAD_THRESHOLD) {
+            return;
+        }
+        String remote = megaAsyncClient.getApi().getFingerprint(node);
+        if (remote != null && !remote.equals(megaAsyncClient.getApi().getFingerprint(partial.toString()))) {
+            deleteIfExists(partial);
+            throw new IOException("Fingerprint mismatch in the cached copy of " + node.getName());
+        }
+    }
+
+    /*
+     * Copies an opened cached file to a channel and closes it.
+     */
+    private static long copy(MegaNode node, FileChannel cached, WritableByteChannel out) throws IOException {
+        try (FileChannel source = cached) {
+            long size = source.size();
+            // Check before copying, so a truncated copy is never written to the caller's channel
+            if (size != node.getSize()) {
+                throw new IOException("Cached copy of " + node.getName() + " has " + size + " bytes but expected "
+                        + node.getSize());
+            }
+            long position = 0;
+            while (position < size) {
+                position += source.transferTo(position, size - position, out);
+            }
+            return size;
+        }
+    }
+
+    /*
+     * Adds a downloaded file, replacing the node's older version, and evicts the least recently read files until
+     * the cache fits its budget again.
+     */
+    private synchronized void add(long handle, Entry entry) {
+        Entry replaced = entries.put(handle, entry);
+        if (replaced != null && !replaced.name.equals(entry.name)) {
+            delete(replaced);
+        }
+        else if (replaced != null) {
+            cachedBytes -= replaced.size;
+        }
+        cachedBytes += entry.size;
+        Iterator<Entry> leastRecentlyRead = entries.values().iterator();
+        while (cachedBytes > budgetBytes && leastRecentlyRead.hasNext()) {
+            Entry evicted = leastRecentlyRead.next();
+            if (evicted == entry) {
+                // Keep the file just read, so the caller can copy it
+                continue;
+            }
+            leastRecentlyRead.remove();
+            delete(evicted);
+            evictions.increment();
+        }
+    }
+
+    private void delete(Entry entry) {
+        cachedBytes -= entry.size;
+        try {
+            deleteIfExists(entry.path);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * Takes over the files cached by an earlier run, oldest first. Partial segmented downloads are kept together with
+     * their sidecars so they can be resumed; any other partial download, or a sidecar without its partial file, is
+     * deleted.
+     */
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(PARTIAL_SUFFIX)) {
+                    if (!Files.exists(file.resolveSibling(name + SEGMENTS_SUFFIX))) {
+                        deleteIfExists(file);
+                    }
+                }
+                else if (name.endsWith(PARTIAL_SUFFIX + SEGMENTS_SUFFIX)) {
+                    String partial = name.substring(0, name.length() - SEGMENTS_SUFFIX.length());
+                    if (!Files.exists(file.resolveSibling(partial))) {
+                        deleteIfExists(file);
+                    }
+                }
+                else if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort((a, b) -> {
+            try {
+                return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b));
+            } catch (IOException e) {
+                return 0;
+            }
+        });
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            String[] parts = name.split("-");
+            try {
+                if (parts.length == 3 && Files.size(file) == Long.parseLong(parts[2])) {
+                    add(Long.parseUnsignedLong(parts[0], 16), new Entry(name, file, Files.size(file)));
+                    continue;
+                }
+            } catch (NumberFormatException e) {
+                // Not a cached file
+            }
+            deleteIfExists(file);
+        }
+    }
+
+    /*
+     * The file name of a node's current version: handle, modification time and size.
+     */
+    private static String fileName(MegaNode node) {
+        return Long.toHexString(node.getHandle()) + "-" + node.getModificationTime() + "-" + node.getSize();
+    }
+
+    /*
+     * One cached file.
+     */
+    private static final class Entry {
+        final String name;
+        final Path path;
+        final long size;
+
+        Entry(String name, Path path, long size) {
+            this.name = name;
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
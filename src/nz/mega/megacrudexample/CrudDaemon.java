@@ -0,0 +1,393 @@
+package nz.mega.megacrudexample;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+
+import static java.nio.file.Files.deleteIfExists;
+
+/**
+ * Serves CRUD commands from local clients over one logged in session, so that a script pays for the command only
+ * and not for a login and fetchNodes() every time.
+ * <p>
+ * The daemon listens on the loopback interface only. Any local user can connect to it, so a client must first send
+ * a shared secret which only the owner of the session can read: the daemon writes a new random secret to its secret
+ * file at startup, readable by the owner only, and deletes it when it is closed. Every connection is served by its
+ * own handler thread and commands of different connections run concurrently over the shared MegaAsyncClient. Their
+ * uploads and downloads are queued in the application's TransferScheduler, each connection as a caller of its own,
+ * so uploads are reserved against the account's storage quota like the example's own.
+ * <p>
+ * The protocol is one command per line, with the command and its arguments separated by tabs, or by single spaces
+ * when there is no tab in the line. The first line of a connection must be the contents of the secret file, and is
+ * answered with "OK" or with "ERR" before the connection is closed. Remote paths are absolute. Every command is
+ * answered with "OK" or "ERR" and a detail on one line; LIST writes one line per child first.
+ * <pre>
+ * secret                              the contents of the secret file, answers OK authenticated
+ * CREATE  local-file  remote-folder   upload a file, answers OK handle
+ * READ    remote-file local-file      download a file, answers OK bytes
+ * UPDATE  local-file  remote-folder   replace the file of the same name unless its fingerprint matches
+ * DELETE  remote-path                 remove a file or folder
+ * LIST    remote-folder               one line per child: type, size, modification time and name
+ * PING                                answers OK pong
+ * QUIT                                closes the connection
+ * </pre>
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class CrudDaemon implements AutoCloseable {
+
+    /**
+     * The port the daemon listens on unless another one is given.
+     */
+    public static final int DEFAULT_PORT = 47300;
+
+    /*
+     * The maximum number of connections served at once. Further connections are accepted but wait in the queue of
+     * the handlers executor until a handler thread is free.
+     */
+    private static final int MAX_CONNECTIONS = 64;
+
+    /*
+     * The number of random bytes in the shared secret, and how long a client has to send it.
+     */
+    private static final int SECRET_BYTES = 32;
+    private static final int SECRET_TIMEOUT_MILLIS = 10000;
+
+    private final MegaApiJava megaApiJava;
+    private final MegaAsyncClient megaAsyncClient;
+    private final TransferScheduler transferScheduler;
+    private final NodePathCache nodePathCache;
+    private final FingerprintCache fingerprintCache;
+    private final ServerSocket serverSocket;
+    private final ExecutorService handlers;
+
+    /*
+     * The open connections, so close() can close them while their handlers are blocked reading the next command.
+     */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /*
+     * The file the shared secret is written to, and the secret clients must send.
+     */
+    private final Path secretFile;
+    private final byte[] secret;
+
+    /**
+     * Creates a new CrudDaemon listening on a loopback port.
+     *
+     * @param megaApiJava The logged in MEGA Java API object
+     * @param megaAsyncClient Starts the requests and transfers of the commands
+     * @param transferScheduler Queues the transfers of the commands
+     * @param nodePathCache Resolves remote paths
+     * @param fingerprintCache Compares local and remote files for UPDATE
+     * @param port The loopback port to listen on, or 0 for any free port
+     * @param secretFile The file to write the shared secret to, replacing any previous one
+     * @throws IOException If the secret file cannot be written or the port cannot be bound
+     */
+    public CrudDaemon(MegaApiJava megaApiJava, MegaAsyncClient megaAsyncClient, TransferScheduler transferScheduler,
+                      NodePathCache nodePathCache, FingerprintCache fingerprintCache, int port, Path secretFile)
+            throws IOException {
+        this.megaApiJava = megaApiJava;
+        this.megaAsyncClient = megaAsyncClient;
+        this.transferScheduler = transferScheduler;
+        this.nodePathCache = nodePathCache;
+        this.fingerprintCache = fingerprintCache;
+        this.secretFile = secretFile;
+        this.secret = writeSecret(secretFile);
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), MAX_CONNECTIONS);
+        this.handlers = Executors.newFixedThreadPool(MAX_CONNECTIONS, runnable -> {
+            Thread thread = new Thread(runnable, "mega-daemon-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The file clients read the shared secret from
+     */
+    public Path getSecretFile() {
+        return secretFile;
+    }
+
+    /**
+     * @return The loopback port the daemon listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the daemon is closed.
+     */
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                connections.add(socket);
+                if (serverSocket.isClosed()) {
+                    // close() may have gone through the connections before this one was added
+                    socket.close();
+                    break;
+                }
+                handlers.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                // Closed by close()
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections, deletes the secret file and closes the open connections. Commands in progress
+     * stop waiting for their requests and transfers, which are not cancelled.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+            deleteIfExists(secretFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        // Interrupting a handler does not unblock its readLine(), closing its socket does
+        for (Socket connection : connections) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        handlers.shutdownNow();
+        try {
+            handlers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Serves the commands of one connection in order.
+     */
+    private void serve(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                     StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(),
+                     StandardCharsets.UTF_8))) {
+            if (!authenticate(connection, in)) {
+                reply(out, "ERR", "authentication failed");
+                return;
+            }
+            reply(out, "OK", "authenticated");
+            out.flush();
+            String line;
+            while (!Thread.currentThread().isInterrupted() && (line = in.readLine()) != null) {
+                String[] command = line.indexOf('\t') >= 0 ? line.split("\t") : line.split(" ");
+                if (command[0].equalsIgnoreCase("QUIT")) {
+                    break;
+                }
+                try {
+                    execute(command, connection, out);
+                } catch (ExecutionException e) {
+                    reply(out, "ERR", String.valueOf(e.getCause() != null ? e.getCause().getMessage() : e));
+                } catch (IllegalArgumentException | IOException e) {
+                    reply(out, "ERR", e.getMessage());
+                }
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client went away, or the daemon was closed
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /*
+     * Reads the first line of a connection and compares it with the secret in constant time.
+     */
+    private boolean authenticate(Socket connection, BufferedReader in) throws IOException {
+        connection.setSoTimeout(SECRET_TIMEOUT_MILLIS);
+        String line;
+        try {
+            line = in.readLine();
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+        connection.setSoTimeout(0);
+        return line != null && MessageDigest.isEqual(secret, line.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Writes a new random secret to a file which only the owner can read, and returns it.
+     */
+    private static byte[] writeSecret(Path secretFile) throws IOException {
+        byte[] random = new byte[SECRET_BYTES];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder(2 * SECRET_BYTES);
+        for (byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+        byte[] secret = hex.toString().getBytes(StandardCharsets.UTF_8);
+        // Create the file with owner only permissions so the secret is never readable by others
+        deleteIfExists(secretFile);
+        try {
+            Files.createFile(secretFile, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(secretFile);
+        }
+        Files.write(secretFile, secret);
+        return secret;
+    }
+
+    /*
+     * Runs one command. The connection is the caller its transfers are fairly shared for.
+     */
+    private void execute(String[] command, Object connection, Writer out)
+            throws IOException, ExecutionException, InterruptedException {
+        switch (command[0].toUpperCase()) {
+            case "CREATE":
+                expectArguments(command, 2);
+                reply(out, "OK", Long.toString(upload(Paths.get(command[1]), folder(command[2]), connection)));
+                break;
+            case "READ":
+                expectArguments(command, 2);
+                reply(out, "OK", Long.toString(download(file(command[1]), Paths.get(command[2]), connection)));
+                break;
+            case "UPDATE":
+                expectArguments(command, 2);
+                reply(out, "OK", update(Paths.get(command[1]), folder(command[2]), connection));
+                break;
+            case "DELETE":
+                expectArguments(command, 1);
+                MegaNode node = node(command[1]);
+                megaAsyncClient.remove(node).get();
+                nodePathCache.invalidate(node);
+                reply(out, "OK", Long.toString(node.getHandle()));
+                break;
+            case "LIST":
+                expectArguments(command, 1);
+                List<MegaNode> children = megaApiJava.getChildren(folder(command[1]));
+                for (MegaNode child : children) {
+                    out.write((child.isFolder() ? "D" : "F") + "\t" + child.getSize() + "\t"
+                            + child.getModificationTime() + "\t" + child.getName() + "\n");
+                }
+                reply(out, "OK", Integer.toString(children.size()));
+                break;
+            case "PING":
+                reply(out, "OK", "pong");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command[0]);
+        }
+    }
+
+    /*
+     * Queues an upload, which fails with a QuotaExceededException if the file cannot fit in the account.
+     */
+    private long upload(Path localFile, MegaNode folder, Object connection)
+            throws IOException, ExecutionException, InterruptedException {
+        return transferScheduler.upload(TransferScheduler.Priority.INTERACTIVE, connection, localFile, folder,
+                Files.size(localFile)).get().getNodeHandle();
+    }
+
+    /*
+     * Downloads large files in segments, like MEGACRUD.read().
+     */
+    private long download(MegaNode file, Path localFile, Object connection)
+            throws ExecutionException, InterruptedException {
+        if (file.getSize() >= MEGACRUD.SEGMENTED_DOWNLOAD_THRESHOLD) {
+            transferScheduler.submit(MegaTransfer.TYPE_DOWNLOAD, TransferScheduler.Priority.INTERACTIVE, connection,
+                    file.getSize(), () -> megaAsyncClient.downloadSegmented(file, localFile)).get();
+        }
+        else {
+            transferScheduler.download(TransferScheduler.Priority.INTERACTIVE, connection, file,
+                    localFile.toString()).get();
+        }
+        return file.getSize();
+    }
+
+    /*
+     * Uploads the new version before removing the old one, like MEGACRUD.update().
+     */
+    private String update(Path localFile, MegaNode folder, Object connection)
+            throws IOException, ExecutionException, InterruptedException {
+        MegaNode oldNode = nodePathCache.getNodeByPath(localFile.getFileName().toString(), folder);
+        if (oldNode != null && fingerprintCache.matches(localFile, oldNode)) {
+            return "unchanged";
+        }
+        long handle = upload(localFile, folder, connection);
+        if (oldNode != null) {
+            megaAsyncClient.remove(oldNode).get();
+            nodePathCache.invalidate(oldNode);
+        }
+        return Long.toString(handle);
+    }
+
+    private MegaNode node(String remotePath) {
+        MegaNode node = nodePathCache.getNodeByPath(remotePath, megaApiJava.getRootNode());
+        if (node == null) {
+            throw new IllegalArgumentException("Node not found: " + remotePath);
+        }
+        return node;
+    }
+
+    private MegaNode folder(String remotePath) {
+        MegaNode node = node(remotePath);
+        if (!node.isFolder()) {
+            throw new IllegalArgumentException("Not a directory: " + remotePath);
+        }
+        return node;
+    }
+
+    private MegaNode file(String remotePath) {
+        MegaNode node = node(remotePath);
+        if (node.isFolder()) {
+            throw new IllegalArgumentException("Is a directory: " + remotePath);
+        }
+        return node;
+    }
+
+    private static void expectArguments(String[] command, int count) {
+        if (command.length != count + 1) {
+            throw new IllegalArgumentException(command[0].toUpperCase() + " takes " + count + " argument"
+                    + (count == 1 ? "" : "s"));
+        }
+    }
+
+    private static void reply(Writer out, String status, String detail) throws IOException {
+        // A detail taken from an exception message may span lines, which would break the one line replies
+        out.write(status + " " + String.valueOf(detail).replaceAll("[\r\n]+", " ") + "\n");
+    }
+}
@@ -0,0 +1,316 @@
+package nz.mega.megacrudexample;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaTransfer;
+
+/**
+ * An asynchronous event log, so that SDK callbacks and CRUD steps never wait for console or file output.
+ * <p>
+ * Events are written into a ring of preallocated records as primitive fields: request or transfer type, node
+ * handle, error code, values and the time of the event. Producers claim a slot with a compare and set and publish
+ * it by writing its sequence; nothing locks and nothing allocates apart from message text. A background writer
+ * formats the published records in batches and writes each batch with one print and one flush. When the writer
+ * falls a full ring behind, new events are dropped and counted rather than blocking the producer, and the number
+ * dropped is written once the writer catches up.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class EventLog implements AutoCloseable {
+
+    /*
+     * The largest number of records formatted into one write.
+     */
+    private static final int MAX_BATCH = 256;
+
+    /*
+     * How long the writer sleeps when there is nothing to write. Producers never wake it, so that publishing an
+     * event costs no system call.
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /*
+     * How long flush() waits for the writer at most.
+     */
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /*
+     * The kinds of record, each formatted differently.
+     */
+    private enum Kind {
+        MESSAGE, REQUEST_FINISH, TRANSFER_FINISH, ACCOUNT_DETAILS
+    }
+
+    private final PrintStream out;
+    private final Record[] ring;
+    private final int mask;
+
+    /*
+     * The next sequence to claim, and the next sequence the writer will read. Every sequence below consumed is
+     * free to be claimed again.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    /*
+     * The sequence below which every record has been written and flushed.
+     */
+    private volatile long written;
+
+    private final LongAdder dropped = new LongAdder();
+
+    /*
+     * Request type names, looked up once per type on the callback thread.
+     */
+    private final Map<Integer, String> requestNames = new ConcurrentHashMap<>();
+
+    private final long createdNanos = System.nanoTime();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a new EventLog and starts its writer thread.
+     *
+     * @param out The console or file stream to write events to
+     * @param capacity The number of records in the ring, rounded up to a power of two
+     */
+    public EventLog(PrintStream out, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.out = out;
+        this.ring = new Record[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Record();
+        }
+        this.writer = new Thread(this::drain, "mega-event-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Logs a line of text.
+     *
+     * @param text The text to log
+     */
+    public void message(String text) {
+        long sequence = claim();
+        if (sequence >= 0) {
+            Record record = ring[(int) sequence & mask];
+            record.kind = Kind.MESSAGE;
+            record.text = text;
+            publish(record, sequence);
+        }
+    }
+
+    /**
+     * Logs a finished request. Only the request's type, node handle and error code are kept, so it may be called
+     * with the SDK's request object from a callback.
+     *
+     * @param request The finished request
+     * @param e The result of the request
+     */
+    public void requestFinished(MegaRequest request, MegaError e) {
+        int type = request.getType();
+        if (!requestNames.containsKey(type)) {
+            requestNames.put(type, request.getRequestString());
+        }
+        long sequence = claim();
+        if (sequence >= 0) {
+            Record record = ring[(int) sequence & mask];
+            record.kind = Kind.REQUEST_FINISH;
+            record.type = type;
+            record.handle = request.getNodeHandle();
+            record.errorCode = e.getErrorCode();
+            publish(record, sequence);
+        }
+    }
+
+    /**
+     * Logs a finished transfer. Only the transfer's type, node handle, file name, transferred bytes and error code
+     * are kept, so it may be called with the SDK's transfer object from a callback.
+     *
+     * @param transfer The finished transfer
+     * @param e The result of the transfer
+     */
+    public void transferFinished(MegaTransfer transfer, MegaError e) {
+        long sequence = claim();
+        if (sequence >= 0) {
+            Record record = ring[(int) sequence & mask];
+            record.kind = Kind.TRANSFER_FINISH;
+            record.type = transfer.getType();
+            record.handle = transfer.getNodeHandle();
+            record.errorCode = e.getErrorCode();
+            record.value = transfer.getTransferredBytes();
+            record.text = transfer.getFileName();
+            publish(record, sequence);
+        }
+    }
+
+    /**
+     * Logs the storage and pro level of the account.
+     *
+     * @param storageUsed The storage used in bytes
+     * @param storageMax The storage available in bytes
+     * @param proLevel The pro level of the account
+     */
+    public void accountDetails(long storageUsed, long storageMax, int proLevel) {
+        long sequence = claim();
+        if (sequence >= 0) {
+            Record record = ring[(int) sequence & mask];
+            record.kind = Kind.ACCOUNT_DETAILS;
+            record.value = storageUsed;
+            record.extra = storageMax;
+            record.type = proLevel;
+            publish(record, sequence);
+        }
+    }
+
+    /**
+     * Waits until every event logged so far has been written, for example before the process exits.
+     */
+    public void flush() {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        while (written < target && writer.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * @return The number of events dropped because the writer was a full ring behind
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Writes the remaining events and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(FLUSH_TIMEOUT_NANOS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Claims the next free sequence, or returns -1 and counts a drop if the ring is full.
+     */
+    private long claim() {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed >= ring.length) {
+                dropped.increment();
+                return -1;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    private void publish(Record record, long sequence) {
+        record.nanos = System.nanoTime();
+        // The volatile write makes the fields written before it visible to the writer
+        record.sequence = sequence;
+    }
+
+    /*
+     * Writer thread: formats published records in order, frees their slots and writes each batch at once.
+     */
+    private void drain() {
+        StringBuilder batch = new StringBuilder();
+        long reportedDrops = 0;
+        while (running || consumed < claimed.get()) {
+            long next = consumed;
+            int count = 0;
+            while (count < MAX_BATCH) {
+                Record record = ring[(int) next & mask];
+                if (record.sequence != next) {
+                    break;
+                }
+                format(record, batch);
+                record.text = null;
+                next++;
+                count++;
+            }
+            // The slots are free as soon as they have been formatted, before the slow write
+            consumed = next;
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                batch.append(drops - reportedDrops).append(" log events dropped").append(System.lineSeparator());
+                reportedDrops = drops;
+            }
+            if (batch.length() > 0) {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+            }
+            written = next;
+            if (count == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void format(Record record, StringBuilder line) {
+        switch (record.kind) {
+            case REQUEST_FINISH:
+                String name = requestNames.get(record.type);
+                line.append(name != null ? name : "Request type " + record.type)
+                        .append(" request finished; Result: ").append(MegaError.getErrorString(record.errorCode));
+                appendFields(record, line);
+                break;
+            case TRANSFER_FINISH:
+                line.append(record.type == MegaTransfer.TYPE_UPLOAD ? "Upload" : "Download")
+                        .append(" finished (").append(record.text).append("); Result: ")
+                        .append(MegaError.getErrorString(record.errorCode)).append(", ").append(record.value)
+                        .append(" bytes");
+                appendFields(record, line);
+                break;
+            case ACCOUNT_DETAILS:
+                line.append("Storage: ").append(record.value).append(" of ").append(record.extra).append(" (")
+                        .append(record.extra > 0 ? (int) (100.0 * record.value / record.extra) : 0).append(" %)")
+                        .append(System.lineSeparator()).append("Pro level: ").append(record.type);
+                break;
+            default:
+                line.append(record.text);
+                break;
+        }
+        line.append(System.lineSeparator());
+    }
+
+    /*
+     * Appends the structured fields of a request or transfer record: error code, node handle and event time.
+     */
+    private void appendFields(Record record, StringBuilder line) {
+        line.append(" [error=").append(record.errorCode).append(" handle=").append(record.handle).append(" t=")
+                .append(LatencyHistogram.formatMillis(record.nanos - createdNanos)).append(']');
+    }
+
+    /*
+     * One preallocated slot of the ring.
+     */
+    private static final class Record {
+        volatile long sequence = -1;
+        Kind kind;
+        int type;
+        long handle;
+        int errorCode;
+        long value;
+        long extra;
+        long nanos;
+        String text;
+    }
+}
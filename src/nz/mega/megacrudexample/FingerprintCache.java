@@ -0,0 +1,156 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+
+/**
+ * Computes and caches the MEGA fingerprints of local files, so that unchanged files need not be uploaded again.
+ * <p>
+ * Fingerprints are computed by MegaApiJava.getFingerprint(String), so they can be compared with the fingerprint the
+ * SDK keeps for every remote file. A computed fingerprint is cached by path together with the file's size and
+ * modification time, and is only computed again once either of those changes. Fingerprints are computed on the
+ * given executor, so many files are hashed in parallel.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class FingerprintCache {
+
+    /*
+     * The megaApiJava object fingerprints are computed with.
+     */
+    private final MegaApiJava megaApiJava;
+
+    /*
+     * The executor fingerprints are computed on.
+     */
+    private final Executor executor;
+
+    /*
+     * The last fingerprint computed for each local path.
+     */
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder computed = new LongAdder();
+
+    /**
+     * Creates a new FingerprintCache.
+     *
+     * @param megaApiJava The MEGA Java API object fingerprints are computed with
+     * @param executor The executor fingerprints are computed on
+     */
+    public FingerprintCache(MegaApiJava megaApiJava, Executor executor) {
+        this.megaApiJava = megaApiJava;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the fingerprint of a local file, from the cache if the file has not changed since it was computed.
+     *
+     * @param file The local file
+     * @return A future which completes with the fingerprint, or exceptionally if the file cannot be read
+     */
+    public CompletableFuture<String> fingerprint(final Path file) {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        final long size = attributes.size();
+        final long modified = attributes.lastModifiedTime().toMillis();
+        Entry entry = entries.get(file);
+        if (entry != null && entry.size == size && entry.modified == modified) {
+            hits.increment();
+            return CompletableFuture.completedFuture(entry.fingerprint);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            String fingerprint = megaApiJava.getFingerprint(file.toString());
+            if (fingerprint == null) {
+                throw new UncheckedIOException(new IOException("Cannot fingerprint " + file));
+            }
+            computed.increment();
+            entries.put(file, new Entry(size, modified, fingerprint));
+            return fingerprint;
+        }, executor);
+    }
+
+    /**
+     * Computes the fingerprints of many local files in parallel.
+     *
+     * @param files The local files
+     * @return A future per file, in the order of files
+     */
+    public Map<Path, CompletableFuture<String>> fingerprintAll(Collection<Path> files) {
+        Map<Path, CompletableFuture<String>> fingerprints = new LinkedHashMap<>();
+        for (Path file : files) {
+            fingerprints.put(file, fingerprint(file));
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Compares a local file with a remote file by fingerprint.
+     *
+     * @param file The local file
+     * @param node The remote file
+     * @return True if both have the same fingerprint, false if they differ or either cannot be fingerprinted
+     * @throws InterruptedException If the calling thread is interrupted while the fingerprint is computed
+     */
+    public boolean matches(Path file, MegaNode node) throws InterruptedException {
+        String remote = megaApiJava.getFingerprint(node);
+        if (remote == null) {
+            return false;
+        }
+        try {
+            return remote.equals(fingerprint(file).get());
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The number of fingerprints answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of fingerprints computed
+     */
+    public long getComputed() {
+        return computed.sum();
+    }
+
+    /*
+     * A computed fingerprint and the size and modification time of the file it was computed from.
+     */
+    private static final class Entry {
+        final long size;
+        final long modified;
+        final String fingerprint;
+
+        Entry(long size, long modified, String fingerprint) {
+            this.size = size;
+            this.modified = modified;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
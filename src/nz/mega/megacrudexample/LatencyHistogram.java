@@ -0,0 +1,170 @@
+package nz.mega.megacrudexample;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, log-linear histogram of latencies in nanoseconds.
+ * <p>
+ * Every power of two is split into SUB_BUCKETS linear buckets, so a recorded value is reported with at most 12.5 %
+ * error whatever its magnitude. All buckets are allocated up front, so record() never allocates and can be called
+ * from the MEGA SDK callback thread. Readers may query the histogram from any thread while it is being recorded to.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class LatencyHistogram {
+
+    /*
+     * Each power of two is split into 2^SUB_BUCKET_BITS linear buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /*
+     * Enough buckets for every non-negative long value.
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Returns the latency below which a fraction of the recorded latencies fall.
+     *
+     * @param percentile The percentile between 0 and 100, for example 50 or 99
+     * @return The upper bound in nanoseconds of the bucket holding the percentile, or 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(recorded * percentile / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * @return The number of recorded latencies
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The largest recorded latency in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The mean recorded latency in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getMean() {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : total.get() / recorded;
+    }
+
+    /**
+     * Adds every latency recorded in another histogram to this one.
+     *
+     * @param other The histogram to merge into this one
+     */
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long bucketCount = other.counts.get(bucket);
+            if (bucketCount != 0) {
+                counts.addAndGet(bucket, bucketCount);
+            }
+        }
+        count.addAndGet(other.count.get());
+        total.addAndGet(other.total.get());
+        long otherMax = other.max.get();
+        long currentMax = max.get();
+        while (otherMax > currentMax && !max.compareAndSet(currentMax, otherMax)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Discards every recorded latency.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+                + " p50=" + formatMillis(getPercentile(50))
+                + " p99=" + formatMillis(getPercentile(99))
+                + " max=" + formatMillis(getMax());
+    }
+
+    /*
+     * Formats a latency in nanoseconds as milliseconds.
+     */
+    static String formatMillis(long nanos) {
+        return String.format("%.2fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /*
+     * Values below SUB_BUCKETS get a bucket each. Above that, the highest set bit selects the power of two and the
+     * next SUB_BUCKET_BITS bits select the linear bucket within it.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /*
+     * The largest value which falls in a bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowerBound = (SUB_BUCKETS | subBucket) << shift;
+        long upperBound = lowerBound + (1L << shift) - 1;
+        // The top bucket's bound does not fit in a long
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+    }
+}
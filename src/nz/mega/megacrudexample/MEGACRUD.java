@@ -1,10 +1,21 @@
 package nz.mega.megacrudexample;
 
 import java.io.*;
+import java.net.InetAddress;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import nz.mega.sdk.*;
 
@@ -37,9 +48,49 @@ import static java.nio.file.Files.deleteIfExists;
  * @version jaimesbooth 2015.08.18 Implement Clean up: remove /sandbox and delete returned test file.
  * Revised user feedback. Changed transferred test file to README.rst.
  * @version jaimesbooth 2015.09.29 Added new @override methods from MegaListenerInterface
- * @TODO Handle non-final synchronized megaApiJava? Multiple versions of megaApiJava objects could be instantiated.
+ * @version jaimesbooth 2026.10.17 Replace the shared megaApiJava wait()/notify() handshake with a future per
+ * request and transfer from MegaAsyncClient, so that many operations can be in flight at once.
+ * @version jaimesbooth 2026.10.17 Added bulkCreate() to upload whole local directory trees with a bounded number
+ * of uploads in flight.
+ * @version jaimesbooth 2026.10.17 Added readToChannel() to stream a download to a channel without a local file.
+ * @version jaimesbooth 2026.10.17 Resolve paths through a NodePathCache which onNodesUpdate() keeps current.
+ * @version jaimesbooth 2026.10.17 Resume the saved session and the SDK local cache on startup instead of a full
+ * login and fetchNodes(). Report the time to first operation.
+ * @version jaimesbooth 2026.10.17 Record per request type latency histograms and dump them at logout.
+ * @version jaimesbooth 2026.10.17 Track live transfer throughput, time to first byte and stalls in TransferMetrics.
+ * @version jaimesbooth 2026.10.17 Added a constructor taking an existing megaApiJava object so that the CRUD cycle
+ * can be benchmarked against an in-process stand-in for the MEGA SDK.
+ * @version jaimesbooth 2026.10.17 Retry transient failures with backoff and circuit breaking. update() only removes
+ * the old node once the new upload has succeeded.
+ * @version jaimesbooth 2026.10.17 update() skips the upload when the local file's fingerprint matches the remote file.
+ * @version jaimesbooth 2026.10.17 Publish the changes reported by onNodesUpdate() to subscribers through a ChangeFeed.
+ * @version jaimesbooth 2026.10.17 Keep a memory-mapped NodeIndex of the node tree, opened again when the session is
+ * resumed and rebuilt in the background otherwise.
+ * @version jaimesbooth 2026.10.17 read() downloads large files in concurrent segments which can be resumed.
+ * @version jaimesbooth 2026.10.17 Added daemon mode: main() with --daemon keeps one session logged in and serves CRUD
+ * commands to local clients through a CrudDaemon.
+ * @version jaimesbooth 2026.10.17 Multiple megaApiJava objects, each with its own cache directory and credentials,
+ * are managed by a SessionPool.
+ * @version jaimesbooth 2026.10.17 makeCRUD() runs its steps as a Workflow, so getAccountDetails() overlaps the sandbox
+ * steps, and reports the wall time of every step and the critical path.
+ * @version jaimesbooth 2026.10.17 Write all output through an asynchronous EventLog, so that listener methods only
+ * queue structured records and never wait for console output.
+ * @version jaimesbooth 2026.10.17 Listener methods run on a CallbackDispatcher's worker threads instead of the SDK
+ * callback thread.
+ * @version jaimesbooth 2026.10.17 Added list() to stream every node below a remote folder lazily, in parallel if
+ * wanted, through a RemoteTree.
+ * @version jaimesbooth 2026.10.17 Added mirror(), and main() with --mirror, to transfer only the files which differ
+ * between a local directory and a remote folder.
+ * @version jaimesbooth 2026.10.17 read() goes through a size-bounded ContentCache, so a file read again is copied
+ * from the local cache instead of being downloaded.
+ * @version jaimesbooth 2026.10.17 Queue transfers in a TransferScheduler, so that the CRUD uploads and downloads go
+ * ahead of bulk uploads and mirrors, small files ahead of large ones, within an optional bandwidth cap.
+ * @version jaimesbooth 2026.10.17 Added create() from an InputStream, which uploads generated content through a
+ * SpoolingUploader instead of a local file the caller writes first.
+ * @version jaimesbooth 2026.10.17 Refuse uploads which would exceed the storage quota before they start, against a
+ * QuotaGuard snapshot of the account details which getAccountDetails() and onAccountUpdate() refresh.
  */
-public class MEGACRUD implements MegaListenerInterface {
+public class MEGACRUD implements MegaListenerInterface, AutoCloseable {
     /*
      * An appKey is required to access MEGA services using the MEGA SDK.
      * You can generate an appKey for your app for free @ https://mega.co.nz/#sdk
@@ -49,7 +100,173 @@ public class MEGACRUD implements MegaListenerInterface {
     /*
      * The megaApiJava object which provides access to the various MEGA storage functionality.
      */
-    private MegaApiJava megaApiJava = null;
+    private final MegaApiJava megaApiJava;
+
+    /*
+     * The number of events the event log holds while its writer is behind. Set the megacrud.eventLog system
+     * property to a file path to log to that file instead of the console.
+     */
+    private static final int EVENT_LOG_CAPACITY = 8192;
+
+    /*
+     * The stream the event log writes to, closed by close() unless it is the console.
+     */
+    private final PrintStream eventLogOut;
+
+    /*
+     * Queues the output of the listener methods and CRUD steps for a background writer.
+     */
+    private final EventLog eventLog;
+
+    /*
+     * The number of events each callback worker holds before the SDK callback thread waits for it.
+     */
+    private static final int CALLBACK_QUEUE_CAPACITY = 1024;
+
+    /*
+     * Runs the listener methods of this object on worker threads, so that they never delay the SDK callback thread.
+     */
+    private final CallbackDispatcher callbackDispatcher = new CallbackDispatcher(
+            Runtime.getRuntime().availableProcessors(), CALLBACK_QUEUE_CAPACITY,
+            CallbackDispatcher.OverflowPolicy.BLOCK);
+
+    /*
+     * Starts requests and transfers on megaApiJava and returns a future for each of them.
+     */
+    private final MegaAsyncClient megaAsyncClient;
+
+    /*
+     * Caches path to node lookups. Invalidated by onNodesUpdate().
+     */
+    private final NodePathCache nodePathCache;
+
+    /*
+     * Lists the nodes below remote folders lazily.
+     */
+    private final RemoteTree remoteTree;
+
+    /*
+     * Records the latency of every request in a histogram per request type.
+     */
+    private final RequestLatencyRecorder requestLatencyRecorder = new RequestLatencyRecorder();
+
+    /*
+     * Computes the fingerprints of local files in parallel and caches them by path, size and modification time.
+     */
+    private final FingerprintCache fingerprintCache;
+
+    /*
+     * The number of node changes the change feed holds for subscribers which fall behind.
+     */
+    private static final int CHANGE_FEED_CAPACITY = 4096;
+
+    /*
+     * Publishes the node changes reported by onNodesUpdate() to subscribers.
+     */
+    private final ChangeFeed changeFeed = new ChangeFeed(CHANGE_FEED_CAPACITY, Executors.newCachedThreadPool(
+            runnable -> {
+                Thread thread = new Thread(runnable, "mega-change-feed");
+                thread.setDaemon(true);
+                return thread;
+            }));
+
+    /*
+     * A running transfer which makes no progress for this many seconds is reported as stalled.
+     */
+    private static final long TRANSFER_STALL_SECONDS = 30;
+
+    /*
+     * Tracks the live throughput and progress of every transfer.
+     */
+    private final TransferMetrics transferMetrics = new TransferMetrics(TRANSFER_STALL_SECONDS, TimeUnit.SECONDS);
+
+    /*
+     * The name of the directory read() caches files in, next to the SDK local cache, and its size budget.
+     */
+    private static final String CONTENT_CACHE_DIRECTORY_NAME = ".megacrud_cache";
+    private static final long CONTENT_CACHE_BUDGET_BYTES = 256L * 1024 * 1024;
+
+    /*
+     * Keeps recently read files locally. Invalidated by onNodesUpdate().
+     */
+    private final ContentCache contentCache;
+
+    /*
+     * The maximum number of transfers running at once in each direction, and how long a transfer may be passed over
+     * by higher priority or smaller ones. Set the megacrud.uploadBytesPerSecond and megacrud.downloadBytesPerSecond
+     * system properties to cap the bandwidth of all transfers in that direction.
+     */
+    private static final int TRANSFER_MAX_CONCURRENT = 8;
+    private static final long TRANSFER_MAX_WAIT_SECONDS = 60;
+
+    /*
+     * How long the account details snapshot is used before it is fetched again.
+     */
+    private static final long QUOTA_SNAPSHOT_TTL_SECONDS = 300;
+
+    /*
+     * Reserves storage for every upload against a cached snapshot of the account details.
+     */
+    private final QuotaGuard quotaGuard;
+
+    /*
+     * Decides which queued transfer starts next.
+     */
+    private final TransferScheduler transferScheduler;
+
+    /*
+     * The size and number of the pooled buffers streamed uploads are copied through, and the most bytes one of them
+     * spools to memory before it spools to disk instead.
+     */
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+    private static final int SPOOL_MAX_BUFFERS = 16;
+    private static final long SPOOL_MAX_MEMORY_PER_UPLOAD = 16L * 1024 * 1024;
+
+    /*
+     * Uploads content from memory or streams without a local file.
+     */
+    private final SpoolingUploader spoolingUploader;
+
+    /*
+     * The maximum number of transfers mirror() runs at once.
+     */
+    private static final int MIRROR_MAX_IN_FLIGHT = 8;
+
+    /*
+     * Files of at least this many bytes are downloaded in concurrent segments instead of one transfer.
+     */
+    static final long SEGMENTED_DOWNLOAD_THRESHOLD = 64 * 1024 * 1024;
+
+    /*
+     * The name of the file the session key is saved in, next to the SDK local cache.
+     */
+    private static final String SESSION_FILE_NAME = ".megacrud_session";
+
+    /*
+     * The name of the file the daemon writes its shared secret to, next to the session file.
+     */
+    private static final String DAEMON_SECRET_FILE_NAME = ".megacrud_daemon_secret";
+
+    /*
+     * Saves the session at login so that the next run can resume it instead of logging in again.
+     */
+    private final SessionStore sessionStore;
+
+    /*
+     * The name of the file the node index is stored in, next to the SDK local cache.
+     */
+    private static final String NODE_INDEX_FILE_NAME = ".megacrud_nodes";
+
+    /*
+     * A compact memory-mapped index of the node tree. Kept current by onNodesUpdate().
+     */
+    private final NodeIndex nodeIndex;
+
+    /*
+     * When this object was created and how long it took until the first operation could run.
+     */
+    private final long createdNanos = System.nanoTime();
+    private long timeToFirstOperationNanos = -1;
 
     /*
      * User's login details.
@@ -58,14 +275,24 @@ public class MEGACRUD implements MegaListenerInterface {
     private String password;
 
     /*
-     * A mega node (file or folder) object which will hold the directory to do work in.
+     * The local directory of the test file, its downloaded copy and the files kept between runs.
      */
-    MegaNode currentWorkingDirectory = null;
+    private final Path workingDirectory;
 
     /*
-     * A string for passing filenames between methods. Specifically to the listener methods.
+     * Runs the steps of the CRUD workflow.
      */
-    private String fileName = "NullFileName";
+    private final Executor workflowExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mega-workflow");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /*
+     * A mega node (file or folder) object which will hold the directory to do work in.
+     * Volatile, as the workflow steps which set it and use it run on different threads.
+     */
+    volatile MegaNode currentWorkingDirectory = null;
 
     /**
      * Creates a new MEGACRUD object.
@@ -76,16 +303,8 @@ public class MEGACRUD implements MegaListenerInterface {
      * @throws FileNotFoundException
      */
     public MEGACRUD() throws FileNotFoundException {
-        this.userEmail = "";
-        this.password = "";
-
-        if (this.megaApiJava == null) {
-            // Base path to store local cache
-            String path = System.getProperty("user.dir");
-            this.megaApiJava = new MegaApiJava(APP_KEY, path);
-            // Add the MEGACRUD listener object to listen for events when interacting with MEGA Services
-            this.megaApiJava.addRequestListener(this);
-        }
+        // Base path to store local cache
+        this(new MegaApiJava(APP_KEY, System.getProperty("user.dir")), "", "");
 
         getUserCredentials();
 
@@ -93,6 +312,87 @@ public class MEGACRUD implements MegaListenerInterface {
         makeCRUD();
     }
 
+    /**
+     * Creates a new MEGACRUD object on an existing megaApiJava object, without logging in or running the CRUD
+     * examples.
+     * <p>
+     * Used to drive the CRUD operations from other code, for example benchmarks running against a stand-in for the
+     * MEGA SDK.
+     *
+     * @param megaApiJava The MEGA Java API object to use
+     * @param userEmail The user's MEGA registered email address
+     * @param password The user's MEGA password
+     */
+    public MEGACRUD(MegaApiJava megaApiJava, String userEmail, String password) {
+        this(megaApiJava, userEmail, password, eventLogStream());
+    }
+
+    /**
+     * Creates a new MEGACRUD object on an existing megaApiJava object which writes its event log to a given stream,
+     * without logging in or running the CRUD examples.
+     *
+     * @param megaApiJava The MEGA Java API object to use
+     * @param userEmail The user's MEGA registered email address
+     * @param password The user's MEGA password
+     * @param eventLogOut The stream to write the event log to
+     */
+    public MEGACRUD(MegaApiJava megaApiJava, String userEmail, String password, PrintStream eventLogOut) {
+        this(megaApiJava, userEmail, password, eventLogOut, Paths.get(System.getProperty("user.dir")));
+    }
+
+    /**
+     * Creates a new MEGACRUD object on an existing megaApiJava object which keeps its local files in a given
+     * directory instead of user.dir, without logging in or running the CRUD examples.
+     * <p>
+     * The test file, the downloaded copy, the saved session, the node index and the content cache are all kept in
+     * the working directory, so several MEGACRUD objects with working directories of their own can run side by side.
+     *
+     * @param megaApiJava The MEGA Java API object to use
+     * @param userEmail The user's MEGA registered email address
+     * @param password The user's MEGA password
+     * @param eventLogOut The stream to write the event log to
+     * @param workingDirectory The local directory of the test file and of the files kept between runs
+     */
+    public MEGACRUD(MegaApiJava megaApiJava, String userEmail, String password, PrintStream eventLogOut,
+                    Path workingDirectory) {
+        this.userEmail = userEmail;
+        this.password = password;
+        this.workingDirectory = workingDirectory;
+        this.eventLogOut = eventLogOut;
+        this.eventLog = new EventLog(eventLogOut, EVENT_LOG_CAPACITY);
+
+        this.megaApiJava = megaApiJava;
+        // Add the MEGACRUD listener object to listen for events when interacting with MEGA Services.
+        // The recorders below only update counters, so they stay on the SDK callback thread.
+        this.callbackDispatcher.addListener(this);
+        this.megaApiJava.addListener(callbackDispatcher);
+        this.megaApiJava.addRequestListener(requestLatencyRecorder);
+        this.megaApiJava.addTransferListener(transferMetrics);
+        this.megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        this.quotaGuard = new QuotaGuard(megaAsyncClient, QUOTA_SNAPSHOT_TTL_SECONDS, TimeUnit.SECONDS);
+        this.transferScheduler = new TransferScheduler(megaAsyncClient, TRANSFER_MAX_CONCURRENT,
+                Long.getLong("megacrud.uploadBytesPerSecond", 0), Long.getLong("megacrud.downloadBytesPerSecond", 0),
+                TRANSFER_MAX_WAIT_SECONDS, TimeUnit.SECONDS, quotaGuard);
+        // The scheduler takes its bandwidth tokens as the bytes of every transfer move
+        this.megaApiJava.addTransferListener(transferScheduler);
+        this.spoolingUploader = new SpoolingUploader(transferScheduler, TransferScheduler.Priority.INTERACTIVE,
+                new ByteBufferPool(SPOOL_BUFFER_SIZE, SPOOL_MAX_BUFFERS), SPOOL_MAX_MEMORY_PER_UPLOAD);
+        this.nodePathCache = new NodePathCache(megaApiJava);
+        this.remoteTree = new RemoteTree(megaApiJava);
+        this.fingerprintCache = new FingerprintCache(megaApiJava, Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), runnable -> {
+                    Thread thread = new Thread(runnable, "mega-fingerprint");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+        // The session is saved next to the local cache
+        this.sessionStore = new SessionStore(workingDirectory.resolve(SESSION_FILE_NAME));
+        this.nodeIndex = new NodeIndex(workingDirectory.resolve(NODE_INDEX_FILE_NAME));
+        this.contentCache = openContentCache(megaAsyncClient);
+        // The index knows the names of all nodes, so renames of nodes created before this run are reported too
+        this.changeFeed.setPreviousNames(nodeIndex::getName);
+    }
+
     /**
      * Gets the user's MEGA account credentials.
      * <p>
@@ -128,160 +428,168 @@ public class MEGACRUD implements MegaListenerInterface {
     }
 
     /**
-     * Sequential collection of relevant CRUD (Create, Read, Upload, Delete)  
+     * Collection of relevant CRUD (Create, Read, Upload, Delete)
      * operations on the user's Mega account via the Mega API.
+     * <p>
+     * The operations are declared as a workflow of dependent steps. Every step whose dependencies have finished
+     * runs straight away, so getAccountDetails() runs alongside the sandbox steps instead of before them.
+     *
+     * @return The wall time of every step and the critical path of the run
      */
-    private void makeCRUD() {
-
-        login();
-
-        getAccountDetails();
-
-        makeTempDir();
-
-        changeToTempDir();
-
-        create();
-
-        read();
-
-        update();
-
-        delete();
+    public WorkflowReport makeCRUD() {
+        WorkflowReport report = new Workflow()
+                .step("login", this::login)
+                .step("getAccountDetails", this::getAccountDetails, "login")
+                .step("makeTempDir", this::makeTempDir, "login")
+                .step("changeToTempDir", this::changeToTempDir, "makeTempDir")
+                .step("create", this::create, "changeToTempDir")
+                .step("read", this::read, "create")
+                .step("update", this::update, "read")
+                .step("delete", this::delete, "update")
+                .step("logout", this::logout, "getAccountDetails", "delete")
+                .run(workflowExecutor);
+        eventLog.message(String.valueOf(report));
+        eventLog.flush();
+        return report;
+    }
 
-        logout();
+    /*
+     * The stream the event log writes to: the file named by the megacrud.eventLog system property, or the console.
+     */
+    private static PrintStream eventLogStream() {
+        String path = System.getProperty("megacrud.eventLog");
+        if (path != null) {
+            try {
+                return new PrintStream(new FileOutputStream(path, true), false, "UTF-8");
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return System.out;
     }
 
     /**
-     * Logs in to the user's mega account using stored user credential fields.
-     *
+     * Logs in to the user's mega account, resuming the saved session if there is one.
+     * <p>
+     * A resumed session uses the SDK local cache in user.dir, so fetchNodes() only needs to fetch the changes made
+     * since the last run. The stored user credential fields are only used when there is no saved session or it is no
+     * longer valid.
      */
     public void login() {
-        System.out.println("");
-        System.out.println("*** start: login ***");
-        /*
-         * Synchronized so that there can be only one object.
-         * First, it is not possible for two invocations of synchronized methods on the same object to interleave.
-         * When one thread is executing a synchronized method for an object, all other threads that invoke
-         * synchronized methods for the same object block (suspend execution) until the first thread is
-         * done with the object.
-         * Second, when a synchronized method exits, it automatically establishes a happens-before
-         * relationship with any subsequent invocation of a synchronized method for the same object.
-         * This guarantees that changes to the state of the object are visible to all threads.
-         * http://docs.oracle.com/javase/tutorial/essential/concurrency/syncmeth.html
-         */
-        synchronized(megaApiJava) {
-            // Log in
-            megaApiJava.login(userEmail, password);
-            // Wait for the login process to complete.
-            // The login request is not finished if the onRequestFinished()
-            // method of the implemented Listener interface has not been called.
-            // Once the request is finished, the listener method calls fetch nodes and notifies the megaApiJava
-            // object to continue the megaApiJava thread.
-            try {
-                megaApiJava.wait();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        eventLog.message("");
+        eventLog.message("*** start: login ***");
+        boolean loggedIn = false;
+        boolean resumed = false;
+        boolean nodeIndexLoaded = false;
+        String session = sessionStore.load();
+        if (session != null) {
+            // Resume the saved session and wait for the login request to finish.
+            resumed = await(megaAsyncClient.fastLogin(session)) != null;
+            loggedIn = resumed;
+            if (resumed) {
+                // Open the node index before fetchNodes() so that it receives the changes made since the last run
+                nodeIndexLoaded = nodeIndex.load();
+            }
+            else {
+                eventLog.message("Saved session is no longer valid. Logging in with credentials.");
+                sessionStore.clear();
             }
+        }
+        if (!loggedIn) {
+            // Log in and wait for the login request to finish.
+            // The login request is finished when the future passed to the MEGA API as its listener is completed.
+            loggedIn = await(megaAsyncClient.login(userEmail, password)) != null;
+        }
+        if (loggedIn) {
             // The user has just logged in, so fetch the nodes of of the users account object so that the
             // MEGA API functionality can be used
-            megaApiJava.fetchNodes();
-            try {
-                megaApiJava.wait();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            if (await(megaAsyncClient.fetchNodes()) != null) {
+                sessionStore.save(megaApiJava.dumpSession());
+                if (nodeIndexLoaded && nodeIndex.getRootHandle() == megaApiJava.getRootNode().getHandle()) {
+                    eventLog.message("Node index opened: " + nodeIndex.size() + " nodes");
+                }
+                else {
+                    rebuildNodeIndex();
+                }
             }
         }
         if (megaApiJava.isLoggedIn() == 0) {
-            System.out.println("Not logged in. Exiting.");
+            eventLog.message("Not logged in. Exiting.");
             return; // Halt if not logged in
         }
         else if (megaApiJava.isLoggedIn() > 0) {
-            System.out.println(megaApiJava.getMyEmail() + " logged in");
+            eventLog.message(megaApiJava.getMyEmail() + " logged in");
         }
 
         // Set the current working directory to the logged in user's root directory
         currentWorkingDirectory = megaApiJava.getRootNode();
 
-        System.out.println("*** done: login ***");
+        timeToFirstOperationNanos = System.nanoTime() - createdNanos;
+        eventLog.message("Time to first operation: " + timeToFirstOperationNanos / 1000000 + " ms ("
+                + (resumed ? "resumed session" : "full login") + ")");
+        eventLog.message("*** done: login ***");
     }
 
     /*
      * Get the details of the logged in user.
      */
     public void getAccountDetails() {
-        System.out.println("");
-        System.out.println("*** start: User Details ***");
+        eventLog.message("");
+        eventLog.message("*** start: User Details ***");
         // Confirm login successful by accessing the logged in user's email address
         // from the MegaAPI
-        System.out.println("User email: " + megaApiJava.getMyEmail());
+        eventLog.message("User email: " + megaApiJava.getMyEmail());
         // Load the user's account details. The various details will be accessed
         // from in the  implemented onRequestFinish Listener method once account details
         // request is finished.
-        synchronized(megaApiJava) {
-            // Get the account details of this MegaCrud object
-            megaApiJava.getAccountDetails();
-            // If the account details request is not finished, as ascertained by the onRequestFinished()
-            // method of the implemented Listener interface, wait for the account details process to complete.
-            try {
-                megaApiJava.wait();
-                // onRequestFinish() Listener handles notifying user of account details
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-        System.out.println("*** done: User Details ***");
+        // Get the account details of this MegaCrud object and wait for the request to finish.
+        // onRequestFinish() Listener handles notifying user of account details
+        // The details become the quota guard's snapshot, so the uploads which follow need no round trip of their own.
+        await(quotaGuard.refresh());
+        eventLog.message("*** done: User Details ***");
     }
 
     /*
      * Makes a temporary directory called sandbox.
      */
     public void makeTempDir() {
-        System.out.println("");
-        System.out.println("*** start: create temp directory ***");
+        eventLog.message("");
+        eventLog.message("*** start: create temp directory ***");
 
         // Initialize the current working directory
-        MegaNode checkForSandboxFolder = megaApiJava.getNodeByPath("sandbox", currentWorkingDirectory);
+        MegaNode checkForSandboxFolder = nodePathCache.getNodeByPath("sandbox", currentWorkingDirectory);
         if (checkForSandboxFolder == null) {
-            // Wait for create folder process to complete.
-            synchronized (megaApiJava) {
-                // Sandbox folder does not exist, so create it.
-                megaApiJava.createFolder("sandbox", currentWorkingDirectory);
-                try {
-                    megaApiJava.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-            System.out.println("Temporary directory /sandbox created in " + currentWorkingDirectory.getName());
+            // Sandbox folder does not exist, so create it and wait for create folder process to complete.
+            await(megaAsyncClient.createFolder("sandbox", currentWorkingDirectory));
+            eventLog.message("Temporary directory /sandbox created in " + currentWorkingDirectory.getName());
         }
         else {
             // Sandbox folder exists. No further action required.
-            System.out.println("Path already exists " + megaApiJava.getNodePath(checkForSandboxFolder));
+            eventLog.message("Path already exists " + megaApiJava.getNodePath(checkForSandboxFolder));
         }
-        System.out.println("*** done: create temp directory ***");
+        eventLog.message("*** done: create temp directory ***");
     }
 
     /*
      * Changes the current working directory to the temporary directory /sandbox.
      */
     public void changeToTempDir() {
-        System.out.println("");
-        System.out.println("*** start: change to temp directory ***");
-        MegaNode node = megaApiJava.getNodeByPath("sandbox", currentWorkingDirectory);
+        eventLog.message("");
+        eventLog.message("*** start: change to temp directory ***");
+        MegaNode node = nodePathCache.getNodeByPath("sandbox", currentWorkingDirectory);
         // Check to make sure sandbox directory exists
         if (node == null) {
             // sandbox does not exist
-            System.out.println("No such file or directory: sandbox");
+            eventLog.message("No such file or directory: sandbox");
         }
         else if (node.getType() == MegaNode.TYPE_FOLDER) {
             currentWorkingDirectory = node;
-            System.out.println("Working directory changed to /" + currentWorkingDirectory.getName());
+            eventLog.message("Working directory changed to /" + currentWorkingDirectory.getName());
         }
         else {
-            System.out.println("Not a directory: sandbox");
+            eventLog.message("Not a directory: sandbox");
         }
-        System.out.println("*** done: change to temp directory ***");
+        eventLog.message("*** done: change to temp directory ***");
     }
 
     /*
@@ -289,42 +597,224 @@ public class MEGACRUD implements MegaListenerInterface {
      */
     public void create() {
         // Upload a file (create).
-        System.out.println("");
-        System.out.println("*** start: upload ***");
+        eventLog.message("");
+        eventLog.message("*** start: upload ***");
         // Wait for create file process to complete.
-        synchronized (megaApiJava) {
-            megaApiJava.startUpload("README.rst", currentWorkingDirectory, this);
+        await(uploadInteractive(workingDirectory.resolve("README.rst"), currentWorkingDirectory));
+        eventLog.message("*** done: upload ***");
+    }
+
+    /**
+     * Uploads content read from a stream to the user's mega account, without writing it to a local file first.
+     *
+     * @param name The name of the new file in the current working directory
+     * @param content The stream to read the file's content from until its end. It is not closed.
+     * @return The handle of the new file, or MegaApiJava.INVALID_HANDLE if the upload failed
+     */
+    public long create(String name, InputStream content) {
+        eventLog.message("");
+        eventLog.message("*** start: upload from stream ***");
+        long handle = MegaApiJava.INVALID_HANDLE;
+        try {
+            // Wait for the upload of the spooled content to complete.
+            MegaTransfer transfer = await(spoolingUploader.upload(content, name, currentWorkingDirectory));
+            if (transfer != null) {
+                handle = transfer.getNodeHandle();
+                eventLog.message("Uploaded " + transfer.getTotalBytes() + " bytes to " + name);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            e.printStackTrace();
+        }
+        eventLog.message("*** done: upload from stream ***");
+        return handle;
+    }
+
+    /**
+     * Uploads a whole local directory tree to the user's mega account (bulk create).
+     * <p>
+     * The directory is uploaded into the current working directory, creating the matching remote folders. Up to
+     * maxInFlight uploads run at once.
+     *
+     * @param localDirectory The local directory to upload
+     * @param maxInFlight The maximum number of uploads in flight at once
+     * @return The per-file results of the upload, or null if the directory could not be walked
+     */
+    public BulkUploadReport bulkCreate(Path localDirectory, int maxInFlight) {
+        eventLog.message("");
+        eventLog.message("*** start: bulk upload ***");
+        BulkUploadReport report = null;
+        try {
+            report = new BulkUploader(megaAsyncClient, maxInFlight, transferScheduler).upload(localDirectory,
+                    currentWorkingDirectory);
+            eventLog.message(String.valueOf(report));
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            e.printStackTrace();
+        }
+        eventLog.message("*** done: bulk upload ***");
+        return report;
+    }
+
+    /**
+     * Mirrors a local directory and a remote folder, transferring only the files which differ.
+     * <p>
+     * The remote folder is created, with any missing parent folders, when the direction is TO_REMOTE and it does not
+     * exist yet.
+     *
+     * @param localDirectory The local directory
+     * @param remotePath The path of the remote folder, relative to the root of the user's mega drive
+     * @param direction Which side is the source
+     * @param removeExtraneous True to remove the files and folders which the source does not have
+     * @param verifyFingerprints True to compare the fingerprints of files whose size and modification time match
+     * @return The results of the mirror, or null if the remote folder cannot be found or created
+     */
+    public MirrorReport mirror(Path localDirectory, String remotePath, Mirror.Direction direction,
+                               boolean removeExtraneous, boolean verifyFingerprints) {
+        eventLog.message("");
+        eventLog.message("*** start: mirror ***");
+        MirrorReport report = null;
+        MegaNode remoteFolder = megaApiJava.getRootNode();
+        for (String name : remotePath.split("/")) {
+            if (remoteFolder == null || name.isEmpty()) {
+                continue;
+            }
+            MegaNode child = nodePathCache.getNodeByPath(name, remoteFolder);
+            if (child == null && direction == Mirror.Direction.TO_REMOTE) {
+                MegaRequest request = await(megaAsyncClient.createFolder(name, remoteFolder));
+                child = request == null ? null : megaApiJava.getNodeByHandle(request.getNodeHandle());
+            }
+            remoteFolder = child;
+        }
+        if (remoteFolder == null || !remoteFolder.isFolder()) {
+            eventLog.message("Folder not found: " + remotePath);
+        }
+        else {
             try {
-                megaApiJava.wait();
+                report = new Mirror(megaAsyncClient, fingerprintCache, MIRROR_MAX_IN_FLIGHT, removeExtraneous,
+                        verifyFingerprints, transferScheduler).run(localDirectory, remoteFolder, direction);
+                eventLog.message(String.valueOf(report));
+            } catch (IOException e) {
+                e.printStackTrace();
             } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 e.printStackTrace();
             }
         }
-        System.out.println("*** done: upload ***");
+        eventLog.message("*** done: mirror ***");
+        return report;
     }
 
     /*
      * Downloads a file from the user's mega account.
+     *
+     * The file is copied from the content cache if it was read before and has not changed since.
      */
     public void read() {
-        System.out.println("");
-        System.out.println("*** start: download ***");
-        MegaNode fileToDownload = megaApiJava.getNodeByPath("README.rst", currentWorkingDirectory);
-        if (fileToDownload != null) {
+        eventLog.message("");
+        eventLog.message("*** start: download ***");
+        MegaNode fileToDownload = nodePathCache.getNodeByPath("README.rst", currentWorkingDirectory);
+        if (fileToDownload != null && contentCache != null) {
+            // Wait for the copy from the cache, or for the download into the cache, to complete.
+            await(contentCache.read(fileToDownload, workingDirectory.resolve("README_returned.rst")));
+        }
+        else if (fileToDownload != null && fileToDownload.getSize() >= SEGMENTED_DOWNLOAD_THRESHOLD) {
+            readSegmented(fileToDownload, workingDirectory.resolve("README_returned.rst"));
+        }
+        else if (fileToDownload != null) {
             // Wait for download file process to complete.
-            synchronized (megaApiJava) {
-                megaApiJava.startDownload(fileToDownload, "README_returned.rst", this);
-                try {
-                    megaApiJava.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            await(transferScheduler.download(TransferScheduler.Priority.INTERACTIVE, this, fileToDownload,
+                    workingDirectory.resolve("README_returned.rst").toString()));
+        }
+        else {
+            eventLog.message("Node not found: README.rst");
+        }
+        eventLog.message("*** done: download ***");
+    }
+
+    /**
+     * Lists every node below a remote folder, at any depth.
+     * <p>
+     * The stream is lazy: the children of each folder are fetched when the walk reaches it, so folders with millions
+     * of descendants can be listed, filtered with the RemoteTree filters and cut short without holding the whole
+     * tree in memory.
+     *
+     * @param remotePath The path of the folder to list, relative to the root of the user's mega drive
+     * @param parallel True to walk the subtrees in parallel on the fork-join pool
+     * @return A lazy stream of the nodes below the folder
+     */
+    public Stream<MegaNode> list(String remotePath, boolean parallel) {
+        MegaNode folder = nodePathCache.getNodeByPath(remotePath, megaApiJava.getRootNode());
+        if (folder == null) {
+            throw new IllegalArgumentException("Node not found: " + remotePath);
+        }
+        return remoteTree.list(folder, parallel);
+    }
+
+    /**
+     * Downloads a large file from the user's mega account in concurrent segments, resuming a previous attempt.
+     * <p>
+     * Once every segment is on disk the local file's fingerprint is compared with the remote file's.
+     *
+     * @param fileToDownload The file node to download
+     * @param localPath The local file to download to
+     * @return True if the whole file was downloaded and its fingerprint matches
+     */
+    public boolean readSegmented(MegaNode fileToDownload, Path localPath) {
+        long started = System.nanoTime();
+        Long downloaded = await(transferScheduler.submit(MegaTransfer.TYPE_DOWNLOAD,
+                TransferScheduler.Priority.INTERACTIVE, this, fileToDownload.getSize(),
+                () -> megaAsyncClient.downloadSegmented(fileToDownload, localPath)));
+        if (downloaded == null) {
+            eventLog.message("Segmented download incomplete, run again to resume: " + localPath);
+            return false;
+        }
+        eventLog.message("Downloaded " + downloaded + " of " + fileToDownload.getSize() + " bytes of "
+                + fileToDownload.getName() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)
+                + " ms");
+        try {
+            if (!fingerprintCache.matches(localPath, fileToDownload)) {
+                eventLog.message("Fingerprint mismatch: " + localPath);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Streams a file from the user's mega account to a channel without landing it on disk (streaming read).
+     *
+     * @param remotePath The path of the file relative to the current working directory
+     * @param channel The channel to write the file's contents to
+     * @return The number of bytes written to the channel, or -1 if the file was not found or the download failed
+     */
+    public long readToChannel(String remotePath, WritableByteChannel channel) {
+        eventLog.message("");
+        eventLog.message("*** start: streaming download ***");
+        long bytesRead = -1;
+        MegaNode fileToDownload = nodePathCache.getNodeByPath(remotePath, currentWorkingDirectory);
+        if (fileToDownload != null) {
+            // Queued like any other download, so a stream neither jumps the queue nor exceeds the bandwidth limit
+            Long consumed = await(transferScheduler.submit(MegaTransfer.TYPE_DOWNLOAD,
+                    TransferScheduler.Priority.INTERACTIVE, this, fileToDownload.getSize(),
+                    () -> megaAsyncClient.stream(fileToDownload, ChunkConsumer.of(channel))));
+            if (consumed != null) {
+                bytesRead = consumed;
+                eventLog.message("Streamed " + bytesRead + " bytes of " + remotePath);
             }
         }
         else {
-            System.out.println("Node not found: README.rst");
+            eventLog.message("Node not found: " + remotePath);
         }
-        System.out.println("*** done: download ***");
+        eventLog.message("*** done: streaming download ***");
+        return bytesRead;
     }
 
     /*
@@ -332,40 +822,62 @@ public class MEGACRUD implements MegaListenerInterface {
      *
      * Note: A new upload  with the same name won't overwrite,
      * but create a new node with same name!
+     *
+     * Nothing is transferred if the local file has the same fingerprint as the existing remote file.
      */
     public void update() {
-        System.out.println("");
-        System.out.println("*** start: update ***");
-        MegaNode oldNode = megaApiJava.getNodeByPath("README.rst", currentWorkingDirectory);
-        // Wait for upload file process to complete.
-        synchronized (megaApiJava) {
-            // Upload a second file with the same name. A new node will be created with the same name!
-            megaApiJava.startUpload("README.rst", currentWorkingDirectory, this);
-            try {
-                megaApiJava.wait();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        eventLog.message("");
+        eventLog.message("*** start: update ***");
+        MegaNode oldNode = nodePathCache.getNodeByPath("README.rst", currentWorkingDirectory);
+        // Compare fingerprints first. An unchanged file needs neither the upload nor the removal of the old node.
+        if (oldNode != null && isUnchanged(workingDirectory.resolve("README.rst"), oldNode)) {
+            eventLog.message("File " + oldNode.getName() + " unchanged, upload skipped");
+            eventLog.message("*** done: update ***");
+            return;
         }
-        if (oldNode != null) {
-            // Remove the old node with the same name.
-            // Take note of the name of the old node so that the listener can notify the user.
-            fileName = oldNode.getName();
-            // Wait for remove file process to complete.
-            synchronized (megaApiJava) {
-                megaApiJava.remove(oldNode);
-                try {
-                    megaApiJava.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+        // Upload a second file with the same name. A new node will be created with the same name!
+        // Wait for upload file process to complete.
+        if (await(uploadInteractive(workingDirectory.resolve("README.rst"), currentWorkingDirectory)) == null) {
+            // Keep the old node, it is still the only copy of the file
+            eventLog.message("Upload failed, pre-existing file kept");
+        } else if (oldNode != null) {
+            // Remove the old node with the same name and wait for remove file process to complete.
+            // The path cache is invalidated straight away, in case the nodes update arrives after the request.
+            if (await(megaAsyncClient.remove(oldNode)) != null) {
+                nodePathCache.invalidate(oldNode);
+                eventLog.message("Pre-existing file " + oldNode.getName() + " in /" +
+                        currentWorkingDirectory.getName() + " removed.");
             }
-            System.out.println("Pre-existing file " + oldNode.getName() + " in /" +
-                    currentWorkingDirectory.getName() + " removed.");
         } else {
-            System.out.println("No existing file conflict, no old node needs removing");
+            eventLog.message("No existing file conflict, no old node needs removing");
+        }
+        eventLog.message("*** done: update ***");
+    }
+
+    /*
+     * Compares a local file with a remote file by fingerprint.
+     */
+    private boolean isUnchanged(Path localFile, MegaNode remoteFile) {
+        try {
+            return fingerprintCache.matches(localFile, remoteFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /*
+     * Queues the upload of a local file ahead of background transfers.
+     */
+    private CompletableFuture<MegaTransfer> uploadInteractive(Path localFile, MegaNode parent) {
+        long size;
+        try {
+            size = Files.size(localFile);
+        } catch (IOException e) {
+            // The SDK reports the file as unreadable when the upload starts
+            size = 0;
         }
-        System.out.println("*** done: update ***");
+        return transferScheduler.upload(TransferScheduler.Priority.INTERACTIVE, this, localFile, parent, size);
     }
 
     /*
@@ -373,77 +885,294 @@ public class MEGACRUD implements MegaListenerInterface {
      */
     public void delete() {
         // Delete a file (delete).
-        System.out.println("");
-        System.out.println("*** start: delete ***");
+        eventLog.message("");
+        eventLog.message("*** start: delete ***");
         // Specify file node to delete.
-        MegaNode node = megaApiJava.getNodeByPath("README.rst", currentWorkingDirectory);
+        MegaNode node = nodePathCache.getNodeByPath("README.rst", currentWorkingDirectory);
         if (node != null) {
-            // Make note of file being removed so it can be reported from the listener method
-            fileName = node.getName();
             // Wait for remove file process to complete.
-            synchronized (megaApiJava) {
-                megaApiJava.remove(node);
-                try {
-                    megaApiJava.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            if (await(megaAsyncClient.remove(node)) != null) {
+                nodePathCache.invalidate(node);
+                eventLog.message("File removed: " + node.getName());
             }
         }
         else {
-            System.out.println("Node not found: " + node.getName());
+            eventLog.message("Node not found: " + node.getName());
+        }
+        eventLog.message("*** done: delete ***");
+    }
+
+    /*
+     * Logs in, runs one mirror given by the --mirror arguments and logs out locally, keeping the session.
+     */
+    private void mirrorCommand(List<String> args) {
+        login();
+        if (megaApiJava.isLoggedIn() == 0) {
+            return;
+        }
+        mirror(Paths.get(args.get(0)), args.get(1), args.contains("--download") ? Mirror.Direction.TO_LOCAL
+                : Mirror.Direction.TO_REMOTE, args.contains("--delete"), args.contains("--verify"));
+        nodeIndex.close();
+        await(megaAsyncClient.localLogout());
+        eventLog.flush();
+    }
+
+    /**
+     * Logs in once and serves CRUD commands from local clients until the process is stopped (daemon mode).
+     * <p>
+     * The session, the node tree and the caches stay warm between commands, so each command only costs the
+     * operation itself. Clients authenticate with the secret the daemon writes next to the session file. On shutdown
+     * the session is logged out locally so that it can be resumed.
+     *
+     * @param port The loopback port to listen on
+     */
+    public void serve(int port) {
+        login();
+        if (megaApiJava.isLoggedIn() == 0) {
+            return;
         }
-        System.out.println("*** done: delete ***");
+        // The account details are fetched up front, so the first upload is already checked against the quota
+        await(quotaGuard.refresh());
+        final CrudDaemon daemon;
+        try {
+            daemon = new CrudDaemon(megaApiJava, megaAsyncClient, transferScheduler, nodePathCache, fingerprintCache,
+                    port, workingDirectory.resolve(DAEMON_SECRET_FILE_NAME));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        final Thread serving = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            daemon.close();
+            try {
+                // Let the serving thread log out before the JVM exits
+                serving.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        eventLog.message("Serving CRUD commands on " + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                + daemon.getPort() + ", secret in " + daemon.getSecretFile());
+        daemon.run();
+        nodeIndex.close();
+        await(megaAsyncClient.localLogout());
+        nodePathCache.clear();
+        eventLog.message("Daemon stopped");
+        eventLog.flush();
     }
 
     /*
      * Logs the user out of their mega account.
+     *
+     * The session is kept valid so that the next run can resume it. Use endSession() to invalidate it.
      */
     public void logout() {
-        System.out.println("");
-        System.out.println("*** start: logout ***");
+        eventLog.message("");
+        eventLog.message("*** start: logout ***");
 
         // Clean up: remove /sandbox
         // Change to root of Mega Drive
         currentWorkingDirectory = megaApiJava.getRootNode();
-        MegaNode sandboxNode = megaApiJava.getNodeByPath("sandbox", currentWorkingDirectory);
-        // Make note of file being removed so it can be reported from the listener method
-        fileName = sandboxNode.getName();
+        MegaNode sandboxNode = nodePathCache.getNodeByPath("sandbox", currentWorkingDirectory);
         // Wait for remove folder process to complete.
-        synchronized (megaApiJava) {
-            megaApiJava.remove(sandboxNode);
-            try {
-                megaApiJava.wait();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        if (await(megaAsyncClient.remove(sandboxNode)) != null) {
+            nodePathCache.clear();
+            eventLog.message("Folder removed: " + sandboxNode.getName());
         }
         // Get path to returned local test file
-        Path path = Paths.get(System.getProperty("user.dir"), "README_returned.rst");
+        Path path = workingDirectory.resolve("README_returned.rst");
         // Delete returned test file from local directory
         try {
             deleteIfExists(path);
-            System.out.println("Test file README_returned.rst deleted from local directory");
+            eventLog.message("Test file README_returned.rst deleted from local directory");
         } catch (IOException e) {
             e.printStackTrace();
         }
+        eventLog.message(String.valueOf(nodePathCache));
+        eventLog.message(String.valueOf(nodeIndex));
+        nodeIndex.close();
+        ByteArrayOutputStream latencies = new ByteArrayOutputStream();
+        requestLatencyRecorder.dump(new PrintStream(latencies, true));
+        eventLog.message(latencies.toString().trim());
+        eventLog.message(String.valueOf(transferMetrics));
+        eventLog.message(String.valueOf(callbackDispatcher));
+        eventLog.message(String.valueOf(contentCache));
+        eventLog.message(String.valueOf(transferScheduler));
+        eventLog.message(String.valueOf(quotaGuard));
+        spoolingUploader.close();
+        eventLog.message("Retries: " + megaAsyncClient.getRetryScheduler().getRetries() + ", rejected by circuit "
+                + "breaker: " + megaAsyncClient.getRetryScheduler().getRejections() + ", temporary errors: "
+                + megaAsyncClient.getRetryScheduler().getTemporaryErrors());
         // Wait for log out process to complete.
-        synchronized (megaApiJava) {
-            megaApiJava.logout();
+        // A local logout keeps the saved session valid on the server so that the next run can resume it.
+        await(megaAsyncClient.localLogout());
+        nodePathCache.clear();
+        eventLog.message("*** done: logout ***");
+    }
+
+    /**
+     * Logs out of the user's mega account and invalidates the saved session, so that the next run has to log in
+     * with the user's credentials again.
+     */
+    public void endSession() {
+        eventLog.message("");
+        eventLog.message("*** start: end session ***");
+        await(megaAsyncClient.logout());
+        sessionStore.clear();
+        nodePathCache.clear();
+        nodeIndex.delete();
+        if (contentCache != null) {
+            contentCache.clear();
+        }
+        eventLog.message("*** done: end session ***");
+        eventLog.flush();
+    }
+
+    /**
+     * Stops listening to megaApiJava and stops the threads of the callback dispatcher and the event log, once they
+     * have handled the events already queued. The session is left as it is; call logout() or endSession() first.
+     */
+    @Override
+    public void close() {
+        megaApiJava.removeListener(callbackDispatcher);
+        megaApiJava.removeRequestListener(requestLatencyRecorder);
+        megaApiJava.removeTransferListener(transferMetrics);
+        megaApiJava.removeTransferListener(transferScheduler);
+        callbackDispatcher.close();
+        eventLog.close();
+        if (eventLogOut != System.out) {
+            eventLogOut.close();
+        }
+    }
+
+    /**
+     * @return The asynchronous log all output of this object goes through
+     */
+    public EventLog getEventLog() {
+        return eventLog;
+    }
+
+    /**
+     * @return The dispatcher which runs the listener methods of this object, with its queue metrics
+     */
+    public CallbackDispatcher getCallbackDispatcher() {
+        return callbackDispatcher;
+    }
+
+    /**
+     * @return The local cache of recently read files, or null if its directory could not be opened
+     */
+    public ContentCache getContentCache() {
+        return contentCache;
+    }
+
+    /**
+     * @return The guard which reserves storage for uploads against the cached account details
+     */
+    public QuotaGuard getQuotaGuard() {
+        return quotaGuard;
+    }
+
+    /**
+     * @return The scheduler which queues the transfers of this object, with its queue wait metrics
+     */
+    public TransferScheduler getTransferScheduler() {
+        return transferScheduler;
+    }
+
+    /*
+     * Opens the content cache next to the SDK local cache. Without it read() downloads every time.
+     */
+    private ContentCache openContentCache(MegaAsyncClient megaAsyncClient) {
+        try {
+            return new ContentCache(megaAsyncClient, workingDirectory.resolve(CONTENT_CACHE_DIRECTORY_NAME),
+                    CONTENT_CACHE_BUDGET_BYTES, transferScheduler, TransferScheduler.Priority.INTERACTIVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return The memory-mapped index of the node tree
+     */
+    public NodeIndex getNodeIndex() {
+        return nodeIndex;
+    }
+
+    /**
+     * Rebuilds the node index from the node tree in the background, so that the CRUD operations do not wait for a
+     * walk of the whole tree.
+     */
+    private void rebuildNodeIndex() {
+        CompletableFuture.runAsync(() -> {
+            long started = System.nanoTime();
             try {
-                megaApiJava.wait();
-            } catch (InterruptedException e) {
+                nodeIndex.rebuild(megaApiJava);
+                eventLog.message("Node index built: " + nodeIndex.size() + " nodes in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms");
+            } catch (IOException e) {
                 e.printStackTrace();
             }
+        });
+    }
+
+    /**
+     * @return The recorder holding the latency histogram of every request type
+     */
+    public RequestLatencyRecorder getRequestLatencyRecorder() {
+        return requestLatencyRecorder;
+    }
+
+    /**
+     * @return The live throughput and progress metrics of every transfer
+     */
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
+
+    /**
+     * @return The feed of remote node changes, for subscribers which need to follow changes incrementally
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * @return The time in milliseconds from creating this object until the first operation could run after login,
+     * or -1 if login has not finished yet
+     */
+    public long getTimeToFirstOperationMillis() {
+        return timeToFirstOperationNanos < 0 ? -1 : timeToFirstOperationNanos / 1000000;
+    }
+
+    /**
+     * Waits for a MEGA request or transfer future to complete.
+     * <p>
+     * Failed requests are reported and null is returned so that the example can carry on with the next step.
+     *
+     * @param future The future returned by the MegaAsyncClient when the request or transfer was started
+     * @param <T> The MegaRequest or MegaTransfer type the future completes with
+     * @return The finished request or transfer, or null if it failed or the wait was interrupted
+     */
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            e.printStackTrace();
+        } catch (ExecutionException e) {
+            eventLog.message("Request failed: " + e.getCause().getMessage());
         }
-        System.out.println("*** done: logout ***");
+        return null;
     }
 
     /**
      * Implemented MEGA Listener Interface method which is triggered by finished requests.
      * <p>
-     * Used in this example application to confirm that MEGA API calls are completed, wake (notify) the waiting
-     * synchronized megaApi thread and notify the user of the event that has been completed.
+     * Used in this example application to notify the user of the event that has been completed. Waiting callers are
+     * woken by the future passed to the MEGA API with each request, not by this listener. The event is only queued
+     * on the event log, so the SDK callback thread never waits for console output.
      * This is a wide catching listener method which can be used to handle most MEGA API requests.
      * This method does not receive TYPE.DELETE requests.
      *
@@ -454,35 +1183,12 @@ public class MEGACRUD implements MegaListenerInterface {
     @Override
     public void onRequestFinish(MegaApiJava api, MegaRequest request, MegaError e) {
 
-        // identify the MegaRequest type which has finished and triggered this event
-        int requestType = request.getType();
-
-        if (requestType == MegaRequest.TYPE_LOGIN) {
-            System.out.println("User login request finished; Result: " + e.toString() + " ");
-        } else if (requestType == MegaRequest.TYPE_FETCH_NODES) {
-            System.out.println("Node Fetch request finished; Result: " + e.toString() + " ");
-        } else if (requestType == MegaRequest.TYPE_ACCOUNT_DETAILS) {
+        eventLog.requestFinished(request, e);
+        if (request.getType() == MegaRequest.TYPE_ACCOUNT_DETAILS && e.getErrorCode() == MegaError.API_OK) {
             // Notify user of account details.
             MegaAccountDetails accountDetails = request.getMegaAccountDetails();
-            System.out.println("Storage: " + accountDetails.getStorageUsed()
-                    + " of " + accountDetails.getStorageMax()
-                    + " (" + String.valueOf((int)(100.0 * accountDetails.getStorageUsed()
-                    / accountDetails.getStorageMax()))
-                    + " %)");
-            System.out.println("Pro level: " + accountDetails.getProLevel());
-            System.out.println("Account Details request finished; Result: " + e.toString() + " ");
-        } else if (requestType == MegaRequest.TYPE_UPLOAD) {
-            System.out.println("Upload requestFinish entered");
-        } else if (requestType == MegaRequest.TYPE_REMOVE) {
-            System.out.println("File removed: " + fileName + "; Result: " + e.toString() + " ");
-            fileName = "nullFileName";
-        } else if (requestType == MegaRequest.TYPE_LOGOUT) {
-            System.out.println("Log out completed; Result: " + e.toString() + " ");
-        }
-
-        // Wake (notify()) the paused (synchronized.wait()) megaApiJava object.
-        synchronized (megaApiJava) {
-            megaApiJava.notify();
+            eventLog.accountDetails(accountDetails.getStorageUsed(), accountDetails.getStorageMax(),
+                    accountDetails.getProLevel());
         }
     }
 
@@ -506,13 +1212,7 @@ public class MEGACRUD implements MegaListenerInterface {
      */
     @Override
     public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
-        System.out.println("Transfer finished (" + transfer.getFileName() +
-                "); Result: " + e.toString() + " ");
-        // Signal the other thread we're done.
-        synchronized (megaApiJava){
-            megaApiJava.notify();
-        }
-
+        eventLog.transferFinished(transfer, e);
     }
 
     /**
@@ -528,6 +1228,8 @@ public class MEGACRUD implements MegaListenerInterface {
 
     /**
      * Implemented MEGA Listener Interface method which is triggered by temporary error events.
+     * <p>
+     * Counts the error for the transfer type. The circuit breaker of the type only counts how each attempt ends.
      *
      * @param api The MEGA Java API object which called the event resulting in temporary error
      * @param transfer The MEGA Transfer event type which triggered this listener
@@ -535,7 +1237,7 @@ public class MEGACRUD implements MegaListenerInterface {
      */
     @Override
     public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
-
+        megaAsyncClient.getRetryScheduler().recordTemporaryError(RetryScheduler.transferKey(transfer.getType()));
     }
 
     /**
@@ -576,6 +1278,8 @@ public class MEGACRUD implements MegaListenerInterface {
 
     /**
      * Implemented MEGA Listener Interface method which is triggered by temporary request errors.
+     * <p>
+     * Counts the error for the request type. The circuit breaker of the type only counts how each attempt ends.
      *
      * @param api The MEGA Java API object which called the request event
      * @param request The MEGA Request event type which triggered this listener
@@ -583,7 +1287,7 @@ public class MEGACRUD implements MegaListenerInterface {
      */
     @Override
     public void onRequestTemporaryError(MegaApiJava api, MegaRequest request, MegaError e) {
-
+        megaAsyncClient.getRetryScheduler().recordTemporaryError(request.getType());
     }
 
     /**
@@ -599,13 +1303,27 @@ public class MEGACRUD implements MegaListenerInterface {
 
     /**
      * Implemented MEGA Listener Interface method which is triggered by nodes updates.
+     * <p>
+     * Used to invalidate the cached paths of nodes which have been renamed, moved or removed, to publish the changes
+     * to the subscribers of the change feed and to keep the node index current.
      *
      * @param api The MEGA Java API object which called the nodes update
-     * @param nodes The Array List of nodes
+     * @param nodes The Array List of nodes, or null if the whole node tree has been reloaded
      */
     @Override
     public void onNodesUpdate(MegaApiJava api, ArrayList<MegaNode> nodes) {
-
+        nodePathCache.invalidate(nodes);
+        if (contentCache != null) {
+            contentCache.invalidate(nodes);
+        }
+        // Published before the index is updated, so the feed can still look up the previous names
+        changeFeed.publish(nodes);
+        if (nodes == null) {
+            rebuildNodeIndex();
+        }
+        else {
+            nodeIndex.apply(nodes);
+        }
     }
 
     /**
@@ -615,7 +1333,12 @@ public class MEGACRUD implements MegaListenerInterface {
      */
     @Override
     public void onReloadNeeded(MegaApiJava api) {
-
+        nodePathCache.clear();
+        if (contentCache != null) {
+            contentCache.clear();
+        }
+        changeFeed.publish(null);
+        rebuildNodeIndex();
     }
 
     /**
@@ -625,7 +1348,8 @@ public class MEGACRUD implements MegaListenerInterface {
      */
     @Override
     public void onAccountUpdate(MegaApiJava api) {
-
+        // The plan or storage may have changed, so the quota snapshot is fetched again
+        quotaGuard.refresh();
     }
 
     /**
@@ -641,13 +1365,35 @@ public class MEGACRUD implements MegaListenerInterface {
 
     /**
      * The main method of this application.
+     * <p>
+     * Runs the CRUD examples once, or with --daemon [port] keeps the session logged in and serves CRUD commands on a
+     * loopback port until the process is stopped. With --mirror local-directory remote-folder [--download] [--delete]
+     * [--verify] the remote folder is made a copy of the local directory, or the other way round with --download, and
+     * the session is kept for the next run.
      *
      * @param args Command-line arguments passed to the main method
      */
     public static void main(String[] args) {
 
         try {
-            MEGACRUD listener = new MEGACRUD();
+            if (args.length > 0 && args[0].equals("--daemon")) {
+                try (MEGACRUD daemon = new MEGACRUD(new MegaApiJava(APP_KEY, System.getProperty("user.dir")), "",
+                        "")) {
+                    daemon.getUserCredentials();
+                    daemon.serve(args.length > 1 ? Integer.parseInt(args[1]) : CrudDaemon.DEFAULT_PORT);
+                }
+            }
+            else if (args.length > 2 && args[0].equals("--mirror")) {
+                try (MEGACRUD mirror = new MEGACRUD(new MegaApiJava(APP_KEY, System.getProperty("user.dir")), "",
+                        "")) {
+                    mirror.getUserCredentials();
+                    mirror.mirrorCommand(Arrays.asList(args).subList(1, args.length));
+                }
+            }
+            else {
+                // The constructor runs the CRUD examples
+                new MEGACRUD().close();
+            }
         } catch (FileNotFoundException e) {
             e.printStackTrace();
         }
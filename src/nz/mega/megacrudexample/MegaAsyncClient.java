@@ -0,0 +1,309 @@
+package nz.mega.megacrudexample;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaRequestListenerInterface;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+
+/**
+ * An asynchronous wrapper around a MegaApiJava object.
+ * <p>
+ * Every method starts one MEGA request or transfer and returns a future which completes when that request or
+ * transfer finishes. Each call passes its own listener to the MEGA SDK, so any number of operations can be in flight
+ * over one logged in session and a callback can only ever complete the future it belongs to.
+ * <p>
+ * A failed request completes its future exceptionally with a MegaRequestException. Requests and transfers which
+ * fail with a transient error are retried by a RetryScheduler first, so a future only fails once retrying has been
+ * given up on or the circuit breaker of its type is open.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class MegaAsyncClient {
+
+    /*
+     * Default size of the pooled buffers streaming downloads copy chunks into.
+     */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * Default number of pooled buffers per streaming download, which caps the data a slow consumer can fall behind.
+     */
+    private static final int STREAM_MAX_BUFFERS = 16;
+
+    /*
+     * Runs the writer tasks which feed streaming download chunks to their consumers, and the bookkeeping of
+     * segmented downloads.
+     */
+    private static final Executor STREAM_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mega-stream-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /*
+     * Default segment size and number of segments streamed at once for segmented downloads.
+     */
+    private static final long SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final int SEGMENT_PARALLELISM = 4;
+
+    /*
+     * Default retry settings: attempts per operation including the first, and the backoff bounds.
+     */
+    private static final int RETRY_MAX_ATTEMPTS = 4;
+    private static final long RETRY_BASE_DELAY_MILLIS = 250;
+    private static final long RETRY_MAX_DELAY_MILLIS = 8000;
+
+    /*
+     * The megaApiJava object which provides access to the various MEGA storage functionality.
+     */
+    private final MegaApiJava megaApiJava;
+
+    /*
+     * Retries operations which fail with a transient error.
+     */
+    private final RetryScheduler retryScheduler;
+
+    /**
+     * Creates a new MegaAsyncClient with the default retry settings.
+     *
+     * @param megaApiJava The MEGA Java API object requests are started on
+     */
+    public MegaAsyncClient(MegaApiJava megaApiJava) {
+        this(megaApiJava, new RetryScheduler(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mega-retry");
+            thread.setDaemon(true);
+            return thread;
+        }), RETRY_MAX_ATTEMPTS, RETRY_BASE_DELAY_MILLIS, RETRY_MAX_DELAY_MILLIS));
+    }
+
+    /**
+     * Creates a new MegaAsyncClient.
+     *
+     * @param megaApiJava The MEGA Java API object requests are started on
+     * @param retryScheduler Retries operations which fail with a transient error
+     */
+    public MegaAsyncClient(MegaApiJava megaApiJava, RetryScheduler retryScheduler) {
+        this.megaApiJava = megaApiJava;
+        this.retryScheduler = retryScheduler;
+    }
+
+    /**
+     * @return The MEGA Java API object requests are started on
+     */
+    public MegaApiJava getApi() {
+        return megaApiJava;
+    }
+
+    /**
+     * @return The retry scheduler operations are run through
+     */
+    public RetryScheduler getRetryScheduler() {
+        return retryScheduler;
+    }
+
+    /**
+     * Logs in to a MEGA account.
+     *
+     * @param userEmail The user's MEGA registered email address
+     * @param password The user's MEGA password
+     * @return A future which completes with the finished login request
+     */
+    public CompletableFuture<MegaRequest> login(String userEmail, String password) {
+        return request(MegaRequest.TYPE_LOGIN, listener -> megaApiJava.login(userEmail, password, listener));
+    }
+
+    /**
+     * Resumes a session previously saved with MegaApiJava.dumpSession(), without sending the user's credentials.
+     *
+     * @param session The saved session key
+     * @return A future which completes with the finished login request, or exceptionally if the session is no longer
+     * valid
+     */
+    public CompletableFuture<MegaRequest> fastLogin(String session) {
+        return request(MegaRequest.TYPE_LOGIN, listener -> megaApiJava.fastLogin(session, listener));
+    }
+
+    /**
+     * Fetches the nodes of the logged in account so that the MEGA API functionality can be used.
+     *
+     * @return A future which completes with the finished fetch nodes request
+     */
+    public CompletableFuture<MegaRequest> fetchNodes() {
+        return request(MegaRequest.TYPE_FETCH_NODES, listener -> megaApiJava.fetchNodes(listener));
+    }
+
+    /**
+     * Loads the account details of the logged in user.
+     *
+     * @return A future which completes with the finished account details request. The details are available from
+     * MegaRequest.getMegaAccountDetails().
+     */
+    public CompletableFuture<MegaRequest> getAccountDetails() {
+        return request(MegaRequest.TYPE_ACCOUNT_DETAILS, listener -> megaApiJava.getAccountDetails(listener));
+    }
+
+    /**
+     * Creates a folder.
+     *
+     * @param name The name of the new folder
+     * @param parent The folder to create the new folder in
+     * @return A future which completes with the finished request. The handle of the new folder is available from
+     * MegaRequest.getNodeHandle().
+     */
+    public CompletableFuture<MegaRequest> createFolder(String name, MegaNode parent) {
+        return request(MegaRequest.TYPE_CREATE_FOLDER, listener -> megaApiJava.createFolder(name, parent, listener));
+    }
+
+    /**
+     * Removes a file or folder.
+     *
+     * @param node The node to remove
+     * @return A future which completes with the finished remove request
+     */
+    public CompletableFuture<MegaRequest> remove(MegaNode node) {
+        return request(MegaRequest.TYPE_REMOVE, listener -> megaApiJava.remove(node, listener));
+    }
+
+    /**
+     * Logs out of the MEGA account and invalidates the session.
+     *
+     * @return A future which completes with the finished logout request
+     */
+    public CompletableFuture<MegaRequest> logout() {
+        return request(MegaRequest.TYPE_LOGOUT, listener -> megaApiJava.logout(listener));
+    }
+
+    /**
+     * Logs out locally while keeping the session valid, so that it can be resumed with fastLogin().
+     *
+     * @return A future which completes with the finished logout request
+     */
+    public CompletableFuture<MegaRequest> localLogout() {
+        return request(MegaRequest.TYPE_LOGOUT, listener -> megaApiJava.localLogout(listener));
+    }
+
+    /**
+     * Uploads a local file.
+     *
+     * @param localPath The path of the local file to upload
+     * @param parent The folder to upload the file to
+     * @return A future which completes with the finished transfer. The handle of the new node is available from
+     * MegaTransfer.getNodeHandle().
+     */
+    public CompletableFuture<MegaTransfer> upload(String localPath, MegaNode parent) {
+        return transfer(MegaTransfer.TYPE_UPLOAD, listener -> megaApiJava.startUpload(localPath, parent, listener));
+    }
+
+    /**
+     * Downloads a file to the local file system.
+     *
+     * @param node The file node to download
+     * @param localPath The local path to download the file to
+     * @return A future which completes with the finished transfer
+     */
+    public CompletableFuture<MegaTransfer> download(MegaNode node, String localPath) {
+        return transfer(MegaTransfer.TYPE_DOWNLOAD, listener -> megaApiJava.startDownload(node, localPath, listener));
+    }
+
+    /**
+     * Downloads a large file in segments of SEGMENT_SIZE bytes, SEGMENT_PARALLELISM of them at once.
+     *
+     * @param node The file node to download
+     * @param localPath The local file to download to
+     * @return A future which completes with the number of bytes downloaded by this run
+     */
+    public CompletableFuture<Long> downloadSegmented(MegaNode node, Path localPath) {
+        return downloadSegmented(node, localPath, SEGMENT_SIZE, SEGMENT_PARALLELISM);
+    }
+
+    /**
+     * Downloads a large file in segments which are streamed concurrently and written at their offsets in the local
+     * file.
+     * <p>
+     * The finished segments are recorded in a sidecar file named after the local file with a .segments suffix. If
+     * the download fails, calling this again with the same node, local file and segment size only downloads the
+     * missing segments. Segments which fail with a transient error are retried.
+     *
+     * @param node The file node to download
+     * @param localPath The local file to download to
+     * @param segmentSize The size of each segment in bytes
+     * @param parallelism The maximum number of segments streamed at once
+     * @return A future which completes with the number of bytes downloaded by this run once the whole file is on
+     * disk
+     */
+    public CompletableFuture<Long> downloadSegmented(MegaNode node, Path localPath, long segmentSize,
+                                                     int parallelism) {
+        return new SegmentedDownload(megaApiJava, retryScheduler, STREAM_EXECUTOR, node, localPath, segmentSize,
+                parallelism).start();
+    }
+
+    /**
+     * Starts a request through the retry scheduler, with a new RequestFuture as its listener for every attempt.
+     *
+     * @param requestType The MegaRequest.TYPE_* value of the request
+     * @param start Starts one attempt of the request with the given listener
+     * @return A future which completes with the finished request
+     */
+    private CompletableFuture<MegaRequest> request(int requestType, Consumer<MegaRequestListenerInterface> start) {
+        return retryScheduler.execute(requestType, () -> {
+            RequestFuture future = new RequestFuture();
+            start.accept(future);
+            return future;
+        });
+    }
+
+    /**
+     * Starts a transfer through the retry scheduler, with a new TransferFuture as its listener for every attempt.
+     *
+     * @param transferType MegaTransfer.TYPE_UPLOAD or MegaTransfer.TYPE_DOWNLOAD
+     * @param start Starts one attempt of the transfer with the given listener
+     * @return A future which completes with the finished transfer
+     */
+    private CompletableFuture<MegaTransfer> transfer(int transferType, Consumer<MegaTransferListenerInterface> start) {
+        return retryScheduler.execute(RetryScheduler.transferKey(transferType), () -> {
+            TransferFuture future = new TransferFuture();
+            start.accept(future);
+            return future;
+        });
+    }
+
+    /**
+     * Streams a file to a consumer without writing it to the local file system.
+     * <p>
+     * Chunks are copied into a pool of STREAM_MAX_BUFFERS reusable buffers of STREAM_BUFFER_SIZE bytes. A consumer
+     * which falls that far behind pauses the download, which resumes from where it stopped once the consumer has
+     * caught up, rather than growing the heap or holding up the SDK callback thread. Streams are not retried,
+     * because the consumer may already have received part of the data. A stream is started straight away, so an
+     * application which queues its transfers should start it through TransferScheduler.submit().
+     *
+     * @param node The file node to stream
+     * @param consumer The consumer every chunk is handed to, in order
+     * @return A future which completes with the number of bytes consumed
+     */
+    public CompletableFuture<Long> stream(MegaNode node, ChunkConsumer consumer) {
+        return stream(node, consumer, new ByteBufferPool(STREAM_BUFFER_SIZE, STREAM_MAX_BUFFERS));
+    }
+
+    /**
+     * Streams a file to a consumer through a caller-supplied buffer pool, so buffers can be reused across downloads.
+     *
+     * @param node The file node to stream
+     * @param consumer The consumer every chunk is handed to, in order
+     * @param bufferPool The pool of buffers chunks are copied into
+     * @return A future which completes with the number of bytes consumed
+     */
+    public CompletableFuture<Long> stream(MegaNode node, ChunkConsumer consumer, ByteBufferPool bufferPool) {
+        StreamingDownload download = new StreamingDownload(node, consumer, bufferPool, STREAM_MAX_BUFFERS,
+                STREAM_EXECUTOR);
+        megaApiJava.startStreaming(node, 0, node.getSize(), download);
+        return download;
+    }
+}
@@ -0,0 +1,64 @@
+package nz.mega.megacrudexample;
+
+import nz.mega.sdk.MegaError;
+
+/**
+ * An exception which reports a MEGA request or transfer that finished with an error.
+ * <p>
+ * The MEGA SDK reports the result of every request and transfer through a MegaError passed to the listener's
+ * finish method. MegaAsyncClient futures complete exceptionally with this exception when that error is not
+ * MegaError.API_OK so that callers can react to the failure instead of carrying on as if the operation succeeded.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class MegaRequestException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /*
+     * The MegaRequest.TYPE_* or MegaTransfer.TYPE_* value of the failed operation.
+     */
+    private final int type;
+
+    /*
+     * The MegaError.API_* error code returned by the MEGA SDK.
+     */
+    private final int errorCode;
+
+    /**
+     * Creates a new MegaRequestException.
+     *
+     * @param type The MegaRequest.TYPE_* or MegaTransfer.TYPE_* value of the failed operation
+     * @param errorCode The MegaError.API_* error code returned by the MEGA SDK
+     * @param errorString The human readable description of the error code
+     */
+    public MegaRequestException(int type, int errorCode, String errorString) {
+        super(errorString + " (type " + type + ", error " + errorCode + ")");
+        this.type = type;
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Creates a new MegaRequestException from the MegaError passed to a listener.
+     *
+     * @param type The MegaRequest.TYPE_* or MegaTransfer.TYPE_* value of the failed operation
+     * @param e The MEGA Error generated by the operation
+     */
+    public MegaRequestException(int type, MegaError e) {
+        this(type, e.getErrorCode(), e.getErrorString());
+    }
+
+    /**
+     * @return The MegaRequest.TYPE_* or MegaTransfer.TYPE_* value of the failed operation
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return The MegaError.API_* error code returned by the MEGA SDK
+     */
+    public int getErrorCode() {
+        return errorCode;
+    }
+}
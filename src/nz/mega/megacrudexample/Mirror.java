@@ -0,0 +1,435 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaTransfer;
+
+/**
+ * Makes a remote folder a copy of a local directory, or a local directory a copy of a remote folder, transferring
+ * only the files which differ.
+ * <p>
+ * Both trees are walked together one directory at a time. A file is up to date when the other side has a file of
+ * the same name, size and modification time; with verifyFingerprints set, its fingerprint must match as well.
+ * Files which are missing or differ are transferred, folders which are missing are created and, with
+ * removeExtraneous set, files and folders which the source does not have are removed. Up to maxInFlight transfers
+ * and removals run at once; when that many are in flight the walk blocks until one finishes.
+ * <p>
+ * A changed remote file is replaced by uploading the new version before removing the old one, like
+ * MEGACRUD.update(). A changed local file is replaced by downloading to a partial file next to it and moving that
+ * over the old file, so an interrupted mirror never leaves a half written file in place.
+ * <p>
+ * Remote folders may hold several nodes of the same name. Mirroring to the remote folder matches the newest of them
+ * and treats the others as extraneous. Mirroring to the local directory reports such names as failures and leaves
+ * the local entry alone, as it does remote names which are not a single local path segment, such as "..".
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class Mirror {
+
+    /**
+     * Which side is the source and which side is made a copy of it.
+     */
+    public enum Direction {
+
+        /**
+         * Make the remote folder a copy of the local directory.
+         */
+        TO_REMOTE,
+
+        /**
+         * Make the local directory a copy of the remote folder.
+         */
+        TO_LOCAL
+    }
+
+    /*
+     * Local files being downloaded end with this suffix until they are complete. Partial files, and the sidecars of
+     * partial segmented downloads, are left alone so that the next run can resume them.
+     */
+    private static final String PARTIAL_SUFFIX = ".mirror-partial";
+
+    private final MegaAsyncClient megaAsyncClient;
+    private final FingerprintCache fingerprintCache;
+    private final int maxInFlight;
+    private final boolean removeExtraneous;
+    private final boolean verifyFingerprints;
+
+    /*
+     * Queues the transfers behind interactive ones, or null to start them straight away.
+     */
+    private final TransferScheduler transferScheduler;
+
+    /**
+     * Creates a new Mirror which starts its transfers straight away.
+     *
+     * @param megaAsyncClient The client to start requests and transfers on
+     * @param fingerprintCache Computes the fingerprints of local files when verifyFingerprints is set
+     * @param maxInFlight The maximum number of transfers and removals in flight at once
+     * @param removeExtraneous True to remove the files and folders which the source does not have
+     * @param verifyFingerprints True to compare the fingerprints of files whose size and modification time match
+     */
+    public Mirror(MegaAsyncClient megaAsyncClient, FingerprintCache fingerprintCache, int maxInFlight,
+                  boolean removeExtraneous, boolean verifyFingerprints) {
+        this(megaAsyncClient, fingerprintCache, maxInFlight, removeExtraneous, verifyFingerprints, null);
+    }
+
+    /**
+     * Creates a new Mirror which queues its transfers as BULK transfers of their own caller in a TransferScheduler.
+     *
+     * @param megaAsyncClient The client to start requests and transfers on
+     * @param fingerprintCache Computes the fingerprints of local files when verifyFingerprints is set
+     * @param maxInFlight The maximum number of transfers and removals in flight at once
+     * @param removeExtraneous True to remove the files and folders which the source does not have
+     * @param verifyFingerprints True to compare the fingerprints of files whose size and modification time match
+     * @param transferScheduler The scheduler to queue the transfers in, or null to start them straight away
+     */
+    public Mirror(MegaAsyncClient megaAsyncClient, FingerprintCache fingerprintCache, int maxInFlight,
+                  boolean removeExtraneous, boolean verifyFingerprints, TransferScheduler transferScheduler) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+        }
+        this.megaAsyncClient = megaAsyncClient;
+        this.fingerprintCache = fingerprintCache;
+        this.maxInFlight = maxInFlight;
+        this.removeExtraneous = removeExtraneous;
+        this.verifyFingerprints = verifyFingerprints;
+        this.transferScheduler = transferScheduler;
+    }
+
+    /**
+     * Mirrors the contents of a local directory and a remote folder and waits for every transfer to finish.
+     *
+     * @param localDirectory The local directory, created if it does not exist and the direction is TO_LOCAL
+     * @param remoteFolder The remote folder
+     * @param direction Which side is the source
+     * @return The results of the mirror
+     * @throws IOException If a local directory cannot be listed or created
+     * @throws InterruptedException If the calling thread is interrupted while waiting for transfers
+     */
+    public MirrorReport run(Path localDirectory, MegaNode remoteFolder, Direction direction)
+            throws IOException, InterruptedException {
+        MirrorReport report = new MirrorReport();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(localDirectory);
+            mirrorDirectory(localDirectory.toAbsolutePath(), remoteFolder, direction, inFlight, report);
+        } finally {
+            // Wait for the transfers still in flight by taking back every permit
+            inFlight.acquireUninterruptibly(maxInFlight);
+            report.finished(System.nanoTime() - start);
+        }
+        return report;
+    }
+
+    /*
+     * Mirrors one directory level and then descends into its subdirectories.
+     */
+    private void mirrorDirectory(Path localDirectory, MegaNode remoteFolder, Direction direction, Semaphore inFlight,
+                                 MirrorReport report) throws IOException, InterruptedException {
+        // MEGA allows several children of the same name: the newest is matched and the others are extraneous
+        Map<String, MegaNode> remoteChildren = new HashMap<>();
+        List<MegaNode> duplicates = new ArrayList<>();
+        for (MegaNode child : megaAsyncClient.getApi().getChildren(remoteFolder)) {
+            MegaNode previous = remoteChildren.get(child.getName());
+            if (previous == null || previous.getModificationTime() < child.getModificationTime()) {
+                remoteChildren.put(child.getName(), child);
+            }
+            if (previous != null) {
+                duplicates.add(previous.getModificationTime() < child.getModificationTime() ? previous : child);
+            }
+        }
+        Map<String, Path> localChildren = new HashMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(localDirectory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (!name.contains(PARTIAL_SUFFIX) && (Files.isDirectory(entry) || Files.isRegularFile(entry))) {
+                    localChildren.put(name, entry);
+                }
+            }
+        }
+        if (direction == Direction.TO_REMOTE) {
+            for (Path local : localChildren.values()) {
+                MegaNode remote = remoteChildren.remove(local.getFileName().toString());
+                if (Files.isDirectory(local)) {
+                    MegaNode folder = remoteFolderFor(local, remote, remoteFolder, inFlight, report);
+                    if (folder != null) {
+                        mirrorDirectory(local, folder, direction, inFlight, report);
+                    }
+                }
+                else if (remote != null && remote.isFolder()) {
+                    if (removeConflicting(local, remote, inFlight, report)) {
+                        upload(local, remoteFolder, null, inFlight, report);
+                    }
+                }
+                else if (remote == null || !isUpToDate(local, remote, report)) {
+                    upload(local, remoteFolder, remote, inFlight, report);
+                }
+            }
+            if (removeExtraneous) {
+                for (MegaNode extraneous : remoteChildren.values()) {
+                    remove(reportedPath(localDirectory, extraneous.getName()), extraneous, inFlight, report);
+                }
+                for (MegaNode extraneous : duplicates) {
+                    remove(reportedPath(localDirectory, extraneous.getName()), extraneous, inFlight, report);
+                }
+            }
+        }
+        else {
+            for (MegaNode duplicate : duplicates) {
+                // Only one of the remote nodes can be copied: leave the local entry alone rather than pick one
+                String name = duplicate.getName();
+                if (remoteChildren.remove(name) != null) {
+                    localChildren.remove(name);
+                    report.fileFailed(reportedPath(localDirectory, name),
+                            new IOException("Several remote nodes are named " + name));
+                }
+            }
+            for (MegaNode remote : remoteChildren.values()) {
+                Path local = localChildren.remove(remote.getName());
+                Path target = childPath(localDirectory, remote.getName());
+                if (target == null) {
+                    // A name such as .. or one with a separator would reach outside the local directory
+                    report.fileFailed(localDirectory, new IOException("Not a file name: " + remote.getName()));
+                    continue;
+                }
+                if (remote.isFolder()) {
+                    if (local != null && !Files.isDirectory(local) && !removeConflicting(local, null, inFlight,
+                            report)) {
+                        continue;
+                    }
+                    if (local == null || !Files.isDirectory(local)) {
+                        Files.createDirectory(target);
+                        report.folderCreated();
+                    }
+                    mirrorDirectory(target, remote, direction, inFlight, report);
+                }
+                else if (local != null && Files.isDirectory(local)) {
+                    if (removeConflicting(local, null, inFlight, report)) {
+                        download(remote, target, inFlight, report);
+                    }
+                }
+                else if (local == null || !isUpToDate(local, remote, report)) {
+                    download(remote, target, inFlight, report);
+                }
+            }
+            if (removeExtraneous) {
+                for (Path extraneous : localChildren.values()) {
+                    try {
+                        deleteLocal(extraneous);
+                        report.removed();
+                    } catch (IOException e) {
+                        report.fileFailed(extraneous, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Compares a local and a remote file by size and modification time, and by fingerprint if asked to.
+     */
+    private boolean isUpToDate(Path local, MegaNode remote, MirrorReport report)
+            throws IOException, InterruptedException {
+        BasicFileAttributes attributes = Files.readAttributes(local, BasicFileAttributes.class);
+        if (attributes.size() != remote.getSize()
+                || attributes.lastModifiedTime().to(TimeUnit.SECONDS) != remote.getModificationTime()) {
+            return false;
+        }
+        if (verifyFingerprints) {
+            report.fingerprintCompared();
+            if (!fingerprintCache.matches(local, remote)) {
+                return false;
+            }
+        }
+        report.fileSkipped(attributes.size());
+        return true;
+    }
+
+    /*
+     * Returns the remote folder for a local directory, creating it if it does not exist. A remote file in its place
+     * is removed first if extraneous nodes may be removed.
+     */
+    private MegaNode remoteFolderFor(Path local, MegaNode remote, MegaNode parent, Semaphore inFlight,
+                                     MirrorReport report) throws InterruptedException {
+        if (remote != null && remote.isFolder()) {
+            return remote;
+        }
+        if (remote != null && !removeConflicting(local, remote, inFlight, report)) {
+            return null;
+        }
+        try {
+            MegaRequest request = megaAsyncClient.createFolder(local.getFileName().toString(), parent).get();
+            report.folderCreated();
+            return megaAsyncClient.getApi().getNodeByHandle(request.getNodeHandle());
+        } catch (ExecutionException e) {
+            report.folderFailed(local, e.getCause());
+            return null;
+        }
+    }
+
+    /*
+     * Removes a target entry whose type differs from the source entry of the same name, waiting for the removal so
+     * that the source entry can take its place. Without removeExtraneous the conflict is reported as a failure.
+     */
+    private boolean removeConflicting(Path local, MegaNode remote, Semaphore inFlight, MirrorReport report)
+            throws InterruptedException {
+        if (!removeExtraneous) {
+            report.fileFailed(local, new IOException("Type differs from the source: " + local));
+            return false;
+        }
+        try {
+            if (remote != null) {
+                inFlight.acquire();
+                try {
+                    megaAsyncClient.remove(remote).get();
+                } finally {
+                    inFlight.release();
+                }
+            }
+            else {
+                deleteLocal(local);
+            }
+            report.removed();
+            return true;
+        } catch (ExecutionException | IOException e) {
+            report.fileFailed(local, e instanceof ExecutionException ? e.getCause() : e);
+            return false;
+        }
+    }
+
+    /*
+     * Uploads a local file once an in flight slot is free, then removes the remote version it replaces.
+     */
+    private void upload(final Path local, MegaNode parent, final MegaNode replaced, final Semaphore inFlight,
+                        final MirrorReport report) throws IOException, InterruptedException {
+        final long size = Files.size(local);
+        inFlight.acquire();
+        CompletableFuture<MegaTransfer> upload = transferScheduler == null
+                ? megaAsyncClient.upload(local.toString(), parent)
+                : transferScheduler.upload(TransferScheduler.Priority.BULK, report, local, parent, size);
+        upload.thenCompose(transfer -> replaced == null ? CompletableFuture.completedFuture(null)
+                        : megaAsyncClient.remove(replaced))
+                .whenComplete((request, failure) -> {
+                    if (failure == null) {
+                        report.fileTransferred(size);
+                    }
+                    else {
+                        report.fileFailed(local, failure);
+                    }
+                    inFlight.release();
+                });
+    }
+
+    /*
+     * Downloads a remote file to a partial file once an in flight slot is free, then moves it over the target.
+     */
+    private void download(final MegaNode remote, final Path target, final Semaphore inFlight,
+                          final MirrorReport report) throws InterruptedException {
+        final Path partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+        inFlight.acquire();
+        Supplier<CompletableFuture<?>> start = () -> remote.getSize() >= MEGACRUD.SEGMENTED_DOWNLOAD_THRESHOLD
+                ? megaAsyncClient.downloadSegmented(remote, partial)
+                : megaAsyncClient.download(remote, partial.toString());
+        CompletableFuture<?> download = transferScheduler == null ? start.get()
+                : transferScheduler.submit(MegaTransfer.TYPE_DOWNLOAD, TransferScheduler.Priority.BULK, report,
+                        remote.getSize(), start);
+        download.whenComplete((result, failure) -> {
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                Files.setLastModifiedTime(partial, FileTime.from(remote.getModificationTime(), TimeUnit.SECONDS));
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                report.fileTransferred(remote.getSize());
+            } catch (Throwable e) {
+                report.fileFailed(target, e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /*
+     * Removes a remote node the source does not have once an in flight slot is free.
+     */
+    private void remove(final Path local, MegaNode remote, final Semaphore inFlight, final MirrorReport report)
+            throws InterruptedException {
+        inFlight.acquire();
+        megaAsyncClient.remove(remote).whenComplete((request, failure) -> {
+            if (failure == null) {
+                report.removed();
+            }
+            else {
+                report.fileFailed(local, failure);
+            }
+            inFlight.release();
+        });
+    }
+
+    /*
+     * Returns the path of a child of a local directory, or null if the name is not a single normal path segment.
+     */
+    private static Path childPath(Path directory, String name) {
+        try {
+            Path fileName = Paths.get(name).getFileName();
+            if (fileName == null || !fileName.toString().equals(name) || name.equals(".") || name.equals("..")) {
+                return null;
+            }
+            return directory.resolve(fileName);
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Returns the path a remote name is reported under: its local path, or the directory if it has none.
+     */
+    private static Path reportedPath(Path directory, String name) {
+        Path child = childPath(directory, name);
+        return child != null ? child : directory;
+    }
+
+    /*
+     * Deletes a local file, or a local directory with everything below it.
+     */
+    private static void deleteLocal(Path path) throws IOException {
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
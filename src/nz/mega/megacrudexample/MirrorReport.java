@@ -0,0 +1,165 @@
+package nz.mega.megacrudexample;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The results of a Mirror run: what was transferred, what was skipped because it was already up to date, and what
+ * was created, removed or failed.
+ * <p>
+ * The counters are updated from the MEGA SDK callback thread as each transfer finishes, so a report can be read
+ * while the mirror is still running to follow its progress.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class MirrorReport {
+
+    /*
+     * Counts of files transferred, skipped as unchanged and failed, and of folders created and nodes removed.
+     */
+    private final AtomicInteger filesTransferred = new AtomicInteger();
+    private final AtomicInteger filesSkipped = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private final AtomicInteger foldersCreated = new AtomicInteger();
+    private final AtomicInteger removed = new AtomicInteger();
+
+    /*
+     * Total size of the files transferred and of the files skipped as unchanged.
+     */
+    private final AtomicLong bytesTransferred = new AtomicLong();
+    private final AtomicLong bytesSkipped = new AtomicLong();
+
+    /*
+     * The number of unchanged files whose fingerprints were compared as well.
+     */
+    private final AtomicInteger fingerprintsCompared = new AtomicInteger();
+
+    /*
+     * The cause of every failure, keyed by the local path.
+     */
+    private final Map<Path, Throwable> failures = new ConcurrentHashMap<>();
+
+    /*
+     * Wall time of the whole run, set once the last transfer has finished.
+     */
+    private volatile long elapsedNanos;
+
+    void fileTransferred(long size) {
+        filesTransferred.incrementAndGet();
+        bytesTransferred.addAndGet(size);
+    }
+
+    void fileSkipped(long size) {
+        filesSkipped.incrementAndGet();
+        bytesSkipped.addAndGet(size);
+    }
+
+    void fingerprintCompared() {
+        fingerprintsCompared.incrementAndGet();
+    }
+
+    void fileFailed(Path localFile, Throwable cause) {
+        filesFailed.incrementAndGet();
+        failures.put(localFile, cause);
+    }
+
+    void folderFailed(Path localDirectory, Throwable cause) {
+        failures.put(localDirectory, cause);
+    }
+
+    void folderCreated() {
+        foldersCreated.incrementAndGet();
+    }
+
+    void removed() {
+        removed.incrementAndGet();
+    }
+
+    void finished(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return The number of files which have been uploaded or downloaded successfully
+     */
+    public int getFilesTransferred() {
+        return filesTransferred.get();
+    }
+
+    /**
+     * @return The number of files which were already up to date
+     */
+    public int getFilesSkipped() {
+        return filesSkipped.get();
+    }
+
+    /**
+     * @return The number of files which could not be transferred
+     */
+    public int getFilesFailed() {
+        return filesFailed.get();
+    }
+
+    /**
+     * @return The number of folders or directories which were created
+     */
+    public int getFoldersCreated() {
+        return foldersCreated.get();
+    }
+
+    /**
+     * @return The number of files and folders which were removed because the source has no such entry
+     */
+    public int getRemoved() {
+        return removed.get();
+    }
+
+    /**
+     * @return The total size in bytes of the files which have been transferred
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred.get();
+    }
+
+    /**
+     * @return The total size in bytes of the files which were already up to date and not transferred
+     */
+    public long getBytesSkipped() {
+        return bytesSkipped.get();
+    }
+
+    /**
+     * @return The number of files whose fingerprints were compared
+     */
+    public int getFingerprintsCompared() {
+        return fingerprintsCompared.get();
+    }
+
+    /**
+     * @return The cause of every failure, keyed by the local path
+     */
+    public Map<Path, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return The wall time of the whole run in nanoseconds, or 0 if it has not finished yet
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return "Mirrored: " + getFilesTransferred() + " files transferred (" + getBytesTransferred() + " bytes), "
+                + getFilesSkipped() + " unchanged (" + getBytesSkipped() + " bytes skipped, "
+                + getFingerprintsCompared() + " fingerprints compared), " + getFilesFailed() + " failed, "
+                + getFoldersCreated() + " folders created, " + getRemoved() + " removed in "
+                + String.format("%.2f", seconds) + " s";
+    }
+}
@@ -0,0 +1,113 @@
+package nz.mega.megacrudexample;
+
+/**
+ * One remote node change published by the ChangeFeed.
+ * <p>
+ * Events only hold values copied out of the MegaNode the SDK reported, so they stay valid after the SDK callback
+ * has returned.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public final class NodeChangeEvent {
+
+    private final long sequence;
+    private final NodeChangeType type;
+    private final long handle;
+    private final long parentHandle;
+    private final String name;
+    private final String previousName;
+    private final boolean folder;
+    private final long size;
+    private final long modificationTime;
+    private final long receivedMillis;
+
+    NodeChangeEvent(long sequence, NodeChangeType type, long handle, long parentHandle, String name,
+                    String previousName, boolean folder, long size, long modificationTime, long receivedMillis) {
+        this.sequence = sequence;
+        this.type = type;
+        this.handle = handle;
+        this.parentHandle = parentHandle;
+        this.name = name;
+        this.previousName = previousName;
+        this.folder = folder;
+        this.size = size;
+        this.modificationTime = modificationTime;
+        this.receivedMillis = receivedMillis;
+    }
+
+    /**
+     * @return The position of this event in the feed. Sequences increase by one per event.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return The kind of change
+     */
+    public NodeChangeType getType() {
+        return type;
+    }
+
+    /**
+     * @return The handle of the changed node
+     */
+    public long getHandle() {
+        return handle;
+    }
+
+    /**
+     * @return The handle of the node's parent folder after the change
+     */
+    public long getParentHandle() {
+        return parentHandle;
+    }
+
+    /**
+     * @return The name of the node after the change
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The name of a RENAMED node before the change, otherwise null
+     */
+    public String getPreviousName() {
+        return previousName;
+    }
+
+    /**
+     * @return True if the node is a folder
+     */
+    public boolean isFolder() {
+        return folder;
+    }
+
+    /**
+     * @return The size of the node in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return The modification time of the node in seconds since the epoch
+     */
+    public long getModificationTime() {
+        return modificationTime;
+    }
+
+    /**
+     * @return When the SDK reported the change, in milliseconds since the epoch
+     */
+    public long getReceivedMillis() {
+        return receivedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return sequence + " " + type + " " + (previousName != null ? previousName + " -> " : "") + name
+                + " (" + handle + ")";
+    }
+}
@@ -0,0 +1,29 @@
+package nz.mega.megacrudexample;
+
+/**
+ * Receives the events of a ChangeFeed subscription.
+ * <p>
+ * Methods are called in feed order from one thread at a time, never from the MEGA SDK callback thread, so a
+ * listener may take its time. A listener which falls more than the feed's capacity behind misses events and is told
+ * so through onOverrun().
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public interface NodeChangeListener {
+
+    /**
+     * Processes one node change.
+     *
+     * @param event The node change
+     */
+    void onChange(NodeChangeEvent event);
+
+    /**
+     * Reports that events were overwritten before this listener could receive them. The listener should
+     * resynchronise, for example by listing the affected folders again.
+     *
+     * @param missedEvents The number of events which were missed
+     */
+    default void onOverrun(long missedEvents) {
+    }
+}
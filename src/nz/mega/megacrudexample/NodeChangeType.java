@@ -0,0 +1,40 @@
+package nz.mega.megacrudexample;
+
+/**
+ * The kinds of remote node change published by the ChangeFeed.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public enum NodeChangeType {
+
+    /**
+     * A node was created, for example by an upload or a new folder.
+     */
+    CREATED,
+
+    /**
+     * A node was removed.
+     */
+    REMOVED,
+
+    /**
+     * A node's name changed.
+     */
+    RENAMED,
+
+    /**
+     * A node was moved to another parent folder.
+     */
+    MOVED,
+
+    /**
+     * Another attribute of a node changed, for example its timestamp, file attributes or sharing.
+     */
+    ATTRIBUTES_CHANGED,
+
+    /**
+     * The SDK reloaded the whole node tree. Subscribers must resynchronise, because individual changes were not
+     * reported.
+     */
+    RELOADED
+}
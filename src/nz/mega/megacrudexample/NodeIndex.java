@@ -0,0 +1,966 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+
+import static java.nio.file.Files.deleteIfExists;
+
+/**
+ * A compact index of the account's node tree held in a memory-mapped file, so that tree walks, size rollups and
+ * path lookups run over primitive columns instead of allocating a MegaNode for every node they touch.
+ * <p>
+ * Every node is one row. The handle, parent handle, size, modification time, name offset and length, first child,
+ * next sibling and flags of the rows are stored column by column, followed by an open addressing hash table from
+ * handle to row and the UTF-8 bytes of the names. The file lives next to the SDK local cache, so a resumed session
+ * can open it again instead of walking the whole tree. It is kept current by apply(), called from onNodesUpdate().
+ * <p>
+ * Removed rows and the bytes of replaced names are only reclaimed when the index runs out of room and is rewritten
+ * at twice the size. Queries may run on any thread. Visitors run under the read lock, so they must not update the
+ * index.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class NodeIndex {
+
+    /*
+     * Header layout: magic, format version, row capacity, name capacity, rows used, name bytes used, live rows,
+     * dirty flag, root handle and rubbish bin handle.
+     */
+    private static final int MAGIC = 0x4d4e4958;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int NAME_CAPACITY_OFFSET = 12;
+    private static final int ROWS_OFFSET = 16;
+    private static final int NAME_END_OFFSET = 20;
+    private static final int LIVE_OFFSET = 24;
+    private static final int DIRTY_OFFSET = 28;
+    private static final int ROOT_OFFSET = 32;
+    private static final int RUBBISH_OFFSET = 40;
+    private static final int HEADER_BYTES = 64;
+
+    /*
+     * Marks the end of a child list or a missing row.
+     */
+    private static final int NONE = -1;
+
+    private static final byte FLAG_FOLDER = 1;
+    private static final byte FLAG_REMOVED = 2;
+
+    /*
+     * The row capacity of a new index and the name bytes reserved per row.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NAME_BYTES_PER_ROW = 32;
+
+    /**
+     * Visits the nodes of a tree walk.
+     */
+    public interface NodeVisitor {
+
+        /**
+         * Visits one node.
+         *
+         * @param handle The handle of the node
+         * @param parentHandle The handle of the node's parent folder
+         * @param size The size of the node in bytes
+         * @param modificationTime The modification time of the node in seconds since the epoch
+         * @param folder True if the node is a folder
+         * @return True to carry on with the walk, false to stop it
+         */
+        boolean visit(long handle, long parentHandle, long size, long modificationTime, boolean folder);
+    }
+
+    /*
+     * The file the index is mapped from.
+     */
+    private final Path file;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /*
+     * The current index, or null if none has been loaded or built. Guarded by lock.
+     */
+    private Mapping mapping;
+
+    /*
+     * Copies of the node updates applied while a rebuild walks the tree, replayed onto the rebuilt index before it
+     * replaces the current one. Null when no rebuild is running. Guarded by lock.
+     */
+    private List<MegaNode> pendingUpdates;
+
+    /**
+     * Creates a new NodeIndex. Call load() or rebuild() before querying it.
+     *
+     * @param file The file the index is stored in
+     */
+    public NodeIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the index stored by a previous run.
+     *
+     * @return True if a complete index was opened, false if there is none or it was left half updated
+     */
+    public boolean load() {
+        try {
+            Mapping loaded = Mapping.open(file);
+            if (loaded == null) {
+                return false;
+            }
+            lock.writeLock().lock();
+            try {
+                mapping = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Builds the index by walking the node tree of the logged in account, and replaces the current index with it.
+     * <p>
+     * Queries keep using the current index, and updates keep being applied to it, until the new index is complete.
+     *
+     * @param megaApiJava The MEGA Java API object to walk the node tree of
+     * @throws IOException If the index file cannot be written
+     */
+    public synchronized void rebuild(MegaApiJava megaApiJava) throws IOException {
+        int capacity = INITIAL_CAPACITY;
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+            if (mapping != null) {
+                capacity = capacityFor(mapping.live());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Path building = file.resolveSibling(file.getFileName() + ".build");
+        try {
+            Mapping built = Mapping.create(building, capacity, capacity * NAME_BYTES_PER_ROW);
+            MegaNode root = megaApiJava.getRootNode();
+            MegaNode rubbish = megaApiJava.getRubbishNode();
+            built.setTopHandles(root == null ? MegaApiJava.INVALID_HANDLE : root.getHandle(),
+                    rubbish == null ? MegaApiJava.INVALID_HANDLE : rubbish.getHandle());
+            ArrayDeque<MegaNode> folders = new ArrayDeque<>();
+            for (MegaNode top : new MegaNode[]{root, rubbish}) {
+                if (top != null) {
+                    built = update(built, building, top);
+                    folders.add(top);
+                }
+            }
+            // Breadth first, so that every parent is indexed before its children
+            while (!folders.isEmpty()) {
+                List<MegaNode> children = megaApiJava.getChildren(folders.poll());
+                if (children == null) {
+                    continue;
+                }
+                for (MegaNode child : children) {
+                    built = update(built, building, child);
+                    if (child.isFolder()) {
+                        folders.add(child);
+                    }
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                for (MegaNode node : pendingUpdates) {
+                    built = update(built, building, node);
+                }
+                built.force();
+                Files.move(building, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                mapping = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            pendingUpdates = null;
+            lock.writeLock().unlock();
+            deleteIfExists(building);
+        }
+    }
+
+    /**
+     * Applies the node changes reported by onNodesUpdate().
+     * <p>
+     * A null list means the SDK reloaded the whole node tree, which can only be followed by a rebuild().
+     *
+     * @param nodes The changed nodes
+     */
+    public void apply(List<MegaNode> nodes) {
+        if (nodes == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                for (MegaNode node : nodes) {
+                    pendingUpdates.add(node.copy());
+                }
+            }
+            if (mapping == null) {
+                return;
+            }
+            // A crash half way through leaves the dirty flag set, so the next run rebuilds instead of loading
+            Mapping current = mapping;
+            current.setDirty(true);
+            for (MegaNode node : nodes) {
+                current = update(current, file, node);
+            }
+            current.setDirty(false);
+            mapping = current;
+        } catch (IOException e) {
+            e.printStackTrace();
+            mapping = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The handle of the root node the index was built from, or INVALID_HANDLE if there is no index
+     */
+    public long getRootHandle() {
+        lock.readLock().lock();
+        try {
+            return mapping == null ? MegaApiJava.INVALID_HANDLE : mapping.rootHandle();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of nodes in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return mapping == null ? 0 : mapping.live();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param handle A node handle
+     * @return True if the node is in the index
+     */
+    public boolean contains(long handle) {
+        lock.readLock().lock();
+        try {
+            return liveRow(handle) != NONE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param handle A node handle
+     * @return The name of the node, or null if it is not in the index
+     */
+    public String getName(long handle) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            return row == NONE ? null : mapping.name(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param handle A node handle
+     * @return The handle of the node's parent folder, or INVALID_HANDLE if the node is not in the index
+     */
+    public long getParentHandle(long handle) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            return row == NONE ? MegaApiJava.INVALID_HANDLE : mapping.parent(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param handle A node handle
+     * @return The size of the node in bytes, or -1 if it is not in the index
+     */
+    public long getSize(long handle) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            return row == NONE ? -1 : mapping.size(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param handle A node handle
+     * @return The modification time of the node in seconds since the epoch, or -1 if it is not in the index
+     */
+    public long getModificationTime(long handle) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            return row == NONE ? -1 : mapping.modificationTime(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param handle A node handle
+     * @return True if the node is a folder in the index
+     */
+    public boolean isFolder(long handle) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            return row != NONE && mapping.isFolder(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the path of a node in the same format as MegaApiJava.getNodePath(), for example /sandbox/README.rst.
+     *
+     * @param handle A node handle
+     * @return The path of the node, or null if it is not in the index
+     */
+    public String getPath(long handle) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            if (row == NONE) {
+                return null;
+            }
+            List<String> names = new ArrayList<>();
+            while (row != NONE && mapping.handle(row) != mapping.rootHandle()) {
+                if (mapping.handle(row) == mapping.rubbishHandle()) {
+                    names.add("/bin");
+                    break;
+                }
+                names.add(mapping.name(row));
+                row = mapping.find(mapping.parent(row));
+            }
+            StringBuilder path = new StringBuilder();
+            for (int i = names.size() - 1; i >= 0; i--) {
+                path.append('/').append(names.get(i));
+            }
+            return path.length() == 0 ? "/" : path.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resolves a path in the same way as MegaApiJava.getNodeByPath(), comparing the UTF-8 bytes of each path
+     * element with the stored names in place.
+     *
+     * @param path A path, absolute or relative to the base folder
+     * @param baseHandle The handle of the folder relative paths start from, or INVALID_HANDLE for the root
+     * @return The handle of the node, or INVALID_HANDLE if no node has that path
+     */
+    public long getHandleByPath(String path, long baseHandle) {
+        lock.readLock().lock();
+        try {
+            if (mapping == null) {
+                return MegaApiJava.INVALID_HANDLE;
+            }
+            int row = path.startsWith("/") || baseHandle == MegaApiJava.INVALID_HANDLE
+                    ? liveRow(mapping.rootHandle()) : liveRow(baseHandle);
+            for (String element : path.split("/")) {
+                if (row == NONE) {
+                    break;
+                }
+                if (element.isEmpty() || element.equals(".")) {
+                    continue;
+                }
+                if (element.equals("..")) {
+                    row = liveRow(mapping.parent(row));
+                    continue;
+                }
+                byte[] name = element.getBytes(StandardCharsets.UTF_8);
+                int child = mapping.firstChild(row);
+                while (child != NONE && !mapping.nameEquals(child, name)) {
+                    child = mapping.nextSibling(child);
+                }
+                row = child;
+            }
+            return row == NONE ? MegaApiJava.INVALID_HANDLE : mapping.handle(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits the direct children of a folder.
+     *
+     * @param handle The handle of the folder
+     * @param visitor Visits each child, and may stop early
+     */
+    public void forEachChild(long handle, NodeVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            for (int child = row == NONE ? NONE : mapping.firstChild(row); child != NONE;
+                 child = mapping.nextSibling(child)) {
+                if (!visit(child, visitor)) {
+                    return;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every node below a folder, depth first.
+     *
+     * @param handle The handle of the folder
+     * @param visitor Visits each node, and may stop the walk early
+     */
+    public void forEachDescendant(long handle, NodeVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            if (row != NONE) {
+                walk(row, visitor);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param handle A node handle
+     * @return The total size in bytes of the files in and below a folder, the size of a file, or -1 if the node is
+     * not in the index
+     */
+    public long getTotalSize(long handle) {
+        lock.readLock().lock();
+        try {
+            int row = liveRow(handle);
+            if (row == NONE) {
+                return -1;
+            }
+            if (!mapping.isFolder(row)) {
+                return mapping.size(row);
+            }
+            long[] total = new long[1];
+            walk(row, (child, parent, size, modificationTime, folder) -> {
+                if (!folder) {
+                    total[0] += size;
+                }
+                return true;
+            });
+            return total[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes any changes of the index to the file.
+     */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (mapping != null) {
+                mapping.force();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the index and removes its file, for example when the session ends.
+     */
+    public void delete() {
+        lock.writeLock().lock();
+        try {
+            mapping = null;
+            deleteIfExists(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.readLock().lock();
+        try {
+            return mapping == null ? "Node index: none"
+                    : "Node index: " + mapping.live() + " nodes, " + mapping.length() + " bytes mapped";
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Returns the row of a node which has not been removed, or NONE.
+     */
+    private int liveRow(long handle) {
+        if (mapping == null) {
+            return NONE;
+        }
+        int row = mapping.find(handle);
+        return row == NONE || mapping.isRemoved(row) ? NONE : row;
+    }
+
+    private boolean visit(int row, NodeVisitor visitor) {
+        return visitor.visit(mapping.handle(row), mapping.parent(row), mapping.size(row),
+                mapping.modificationTime(row), mapping.isFolder(row));
+    }
+
+    /*
+     * Depth first walk along the child and sibling links, climbing back up through the parent handles, so that no
+     * stack has to be allocated however deep the tree is.
+     */
+    private void walk(int start, NodeVisitor visitor) {
+        int row = mapping.firstChild(start);
+        while (row != NONE) {
+            if (!visit(row, visitor)) {
+                return;
+            }
+            int child = mapping.firstChild(row);
+            if (child != NONE) {
+                row = child;
+                continue;
+            }
+            while (row != start && row != NONE) {
+                int sibling = mapping.nextSibling(row);
+                if (sibling != NONE) {
+                    row = sibling;
+                    break;
+                }
+                row = mapping.find(mapping.parent(row));
+            }
+            if (row == start) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * Applies one changed node to an index, growing it first if it may run out of room. Returns the index to use
+     * from then on.
+     */
+    private static Mapping update(Mapping target, Path targetFile, MegaNode node) throws IOException {
+        long handle = node.getHandle();
+        if (node.hasChanged(MegaNode.CHANGE_TYPE_REMOVED)) {
+            int row = target.find(handle);
+            if (row != NONE && !target.isRemoved(row)) {
+                target.remove(row);
+            }
+            return target;
+        }
+        byte[] name = node.getName() == null ? new byte[0] : node.getName().getBytes(StandardCharsets.UTF_8);
+        Mapping current = target;
+        if (!current.hasRoom(name.length)) {
+            current = grow(current, targetFile, name.length);
+        }
+        int row = current.find(handle);
+        if (row == NONE || current.isRemoved(row)) {
+            row = current.insert(handle, node.getParentHandle(), node.getSize(), node.getModificationTime(),
+                    node.isFolder(), name, row);
+            current.link(row);
+            return current;
+        }
+        if (current.parent(row) != node.getParentHandle()) {
+            current.unlink(row);
+            current.setParent(row, node.getParentHandle());
+            current.link(row);
+        }
+        if (!current.nameEquals(row, name)) {
+            current.setName(row, name);
+        }
+        current.setSize(row, node.getSize());
+        current.setModificationTime(row, node.getModificationTime());
+        return current;
+    }
+
+    /*
+     * Rewrites an index at twice its size without its removed rows and replaced names, and moves it over the
+     * original file.
+     */
+    private static Mapping grow(Mapping from, Path targetFile, int nameBytesNeeded) throws IOException {
+        int capacity = capacityFor(from.live() + 1);
+        long nameCapacity = Math.max((long) capacity * NAME_BYTES_PER_ROW,
+                2L * (from.nameEnd() + nameBytesNeeded));
+        if (nameCapacity > Integer.MAX_VALUE) {
+            throw new IOException("Node index names do not fit in one mapping");
+        }
+        Path growing = targetFile.resolveSibling(targetFile.getFileName() + ".grow");
+        Mapping to = Mapping.create(growing, capacity, (int) nameCapacity);
+        to.setTopHandles(from.rootHandle(), from.rubbishHandle());
+        to.setDirty(from.isDirty());
+        for (int row = 0; row < from.rows(); row++) {
+            if (!from.isRemoved(row)) {
+                to.insert(from.handle(row), from.parent(row), from.size(row), from.modificationTime(row),
+                        from.isFolder(row), from.nameBytes(row), NONE);
+            }
+        }
+        // Link once every row exists, as rows are no longer in parent first order after nodes have moved
+        for (int row = 0; row < to.rows(); row++) {
+            to.link(row);
+        }
+        Files.move(growing, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return to;
+    }
+
+    /*
+     * The power of two row capacity which leaves room for twice the given number of rows.
+     */
+    private static int capacityFor(int rows) {
+        long wanted = Math.max(INITIAL_CAPACITY, 2L * rows);
+        if (wanted > 1 << 24) {
+            throw new IllegalStateException("Too many nodes for one node index mapping: " + rows);
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    /*
+     * One mapped index file and the offsets of its columns.
+     */
+    private static final class Mapping {
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final int nameCapacity;
+        private final int tableMask;
+        private final int handles;
+        private final int parents;
+        private final int sizes;
+        private final int modificationTimes;
+        private final int nameOffsets;
+        private final int nameLengths;
+        private final int firstChildren;
+        private final int nextSiblings;
+        private final int table;
+        private final int flags;
+        private final int names;
+
+        private Mapping(MappedByteBuffer buffer, int capacity, int nameCapacity) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.nameCapacity = nameCapacity;
+            this.tableMask = 2 * capacity - 1;
+            this.handles = HEADER_BYTES;
+            this.parents = handles + 8 * capacity;
+            this.sizes = parents + 8 * capacity;
+            this.modificationTimes = sizes + 8 * capacity;
+            this.nameOffsets = modificationTimes + 8 * capacity;
+            this.nameLengths = nameOffsets + 4 * capacity;
+            this.firstChildren = nameLengths + 4 * capacity;
+            this.nextSiblings = firstChildren + 4 * capacity;
+            this.table = nextSiblings + 4 * capacity;
+            this.flags = table + 8 * capacity;
+            this.names = flags + capacity;
+        }
+
+        private static long length(int capacity, int nameCapacity) {
+            return HEADER_BYTES + 57L * capacity + nameCapacity;
+        }
+
+        static Mapping create(Path file, int capacity, int nameCapacity) throws IOException {
+            long length = length(capacity, nameCapacity);
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Node index does not fit in one mapping: " + capacity + " rows");
+            }
+            deleteIfExists(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                Mapping mapping = new Mapping(channel.map(FileChannel.MapMode.READ_WRITE, 0, length), capacity,
+                        nameCapacity);
+                mapping.buffer.putInt(MAGIC_OFFSET, MAGIC);
+                mapping.buffer.putInt(VERSION_OFFSET, VERSION);
+                mapping.buffer.putInt(CAPACITY_OFFSET, capacity);
+                mapping.buffer.putInt(NAME_CAPACITY_OFFSET, nameCapacity);
+                return mapping;
+            }
+        }
+
+        /*
+         * Returns null if the file does not hold a complete index of this format.
+         */
+        static Mapping open(Path file) throws IOException {
+            if (!Files.isRegularFile(file) || Files.size(file) < HEADER_BYTES) {
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                int capacity = header.getInt(CAPACITY_OFFSET);
+                int nameCapacity = header.getInt(NAME_CAPACITY_OFFSET);
+                if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION
+                        || header.getInt(DIRTY_OFFSET) != 0 || capacity <= 0 || nameCapacity < 0
+                        || channel.size() != length(capacity, nameCapacity)) {
+                    return null;
+                }
+                return new Mapping(channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), capacity,
+                        nameCapacity);
+            }
+        }
+
+        int length() {
+            return buffer.capacity();
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        int rows() {
+            return buffer.getInt(ROWS_OFFSET);
+        }
+
+        int live() {
+            return buffer.getInt(LIVE_OFFSET);
+        }
+
+        int nameEnd() {
+            return buffer.getInt(NAME_END_OFFSET);
+        }
+
+        boolean isDirty() {
+            return buffer.getInt(DIRTY_OFFSET) != 0;
+        }
+
+        void setDirty(boolean dirty) {
+            buffer.putInt(DIRTY_OFFSET, dirty ? 1 : 0);
+        }
+
+        long rootHandle() {
+            return buffer.getLong(ROOT_OFFSET);
+        }
+
+        long rubbishHandle() {
+            return buffer.getLong(RUBBISH_OFFSET);
+        }
+
+        void setTopHandles(long rootHandle, long rubbishHandle) {
+            buffer.putLong(ROOT_OFFSET, rootHandle);
+            buffer.putLong(RUBBISH_OFFSET, rubbishHandle);
+        }
+
+        boolean hasRoom(int nameBytes) {
+            return rows() < capacity && (long) nameEnd() + nameBytes <= nameCapacity;
+        }
+
+        long handle(int row) {
+            return buffer.getLong(handles + 8 * row);
+        }
+
+        long parent(int row) {
+            return buffer.getLong(parents + 8 * row);
+        }
+
+        void setParent(int row, long parentHandle) {
+            buffer.putLong(parents + 8 * row, parentHandle);
+        }
+
+        long size(int row) {
+            return buffer.getLong(sizes + 8 * row);
+        }
+
+        void setSize(int row, long size) {
+            buffer.putLong(sizes + 8 * row, size);
+        }
+
+        long modificationTime(int row) {
+            return buffer.getLong(modificationTimes + 8 * row);
+        }
+
+        void setModificationTime(int row, long modificationTime) {
+            buffer.putLong(modificationTimes + 8 * row, modificationTime);
+        }
+
+        int firstChild(int row) {
+            return buffer.getInt(firstChildren + 4 * row);
+        }
+
+        int nextSibling(int row) {
+            return buffer.getInt(nextSiblings + 4 * row);
+        }
+
+        boolean isFolder(int row) {
+            return (buffer.get(flags + row) & FLAG_FOLDER) != 0;
+        }
+
+        boolean isRemoved(int row) {
+            return (buffer.get(flags + row) & FLAG_REMOVED) != 0;
+        }
+
+        String name(int row) {
+            return new String(nameBytes(row), StandardCharsets.UTF_8);
+        }
+
+        byte[] nameBytes(int row) {
+            byte[] name = new byte[buffer.getInt(nameLengths + 4 * row)];
+            int offset = names + buffer.getInt(nameOffsets + 4 * row);
+            for (int i = 0; i < name.length; i++) {
+                name[i] = buffer.get(offset + i);
+            }
+            return name;
+        }
+
+        boolean nameEquals(int row, byte[] name) {
+            if (buffer.getInt(nameLengths + 4 * row) != name.length) {
+                return false;
+            }
+            int offset = names + buffer.getInt(nameOffsets + 4 * row);
+            for (int i = 0; i < name.length; i++) {
+                if (buffer.get(offset + i) != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /*
+         * Appends the name bytes. The caller has checked there is room.
+         */
+        void setName(int row, byte[] name) {
+            int end = nameEnd();
+            for (int i = 0; i < name.length; i++) {
+                buffer.put(names + end + i, name[i]);
+            }
+            buffer.putInt(nameOffsets + 4 * row, end);
+            buffer.putInt(nameLengths + 4 * row, name.length);
+            buffer.putInt(NAME_END_OFFSET, end + name.length);
+        }
+
+        /*
+         * Returns the row of a handle, including removed rows, or NONE.
+         */
+        int find(long handle) {
+            int slot = hash(handle) & tableMask;
+            while (true) {
+                int entry = buffer.getInt(table + 4 * slot);
+                if (entry == 0) {
+                    return NONE;
+                }
+                if (handle(entry - 1) == handle) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & tableMask;
+            }
+        }
+
+        /*
+         * Writes a node into a new row, or back into its removed row. The caller has checked there is room.
+         */
+        int insert(long handle, long parentHandle, long size, long modificationTime, boolean folder, byte[] name,
+                   int removedRow) {
+            int row = removedRow;
+            if (row == NONE) {
+                row = rows();
+                buffer.putInt(ROWS_OFFSET, row + 1);
+                buffer.putLong(handles + 8 * row, handle);
+                int slot = hash(handle) & tableMask;
+                while (buffer.getInt(table + 4 * slot) != 0) {
+                    slot = (slot + 1) & tableMask;
+                }
+                buffer.putInt(table + 4 * slot, row + 1);
+            }
+            buffer.putLong(parents + 8 * row, parentHandle);
+            buffer.putLong(sizes + 8 * row, size);
+            buffer.putLong(modificationTimes + 8 * row, modificationTime);
+            buffer.putInt(firstChildren + 4 * row, NONE);
+            buffer.putInt(nextSiblings + 4 * row, NONE);
+            buffer.put(flags + row, folder ? FLAG_FOLDER : 0);
+            setName(row, name);
+            buffer.putInt(LIVE_OFFSET, live() + 1);
+            return row;
+        }
+
+        /*
+         * Adds a row to the front of its parent's child list. A row whose parent is not indexed stays unlinked.
+         */
+        void link(int row) {
+            int parentRow = find(parent(row));
+            if (parentRow == NONE || parentRow == row || isRemoved(parentRow)) {
+                buffer.putInt(nextSiblings + 4 * row, NONE);
+                return;
+            }
+            buffer.putInt(nextSiblings + 4 * row, firstChild(parentRow));
+            buffer.putInt(firstChildren + 4 * parentRow, row);
+        }
+
+        void unlink(int row) {
+            int parentRow = find(parent(row));
+            if (parentRow == NONE) {
+                return;
+            }
+            int previous = NONE;
+            int current = firstChild(parentRow);
+            while (current != NONE && current != row) {
+                previous = current;
+                current = nextSibling(current);
+            }
+            if (current == NONE) {
+                return;
+            }
+            if (previous == NONE) {
+                buffer.putInt(firstChildren + 4 * parentRow, nextSibling(row));
+            }
+            else {
+                buffer.putInt(nextSiblings + 4 * previous, nextSibling(row));
+            }
+            buffer.putInt(nextSiblings + 4 * row, NONE);
+        }
+
+        /*
+         * Marks a row and every row below it as removed.
+         */
+        void remove(int row) {
+            unlink(row);
+            int removed = 0;
+            ArrayDeque<Integer> pending = new ArrayDeque<>();
+            pending.add(row);
+            while (!pending.isEmpty()) {
+                int current = pending.poll();
+                if (isRemoved(current)) {
+                    continue;
+                }
+                buffer.put(flags + current, (byte) (buffer.get(flags + current) | FLAG_REMOVED));
+                removed++;
+                for (int child = firstChild(current); child != NONE; child = nextSibling(child)) {
+                    pending.add(child);
+                }
+            }
+            buffer.putInt(LIVE_OFFSET, live() - removed);
+        }
+
+        private static int hash(long handle) {
+            long mixed = handle * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package nz.mega.megacrudexample;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+
+/**
+ * A client side cache of path to node lookups in front of MegaApiJava.getNodeByPath().
+ * <p>
+ * Every getNodeByPath() call crosses JNI into the SDK's node tree. Resolved nodes are kept in a hash map keyed by
+ * the parent handle and relative path, so repeated lookups of hot paths are a single hash lookup.
+ * <p>
+ * The cache is kept correct by invalidate(), which must be called from onNodesUpdate(). A changed file only
+ * invalidates its own entries. A folder which is removed, moved or renamed changes the path of everything below it,
+ * so it clears the whole cache. Lookups which find nothing are not cached, so newly created nodes are found.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class NodePathCache {
+
+    /*
+     * The megaApiJava object cache misses are resolved with.
+     */
+    private final MegaApiJava megaApiJava;
+
+    /*
+     * Resolved nodes keyed by parent handle and relative path.
+     */
+    private final Map<String, MegaNode> nodesByPath = new ConcurrentHashMap<>();
+
+    /*
+     * The cache keys of every cached node, so a changed node's entries can be found without scanning the cache.
+     */
+    private final Map<Long, Set<String>> pathsByHandle = new ConcurrentHashMap<>();
+
+    /*
+     * Incremented by every invalidation, whether or not it removed anything, so that a lookup racing with an
+     * invalidation does not cache a stale node.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Creates a new NodePathCache.
+     *
+     * @param megaApiJava The MEGA Java API object cache misses are resolved with
+     */
+    public NodePathCache(MegaApiJava megaApiJava) {
+        this.megaApiJava = megaApiJava;
+    }
+
+    /**
+     * Returns the node at a path relative to a parent node, from the cache if possible.
+     *
+     * @param path The path of the node relative to parent
+     * @param parent The node the path is relative to
+     * @return The node at the path, or null if there is no such node
+     */
+    public MegaNode getNodeByPath(String path, MegaNode parent) {
+        String key = parent.getHandle() + ":" + path;
+        MegaNode node = nodesByPath.get(key);
+        if (node != null) {
+            hits.increment();
+            return node;
+        }
+        misses.increment();
+        long lookupGeneration = generation.get();
+        node = megaApiJava.getNodeByPath(path, parent);
+        if (node != null) {
+            pathsByHandle.computeIfAbsent(node.getHandle(), handle -> ConcurrentHashMap.newKeySet()).add(key);
+            nodesByPath.put(key, node);
+            // Drop the entry again if the tree changed while the SDK was being asked
+            if (generation.get() != lookupGeneration) {
+                nodesByPath.remove(key);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Invalidates the entries affected by a nodes update.
+     *
+     * @param nodes The changed nodes passed to onNodesUpdate(), or null if the whole tree was reloaded
+     */
+    public void invalidate(List<MegaNode> nodes) {
+        if (nodes == null) {
+            clear();
+            return;
+        }
+        for (MegaNode node : nodes) {
+            invalidate(node);
+        }
+    }
+
+    /**
+     * Invalidates the entries affected by a change to one node.
+     *
+     * @param node The node which has been changed or removed
+     */
+    public void invalidate(MegaNode node) {
+        if (!node.isFile() && (node.hasChanged(MegaNode.CHANGE_TYPE_REMOVED)
+                || node.hasChanged(MegaNode.CHANGE_TYPE_PARENT)
+                || node.hasChanged(MegaNode.CHANGE_TYPE_ATTRIBUTES))) {
+            // Every path below a removed, moved or renamed folder has changed
+            clear();
+            return;
+        }
+        // Bumped even when nothing is cached yet, so that a lookup of this node still in flight is not cached
+        generation.incrementAndGet();
+        Set<String> keys = pathsByHandle.remove(node.getHandle());
+        if (keys != null) {
+            invalidations.increment();
+            for (String key : keys) {
+                nodesByPath.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        invalidations.increment();
+        nodesByPath.clear();
+        pathsByHandle.clear();
+    }
+
+    /**
+     * @return The number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups which had to be resolved by the MEGA SDK
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of times entries were invalidated or the cache was cleared
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return The fraction of lookups answered from the cache, or 0 if there have been no lookups
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return The number of cached paths
+     */
+    public int size() {
+        return nodesByPath.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Path cache: " + size() + " entries, " + getHits() + " hits, " + getMisses() + " misses ("
+                + String.format("%.1f", 100 * getHitRatio()) + " %), " + getInvalidations() + " invalidations";
+    }
+}
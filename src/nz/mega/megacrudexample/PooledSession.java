@@ -0,0 +1,242 @@
+package nz.mega.megacrudexample;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaContactRequest;
+import nz.mega.sdk.MegaGlobalListenerInterface;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaUser;
+
+/**
+ * One MegaApiJava instance of a SessionPool, with its own credentials, cache directory, saved session, path cache
+ * and utilization counters.
+ * <p>
+ * Operations started through run() are counted while they are in flight. The utilization is the share of wall
+ * time since the session was created during which at least one operation was in flight.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class PooledSession implements MegaGlobalListenerInterface {
+
+    /*
+     * The name of the file the session key is saved in, inside the session's cache directory.
+     */
+    private static final String SESSION_FILE_NAME = ".megacrud_session";
+
+    private final int index;
+    private final String userEmail;
+    private final String password;
+    private final Path cacheDirectory;
+    private final MegaApiJava megaApiJava;
+    private final MegaAsyncClient megaAsyncClient;
+    private final NodePathCache nodePathCache;
+    private final SessionStore sessionStore;
+
+    /*
+     * Utilization counters. busyNanos and busySince are guarded by this object's monitor.
+     */
+    private final long createdNanos = System.nanoTime();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private long busyNanos;
+    private long busySince;
+
+    /**
+     * Creates a new PooledSession and registers it as a global listener of its MegaApiJava object.
+     *
+     * @param index The position of the session in its pool
+     * @param userEmail The user's MEGA registered email address
+     * @param password The user's MEGA password
+     * @param cacheDirectory The directory of the SDK local cache and the saved session
+     * @param megaApiJava The MEGA Java API object using cacheDirectory
+     */
+    PooledSession(int index, String userEmail, String password, Path cacheDirectory, MegaApiJava megaApiJava) {
+        this.index = index;
+        this.userEmail = userEmail;
+        this.password = password;
+        this.cacheDirectory = cacheDirectory;
+        this.megaApiJava = megaApiJava;
+        this.megaAsyncClient = new MegaAsyncClient(megaApiJava);
+        this.nodePathCache = new NodePathCache(megaApiJava);
+        this.sessionStore = new SessionStore(cacheDirectory.resolve(SESSION_FILE_NAME));
+        megaApiJava.addGlobalListener(this);
+    }
+
+    /**
+     * Logs in, resuming the session saved in the cache directory if there is one, and fetches the nodes.
+     * <p>
+     * A resumed session is only kept if it belongs to this session's account. Otherwise it is logged out locally
+     * and the account logs in with its credentials instead.
+     *
+     * @return A future which completes once the nodes have been fetched
+     */
+    public CompletableFuture<Void> login() {
+        String saved = sessionStore.load();
+        CompletableFuture<MegaRequest> loggedIn;
+        if (saved == null) {
+            loggedIn = run(client -> client.login(userEmail, password));
+        }
+        else {
+            loggedIn = run(client -> client.fastLogin(saved)).handle((request, failure) -> {
+                if (failure == null && userEmail.equalsIgnoreCase(megaApiJava.getMyEmail())) {
+                    return CompletableFuture.completedFuture(request);
+                }
+                sessionStore.clear();
+                if (failure == null) {
+                    // The saved session is another account's: leave it valid for that account
+                    return run(MegaAsyncClient::localLogout)
+                            .thenCompose(logout -> run(client -> client.login(userEmail, password)));
+                }
+                return run(client -> client.login(userEmail, password));
+            }).thenCompose(future -> future);
+        }
+        return loggedIn.thenCompose(request -> run(MegaAsyncClient::fetchNodes))
+                .thenAccept(request -> sessionStore.save(megaApiJava.dumpSession()));
+    }
+
+    /**
+     * Logs out locally, keeping the saved session valid so that it can be resumed.
+     *
+     * @return A future which completes once logged out
+     */
+    public CompletableFuture<MegaRequest> logout() {
+        return run(MegaAsyncClient::localLogout).whenComplete((request, failure) -> nodePathCache.clear());
+    }
+
+    /**
+     * Runs an operation on this session and counts it while it is in flight.
+     *
+     * @param operation Starts the operation on this session's client
+     * @param <T> The result type of the operation
+     * @return The future of the operation
+     */
+    public <T> CompletableFuture<T> run(Function<MegaAsyncClient, CompletableFuture<T>> operation) {
+        begin();
+        CompletableFuture<T> future;
+        try {
+            future = operation.apply(megaAsyncClient);
+        } catch (RuntimeException e) {
+            end(false);
+            throw e;
+        }
+        return future.whenComplete((result, failure) -> end(failure == null));
+    }
+
+    /**
+     * @return The user's MEGA registered email address
+     */
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    /**
+     * @return The directory of the SDK local cache and the saved session
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * @return The MEGA Java API object of this session
+     */
+    public MegaApiJava getApi() {
+        return megaApiJava;
+    }
+
+    /**
+     * @return The path cache of this session, kept current by its nodes updates
+     */
+    public NodePathCache getNodePathCache() {
+        return nodePathCache;
+    }
+
+    /**
+     * @return The number of operations in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return The number of operations which succeeded
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * @return The number of operations which failed
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return The share of wall time since this session was created during which at least one operation was in
+     * flight, between 0 and 1
+     */
+    public synchronized double getUtilization() {
+        long now = System.nanoTime();
+        long busy = busyNanos + (inFlight.get() > 0 ? now - busySince : 0);
+        long elapsed = now - createdNanos;
+        return elapsed <= 0 ? 0 : Math.min(1, (double) busy / elapsed);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Session %d (%s): in flight=%d completed=%d failed=%d utilization=%.1f%%", index,
+                userEmail, getInFlight(), getCompleted(), getFailed(), getUtilization() * 100);
+    }
+
+    private synchronized void begin() {
+        if (inFlight.getAndIncrement() == 0) {
+            busySince = System.nanoTime();
+        }
+    }
+
+    private synchronized void end(boolean success) {
+        (success ? completed : failed).increment();
+        if (inFlight.decrementAndGet() == 0) {
+            busyNanos += System.nanoTime() - busySince;
+        }
+    }
+
+    /**
+     * Invalidates the cached paths of nodes which have been renamed, moved or removed in this session.
+     *
+     * @param api The MEGA Java API object which called the nodes update
+     * @param nodes The changed nodes, or null if the whole node tree has been reloaded
+     */
+    @Override
+    public void onNodesUpdate(MegaApiJava api, ArrayList<MegaNode> nodes) {
+        nodePathCache.invalidate(nodes);
+    }
+
+    @Override
+    public void onReloadNeeded(MegaApiJava api) {
+        nodePathCache.clear();
+    }
+
+    @Override
+    public void onUsersUpdate(MegaApiJava api, ArrayList<MegaUser> users) {
+
+    }
+
+    @Override
+    public void onAccountUpdate(MegaApiJava api) {
+
+    }
+
+    @Override
+    public void onContactRequestsUpdate(MegaApiJava api, ArrayList<MegaContactRequest> requests) {
+
+    }
+}
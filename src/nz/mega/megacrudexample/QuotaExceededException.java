@@ -0,0 +1,22 @@
+package nz.mega.megacrudexample;
+
+/**
+ * An exception which reports that an upload was not started because it would take the account over its storage
+ * quota.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class QuotaExceededException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new QuotaExceededException.
+     *
+     * @param bytes The size of the upload which was refused
+     * @param availableBytes The storage left once the uploads already admitted have finished
+     */
+    public QuotaExceededException(long bytes, long availableBytes) {
+        super("Upload of " + bytes + " bytes exceeds the storage quota, " + availableBytes + " bytes available");
+    }
+}
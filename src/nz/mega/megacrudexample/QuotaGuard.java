@@ -0,0 +1,177 @@
+package nz.mega.megacrudexample;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import nz.mega.sdk.MegaAccountDetails;
+
+/**
+ * Refuses uploads which would take the account over its storage quota before any of their data is sent, using a
+ * cached snapshot of the account details instead of a round trip per upload.
+ * <p>
+ * Every upload reserves its size against the storage left: the quota, less the storage used when the snapshot was
+ * taken, less the uploads which have finished since then, less the uploads still in flight. An upload which does not
+ * fit is refused. A finished upload's reservation is committed until the next snapshot includes it, and a failed
+ * one is released.
+ * <p>
+ * The snapshot is fetched again in the background when a reservation finds it older than the time to live, so
+ * reservations never wait for it, and straight away when onAccountUpdate() reports that the account has changed.
+ * Until the first snapshot has arrived every upload is admitted. Files removed since the snapshot was taken are only
+ * counted as free once it has been refreshed, so the guard errs towards refusing.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class QuotaGuard {
+
+    private final MegaAsyncClient megaAsyncClient;
+    private final long timeToLiveNanos;
+
+    /*
+     * The latest snapshot, when it was requested, and the refresh in flight if there is one. Guarded by this
+     * object's monitor, as are the byte counts below.
+     */
+    private MegaAccountDetails snapshot;
+    private long snapshotNanos;
+    private CompletableFuture<MegaAccountDetails> refreshing;
+
+    /*
+     * Bytes of admitted uploads still in flight, and of finished uploads which the snapshot does not include yet.
+     */
+    private long reservedBytes;
+    private long committedBytes;
+
+    /*
+     * The committed bytes when the refresh in flight was started. The snapshot it returns includes those uploads.
+     */
+    private long committedAtRefresh;
+
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    /**
+     * Creates a new QuotaGuard. No snapshot is fetched until refresh() is called or the first upload is reserved.
+     *
+     * @param megaAsyncClient The client to fetch the account details with
+     * @param timeToLive How long a snapshot is used before it is fetched again
+     * @param unit The unit of timeToLive
+     */
+    public QuotaGuard(MegaAsyncClient megaAsyncClient, long timeToLive, TimeUnit unit) {
+        this.megaAsyncClient = megaAsyncClient;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Reserves storage for an upload.
+     *
+     * @param bytes The size of the upload
+     * @throws QuotaExceededException If the upload would take the account over its storage quota
+     */
+    public void reserve(long bytes) throws QuotaExceededException {
+        synchronized (this) {
+            if (snapshot != null) {
+                long available = getAvailableBytes();
+                if (bytes > available) {
+                    refused.increment();
+                    throw new QuotaExceededException(bytes, available);
+                }
+            }
+            reservedBytes += bytes;
+            if (snapshot != null && System.nanoTime() - snapshotNanos < timeToLiveNanos) {
+                return;
+            }
+        }
+        // Stale or missing: this upload goes ahead on the old snapshot and later ones use the new one
+        refresh();
+    }
+
+    /**
+     * Turns the reservation of a finished upload into storage used.
+     *
+     * @param bytes The size the upload reserved
+     */
+    public synchronized void commit(long bytes) {
+        reservedBytes -= bytes;
+        committedBytes += bytes;
+    }
+
+    /**
+     * Releases the reservation of an upload which failed or was cancelled.
+     *
+     * @param bytes The size the upload reserved
+     */
+    public synchronized void release(long bytes) {
+        reservedBytes -= bytes;
+    }
+
+    /**
+     * Fetches the account details again unless a fetch is already in flight, for example from onAccountUpdate().
+     *
+     * @return A future which completes with the new snapshot
+     */
+    public CompletableFuture<MegaAccountDetails> refresh() {
+        CompletableFuture<MegaAccountDetails> refresh;
+        synchronized (this) {
+            if (refreshing != null) {
+                return refreshing;
+            }
+            refresh = new CompletableFuture<>();
+            refreshing = refresh;
+            committedAtRefresh = committedBytes;
+        }
+        refreshes.increment();
+        final long requested = System.nanoTime();
+        megaAsyncClient.getAccountDetails().whenComplete((request, failure) -> {
+            MegaAccountDetails details = failure == null ? request.getMegaAccountDetails() : null;
+            synchronized (this) {
+                refreshing = null;
+                if (details != null) {
+                    snapshot = details.copy();
+                    snapshotNanos = requested;
+                    committedBytes -= committedAtRefresh;
+                }
+            }
+            if (details != null) {
+                refresh.complete(details);
+            }
+            else {
+                refresh.completeExceptionally(failure);
+            }
+        });
+        return refresh;
+    }
+
+    /**
+     * @return The storage left for new uploads, or Long.MAX_VALUE if there is no snapshot yet
+     */
+    public synchronized long getAvailableBytes() {
+        if (snapshot == null) {
+            return Long.MAX_VALUE;
+        }
+        return snapshot.getStorageMax() - snapshot.getStorageUsed() - committedBytes - reservedBytes;
+    }
+
+    /**
+     * @return The latest snapshot of the account details, or null if none has arrived yet
+     */
+    public synchronized MegaAccountDetails getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return The number of uploads refused for lack of storage
+     */
+    public long getRefused() {
+        return refused.sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (snapshot == null) {
+            return "Quota guard: no account details yet";
+        }
+        return "Quota guard: " + snapshot.getStorageUsed() + " of " + snapshot.getStorageMax() + " bytes used, "
+                + committedBytes + " uploaded and " + reservedBytes + " reserved since, " + refused.sum()
+                + " uploads refused, " + refreshes.sum() + " refreshes";
+    }
+}
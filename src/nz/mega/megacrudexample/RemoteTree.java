@@ -0,0 +1,234 @@
+package nz.mega.megacrudexample;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaNode;
+
+/**
+ * Lists every node below a remote folder as a lazy Stream.
+ * <p>
+ * The tree is walked depth first and the children of a folder are only fetched when the walk reaches that folder,
+ * so the memory used is the children of the folders on the current path, never the whole tree. Stream operations
+ * which short-circuit, such as findFirst(), anyMatch() or limit(), stop the walk without fetching the rest of the
+ * tree. A parallel stream splits the walk on the fork-join pool: the unvisited siblings at the shallowest level are
+ * split in half, and a single remaining folder hands its children to the other half, so every worker walks whole
+ * subtrees of its own. Nodes are listed in pre-order when the stream is sequential and in no particular order when
+ * it is parallel.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class RemoteTree {
+
+    /*
+     * The megaApiJava object the children of each folder are fetched from.
+     */
+    private final MegaApiJava megaApiJava;
+
+    /**
+     * Creates a new RemoteTree.
+     *
+     * @param megaApiJava The MEGA Java API object to fetch children from
+     */
+    public RemoteTree(MegaApiJava megaApiJava) {
+        this.megaApiJava = megaApiJava;
+    }
+
+    /**
+     * Lists every node below a folder, at any depth. The folder itself is not listed.
+     *
+     * @param folder The folder to list
+     * @param parallel True to walk the subtrees in parallel on the fork-join pool
+     * @return A lazy stream of the nodes below the folder
+     */
+    public Stream<MegaNode> list(MegaNode folder, boolean parallel) {
+        return list(folder, Integer.MAX_VALUE, parallel);
+    }
+
+    /**
+     * Lists the nodes below a folder down to a maximum depth. The folder itself is not listed.
+     *
+     * @param folder The folder to list
+     * @param maxDepth 1 to list the children of the folder only, 2 to list their children too, and so on
+     * @param parallel True to walk the subtrees in parallel on the fork-join pool
+     * @return A lazy stream of the nodes below the folder
+     */
+    public Stream<MegaNode> list(MegaNode folder, int maxDepth, boolean parallel) {
+        if (!folder.isFolder()) {
+            throw new IllegalArgumentException("Not a directory: " + folder.getName());
+        }
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Maximum depth must be at least 1");
+        }
+        return StreamSupport.stream(new Walker(folder, maxDepth), parallel);
+    }
+
+    /**
+     * @return A filter which passes files only
+     */
+    public static Predicate<MegaNode> files() {
+        return MegaNode::isFile;
+    }
+
+    /**
+     * @return A filter which passes folders only
+     */
+    public static Predicate<MegaNode> folders() {
+        return MegaNode::isFolder;
+    }
+
+    /**
+     * @param minSize The smallest size in bytes to pass
+     * @param maxSize The largest size in bytes to pass
+     * @return A filter which passes files whose size is within the range
+     */
+    public static Predicate<MegaNode> sizeBetween(long minSize, long maxSize) {
+        return node -> node.isFile() && node.getSize() >= minSize && node.getSize() <= maxSize;
+    }
+
+    /**
+     * @param since The earliest modification time to pass, in seconds since the epoch
+     * @return A filter which passes nodes modified at or after the time
+     */
+    public static Predicate<MegaNode> modifiedSince(long since) {
+        return node -> node.getModificationTime() >= since;
+    }
+
+    /**
+     * @param before The modification time to pass nodes modified before, in seconds since the epoch
+     * @return A filter which passes nodes modified before the time
+     */
+    public static Predicate<MegaNode> modifiedBefore(long before) {
+        return node -> node.getModificationTime() < before;
+    }
+
+    /*
+     * Walks a subtree depth first. Each frame is a range of the children of one folder which has not been visited
+     * yet; the frame on top of the stack is the deepest.
+     */
+    private final class Walker implements Spliterator<MegaNode> {
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private final int maxDepth;
+
+        /*
+         * The folder whose children are fetched on first use, so that creating the stream costs no SDK call.
+         */
+        private MegaNode root;
+
+        Walker(MegaNode root, int maxDepth) {
+            this.root = root;
+            this.maxDepth = maxDepth;
+        }
+
+        private Walker(Frame frame, int maxDepth) {
+            this.maxDepth = maxDepth;
+            frames.push(frame);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super MegaNode> action) {
+            start();
+            Frame frame;
+            while ((frame = frames.peek()) != null && frame.next == frame.end) {
+                frames.pop();
+            }
+            if (frame == null) {
+                return false;
+            }
+            MegaNode node = frame.nodes.get(frame.next++);
+            if (node.isFolder() && frame.descend && frame.depth < maxDepth) {
+                // Fetched before the node is handed on, so the walk goes on below it next
+                List<MegaNode> children = megaApiJava.getChildren(node);
+                if (!children.isEmpty()) {
+                    frames.push(new Frame(children, 0, children.size(), frame.depth + 1, true));
+                }
+            }
+            action.accept(node);
+            return true;
+        }
+
+        @Override
+        public Spliterator<MegaNode> trySplit() {
+            start();
+            // Hand off half of the shallowest siblings, the largest share of the remaining tree
+            Iterator<Frame> shallowestFirst = frames.descendingIterator();
+            while (shallowestFirst.hasNext()) {
+                Frame frame = shallowestFirst.next();
+                int remaining = frame.end - frame.next;
+                if (remaining >= 2) {
+                    int middle = frame.next + remaining / 2;
+                    Frame split = new Frame(frame.nodes, middle, frame.end, frame.depth, frame.descend);
+                    frame.end = middle;
+                    return new Walker(split, maxDepth);
+                }
+            }
+            // Only single nodes are left: hand off the children of a remaining folder and list the folder alone
+            shallowestFirst = frames.descendingIterator();
+            while (shallowestFirst.hasNext()) {
+                Frame frame = shallowestFirst.next();
+                if (frame.end - frame.next == 1 && frame.descend && frame.depth < maxDepth) {
+                    MegaNode node = frame.nodes.get(frame.next);
+                    if (node.isFolder()) {
+                        List<MegaNode> children = megaApiJava.getChildren(node);
+                        frame.descend = false;
+                        if (!children.isEmpty()) {
+                            return new Walker(new Frame(children, 0, children.size(), frame.depth + 1, true),
+                                    maxDepth);
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            // The size of a subtree is unknown until it has been walked
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL | DISTINCT;
+        }
+
+        private void start() {
+            if (root != null) {
+                List<MegaNode> children = megaApiJava.getChildren(root);
+                frames.push(new Frame(children, 0, children.size(), 1, true));
+                root = null;
+            }
+        }
+    }
+
+    /*
+     * The unvisited range [next, end) of the children of one folder at a depth.
+     */
+    private static final class Frame {
+        final List<MegaNode> nodes;
+        int next;
+        int end;
+        final int depth;
+
+        /*
+         * False once the children of the last node in the range have been handed to another walker.
+         */
+        boolean descend;
+
+        Frame(List<MegaNode> nodes, int next, int end, int depth, boolean descend) {
+            this.nodes = nodes;
+            this.next = next;
+            this.end = end;
+            this.depth = depth;
+            this.descend = descend;
+        }
+    }
+}
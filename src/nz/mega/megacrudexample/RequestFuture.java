@@ -0,0 +1,54 @@
+package nz.mega.megacrudexample;
+
+import java.util.concurrent.CompletableFuture;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaRequestListenerInterface;
+
+/**
+ * A future which completes when the single MEGA request it was passed to as a listener finishes.
+ * <p>
+ * One RequestFuture is created for every request, so its completion is matched to that request alone rather than
+ * to a monitor shared by every request in flight.
+ * <p>
+ * The MEGA SDK deletes the MegaRequest once the listener method returns, so the future completes with a copy.
+ * Dependent stages which are not *Async run on the SDK callback thread and should be kept short.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+class RequestFuture extends CompletableFuture<MegaRequest> implements MegaRequestListenerInterface {
+
+    /**
+     * Completes this future with a copy of the finished request, or exceptionally with a MegaRequestException.
+     *
+     * @param api The MEGA Java API object which called the request event
+     * @param request The MEGA Request which finished
+     * @param e The MEGA Error generated by the request
+     */
+    @Override
+    public void onRequestFinish(MegaApiJava api, MegaRequest request, MegaError e) {
+        if (e.getErrorCode() == MegaError.API_OK) {
+            complete(request.copy());
+        }
+        else {
+            completeExceptionally(new MegaRequestException(request.getType(), e));
+        }
+    }
+
+    @Override
+    public void onRequestStart(MegaApiJava api, MegaRequest request) {
+
+    }
+
+    @Override
+    public void onRequestUpdate(MegaApiJava api, MegaRequest request) {
+
+    }
+
+    @Override
+    public void onRequestTemporaryError(MegaApiJava api, MegaRequest request, MegaError e) {
+
+    }
+}
@@ -0,0 +1,155 @@
+package nz.mega.megacrudexample;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaRequest;
+import nz.mega.sdk.MegaRequestListenerInterface;
+
+/**
+ * A request listener which records the latency of every MEGA request in a histogram per MegaRequest.TYPE_*.
+ * <p>
+ * onRequestStart() stores a timestamp in a fixed size table indexed by the request tag, and onRequestFinish()
+ * records the elapsed time in the histogram of the request's type. Temporary errors are counted per type. The MEGA
+ * SDK calls request listeners from a single thread, so the timestamp table needs no synchronization, and nothing is
+ * allocated per request once a type has been seen. The histograms can be read from any thread.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class RequestLatencyRecorder implements MegaRequestListenerInterface {
+
+    /*
+     * Request types outside 0..MAX_REQUEST_TYPES - 1 are recorded under the last type.
+     */
+    private static final int MAX_REQUEST_TYPES = 64;
+
+    /*
+     * Size of the start timestamp table. Must be a power of two and larger than the number of requests in flight.
+     */
+    private static final int MAX_IN_FLIGHT = 4096;
+
+    /*
+     * Start timestamps and the tag of the request each timestamp belongs to, indexed by tag.
+     */
+    private final long[] startNanos = new long[MAX_IN_FLIGHT];
+    private final int[] startTags = new int[MAX_IN_FLIGHT];
+
+    /*
+     * Latency histogram, temporary error count and name of each request type, created when a type is first seen.
+     */
+    private final AtomicReferenceArray<LatencyHistogram> histograms =
+            new AtomicReferenceArray<>(MAX_REQUEST_TYPES);
+    private final AtomicLongArray temporaryErrors = new AtomicLongArray(MAX_REQUEST_TYPES);
+    private final AtomicReferenceArray<String> typeNames = new AtomicReferenceArray<>(MAX_REQUEST_TYPES);
+
+    /**
+     * Records the start time of a request.
+     *
+     * @param api The MEGA Java API object which called the request event
+     * @param request The MEGA Request which has started
+     */
+    @Override
+    public void onRequestStart(MegaApiJava api, MegaRequest request) {
+        int tag = request.getTag();
+        int slot = tag & (MAX_IN_FLIGHT - 1);
+        startTags[slot] = tag;
+        startNanos[slot] = System.nanoTime();
+    }
+
+    /**
+     * Records the latency of a finished request in the histogram of its type.
+     *
+     * @param api The MEGA Java API object which called the request event
+     * @param request The MEGA Request which has finished
+     * @param e The MEGA Error generated by the request
+     */
+    @Override
+    public void onRequestFinish(MegaApiJava api, MegaRequest request, MegaError e) {
+        long now = System.nanoTime();
+        int tag = request.getTag();
+        int slot = tag & (MAX_IN_FLIGHT - 1);
+        if (startTags[slot] != tag || startNanos[slot] == 0) {
+            // The start of this request was not seen, or its slot was reused
+            return;
+        }
+        long latency = now - startNanos[slot];
+        startNanos[slot] = 0;
+        histogramOf(request).record(latency);
+    }
+
+    /**
+     * Counts a temporary error against the request's type.
+     *
+     * @param api The MEGA Java API object which called the request event
+     * @param request The MEGA Request which hit a temporary error
+     * @param e The MEGA Error generated by the event
+     */
+    @Override
+    public void onRequestTemporaryError(MegaApiJava api, MegaRequest request, MegaError e) {
+        temporaryErrors.incrementAndGet(indexOf(request.getType()));
+    }
+
+    @Override
+    public void onRequestUpdate(MegaApiJava api, MegaRequest request) {
+
+    }
+
+    /**
+     * Returns the latency histogram of a request type.
+     *
+     * @param requestType A MegaRequest.TYPE_* value
+     * @return The histogram of the type, or null if no request of the type has finished
+     */
+    public LatencyHistogram getHistogram(int requestType) {
+        return histograms.get(indexOf(requestType));
+    }
+
+    /**
+     * Returns the number of temporary errors reported for a request type.
+     *
+     * @param requestType A MegaRequest.TYPE_* value
+     * @return The number of temporary errors
+     */
+    public long getTemporaryErrors(int requestType) {
+        return temporaryErrors.get(indexOf(requestType));
+    }
+
+    /**
+     * Prints a line with the count, p50, p99, max and temporary errors of every request type seen.
+     *
+     * @param out The stream to print to
+     */
+    public void dump(PrintStream out) {
+        for (int type = 0; type < MAX_REQUEST_TYPES; type++) {
+            LatencyHistogram histogram = histograms.get(type);
+            long errors = temporaryErrors.get(type);
+            if (histogram != null || errors != 0) {
+                String name = typeNames.get(type);
+                out.println((name != null ? name : "TYPE " + type) + ": "
+                        + (histogram != null ? histogram.toString() : "count=0")
+                        + " temporaryErrors=" + errors);
+            }
+        }
+    }
+
+    /*
+     * The histogram of a request's type, created along with the type's name the first time the type is seen.
+     */
+    private LatencyHistogram histogramOf(MegaRequest request) {
+        int index = indexOf(request.getType());
+        LatencyHistogram histogram = histograms.get(index);
+        if (histogram == null) {
+            typeNames.compareAndSet(index, null, request.getRequestString());
+            histograms.compareAndSet(index, null, new LatencyHistogram());
+            histogram = histograms.get(index);
+        }
+        return histogram;
+    }
+
+    private static int indexOf(int requestType) {
+        return requestType >= 0 && requestType < MAX_REQUEST_TYPES ? requestType : MAX_REQUEST_TYPES - 1;
+    }
+}
@@ -0,0 +1,252 @@
+package nz.mega.megacrudexample;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import nz.mega.sdk.MegaError;
+
+/**
+ * Retries MEGA operations which fail with a transient error, with jittered exponential backoff, a retry budget and
+ * a circuit breaker per operation type.
+ * <p>
+ * Operations are keyed by their MegaRequest.TYPE_* value, or by transferKey() for transfers. A retry is only made if
+ * the error is transient, the attempt limit has not been reached and the type's retry budget has a token left. The
+ * budget earns a tenth of a token for every success, so retries can never exceed that share of the traffic for
+ * long. When the ratio of transient failures of a type spikes its circuit breaker opens and new operations of that
+ * type fail fast with a CircuitOpenException, so the backend is not hammered.
+ * <p>
+ * Retries are started from the scheduler's thread, never from the MEGA SDK callback thread, and nothing blocks.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class RetryScheduler {
+
+    /*
+     * Circuit breaker settings: window of recent outcomes, outcomes needed to open, failure ratio and open time.
+     */
+    private static final int BREAKER_WINDOW = 20;
+    private static final int BREAKER_MINIMUM_CALLS = 10;
+    private static final double BREAKER_FAILURE_THRESHOLD = 0.5;
+    private static final long BREAKER_OPEN_MILLIS = 30000;
+
+    /*
+     * Retry budget settings: tokens a type starts with and can save up, and tokens earned per success.
+     */
+    private static final double BUDGET_MAX_TOKENS = 10;
+    private static final double BUDGET_RETRY_RATIO = 0.1;
+
+    private final ScheduledExecutorService scheduler;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private final Map<Integer, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<Integer, RetryBudget> budgets = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /*
+     * Temporary errors reported by the SDK callbacks. Kept apart from the circuit breakers, which already count the
+     * final outcome of every attempt.
+     */
+    private final Map<Integer, LongAdder> temporaryErrors = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new RetryScheduler.
+     *
+     * @param scheduler The executor retries are scheduled on
+     * @param maxAttempts The maximum number of attempts per operation, including the first
+     * @param baseDelayMillis The backoff before the first retry, doubled for every further retry
+     * @param maxDelayMillis The upper bound of the backoff
+     */
+    public RetryScheduler(ScheduledExecutorService scheduler, int maxAttempts, long baseDelayMillis,
+                          long maxDelayMillis) {
+        this.scheduler = scheduler;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Returns the operation key of a transfer type, which does not collide with any MegaRequest.TYPE_* value.
+     *
+     * @param transferType MegaTransfer.TYPE_UPLOAD or MegaTransfer.TYPE_DOWNLOAD
+     * @return The operation key of the transfer type
+     */
+    public static int transferKey(int transferType) {
+        return -1 - transferType;
+    }
+
+    /**
+     * Runs an operation, retrying it while it fails with a transient error.
+     *
+     * @param operation The operation key, a MegaRequest.TYPE_* value or transferKey()
+     * @param attempt Starts one attempt of the operation
+     * @param <T> The result type of the operation
+     * @return A future which completes with the result of the first successful attempt, or with the failure of the
+     * last attempt
+     */
+    public <T> CompletableFuture<T> execute(int operation, Supplier<CompletableFuture<T>> attempt) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        run(operation, attempt, 1, result);
+        return result;
+    }
+
+    /**
+     * Counts a temporary error reported by the SDK for an operation type.
+     * <p>
+     * The SDK may report several temporary errors during one attempt, which then still succeeds or fails on its
+     * own. Only that final outcome is counted by the circuit breaker, so temporary errors are a separate metric.
+     *
+     * @param operation The operation key, a MegaRequest.TYPE_* value or transferKey()
+     */
+    public void recordTemporaryError(int operation) {
+        temporaryErrors.computeIfAbsent(operation, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * @param operation The operation key, a MegaRequest.TYPE_* value or transferKey()
+     * @return The number of temporary errors reported by the SDK for the operation type
+     */
+    public long getTemporaryErrors(int operation) {
+        LongAdder count = temporaryErrors.get(operation);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return The number of temporary errors reported by the SDK for every operation type
+     */
+    public long getTemporaryErrors() {
+        long total = 0;
+        for (LongAdder count : temporaryErrors.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @param operation The operation key, a MegaRequest.TYPE_* value or transferKey()
+     * @return The circuit breaker of the operation type
+     */
+    public CircuitBreaker getCircuitBreaker(int operation) {
+        return breakerOf(operation);
+    }
+
+    /**
+     * @return The number of retries made
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return The number of operations rejected by an open circuit breaker
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * Returns whether a MEGA error code is transient, so that the same operation may succeed if retried.
+     *
+     * @param errorCode A MegaError.API_* error code
+     * @return True if the operation may be retried
+     */
+    public static boolean isTransient(int errorCode) {
+        return errorCode == MegaError.API_EAGAIN
+                || errorCode == MegaError.API_ERATELIMIT
+                || errorCode == MegaError.API_ETEMPUNAVAIL
+                || errorCode == MegaError.API_ETOOMANYCONNECTIONS;
+    }
+
+    private <T> void run(final int operation, final Supplier<CompletableFuture<T>> attempt, final int attemptNumber,
+                         final CompletableFuture<T> result) {
+        final CircuitBreaker breaker = breakerOf(operation);
+        if (!breaker.allowCall()) {
+            rejections.increment();
+            result.completeExceptionally(new CircuitOpenException(operation, breaker.getRetryAfterMillis()));
+            return;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = attempt.get();
+        } catch (RuntimeException e) {
+            breaker.recordFailure();
+            result.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((value, failure) -> {
+            if (failure == null) {
+                breaker.recordSuccess();
+                budgetOf(operation).deposit();
+                result.complete(value);
+                return;
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            boolean transientFailure = cause instanceof MegaRequestException
+                    && isTransient(((MegaRequestException) cause).getErrorCode());
+            if (transientFailure) {
+                breaker.recordFailure();
+            }
+            else {
+                // A definite answer such as API_ENOENT means the backend is healthy
+                breaker.recordSuccess();
+            }
+            boolean retry = transientFailure
+                    && attemptNumber < maxAttempts
+                    && budgetOf(operation).withdraw();
+            if (!retry) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            retries.increment();
+            // Schedule the retry off the SDK callback thread this completion may be running on
+            scheduler.schedule(() -> run(operation, attempt, attemptNumber + 1, result),
+                    backoffMillis(attemptNumber), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /*
+     * Full jitter backoff: a random delay up to the capped exponential delay for this attempt.
+     */
+    private long backoffMillis(int attemptNumber) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attemptNumber - 1, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private CircuitBreaker breakerOf(int operation) {
+        return breakers.computeIfAbsent(operation, key -> new CircuitBreaker(BREAKER_WINDOW,
+                BREAKER_MINIMUM_CALLS, BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_MILLIS));
+    }
+
+    private RetryBudget budgetOf(int operation) {
+        return budgets.computeIfAbsent(operation, key -> new RetryBudget());
+    }
+
+    /*
+     * Token bucket limiting retries to a share of the successful operations of one type.
+     */
+    private static final class RetryBudget {
+        private double tokens = BUDGET_MAX_TOKENS;
+
+        synchronized void deposit() {
+            tokens = Math.min(BUDGET_MAX_TOKENS, tokens + BUDGET_RETRY_RATIO);
+        }
+
+        synchronized boolean withdraw() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
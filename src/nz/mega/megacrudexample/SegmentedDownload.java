@@ -0,0 +1,336 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+
+import static java.nio.file.Files.deleteIfExists;
+
+/**
+ * A download which splits a file into segments, streams several of them at once and writes each chunk at its
+ * offset in the local file with positional FileChannel writes.
+ * <p>
+ * Chunks are written straight from the MEGA SDK callback thread without being copied; a positional write only
+ * lands in the page cache. The segments which have been written and forced to disk are recorded in a sidecar file
+ * next to the local file, so a download which fails or is interrupted resumes with the missing segments only. A
+ * segment is idempotent, so unlike a stream it is retried by the RetryScheduler when it fails with a transient
+ * error. The future completes with the number of bytes downloaded by this run once every segment has been
+ * received in full and the sidecar has been removed.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+class SegmentedDownload extends CompletableFuture<Long> {
+
+    /*
+     * Sidecar layout: magic, format version, node handle, node size, node modification time, segment size and one
+     * byte per segment which is 1 once the segment is on disk.
+     */
+    private static final int SIDECAR_MAGIC = 0x4d534547;
+    private static final int SIDECAR_VERSION = 1;
+    private static final int SIDECAR_HEADER_BYTES = 40;
+
+    private final MegaApiJava megaApiJava;
+    private final RetryScheduler retryScheduler;
+    private final Executor executor;
+    private final MegaNode node;
+    private final Path target;
+    private final Path sidecar;
+    private final long segmentSize;
+    private final int parallelism;
+    private final int segmentCount;
+
+    /*
+     * State below is guarded by this object's monitor.
+     */
+    private FileChannel targetChannel;
+    private FileChannel sidecarChannel;
+    private final List<Integer> missingSegments = new ArrayList<>();
+    private int nextMissing;
+    private int inFlight;
+    private int remaining;
+    private long downloadedBytes;
+
+    /*
+     * The first failure of a segment. Read by the segments on the SDK callback thread so they cancel themselves.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Creates a new SegmentedDownload. Call start() to start it.
+     *
+     * @param megaApiJava The MEGA Java API object to stream the segments with
+     * @param retryScheduler Retries segments which fail with a transient error
+     * @param executor Runs the bookkeeping after each segment, off the SDK callback thread
+     * @param node The file node to download
+     * @param target The local file to download to
+     * @param segmentSize The size of each segment in bytes, the last segment may be shorter
+     * @param parallelism The maximum number of segments streamed at once
+     */
+    SegmentedDownload(MegaApiJava megaApiJava, RetryScheduler retryScheduler, Executor executor, MegaNode node,
+                      Path target, long segmentSize, int parallelism) {
+        if (segmentSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Segment size and parallelism must be positive");
+        }
+        long count = (node.getSize() + segmentSize - 1) / segmentSize;
+        if (count > Integer.MAX_VALUE - SIDECAR_HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size too small for a file of " + node.getSize() + " bytes");
+        }
+        this.megaApiJava = megaApiJava;
+        this.retryScheduler = retryScheduler;
+        this.executor = executor;
+        this.node = node;
+        this.target = target;
+        this.sidecar = target.resolveSibling(target.getFileName() + ".segments");
+        this.segmentSize = segmentSize;
+        this.parallelism = parallelism;
+        this.segmentCount = (int) count;
+    }
+
+    /**
+     * Opens the local file and the sidecar, and starts streaming the missing segments.
+     *
+     * @return This download
+     */
+    synchronized SegmentedDownload start() {
+        try {
+            open();
+        } catch (IOException e) {
+            closeChannels();
+            completeExceptionally(e);
+            return this;
+        }
+        remaining = missingSegments.size();
+        if (remaining == 0) {
+            finish();
+            return this;
+        }
+        while (inFlight < parallelism && nextMissing < missingSegments.size()) {
+            launch(missingSegments.get(nextMissing++));
+        }
+        return this;
+    }
+
+    /**
+     * @return The number of segments the file is split into
+     */
+    int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /*
+     * Resumes from a sidecar written for the same node and segment size, otherwise starts over.
+     */
+    private void open() throws IOException {
+        long size = node.getSize();
+        boolean resume = Files.isRegularFile(sidecar) && Files.isRegularFile(target) && Files.size(target) == size
+                && Files.size(sidecar) == SIDECAR_HEADER_BYTES + segmentCount;
+        targetChannel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        sidecarChannel = FileChannel.open(sidecar, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer state = ByteBuffer.allocate(SIDECAR_HEADER_BYTES + segmentCount);
+        if (resume) {
+            while (state.hasRemaining() && sidecarChannel.read(state, state.position()) >= 0) {
+                // Read the whole sidecar
+            }
+            state.flip();
+            resume = state.remaining() == state.capacity()
+                    && state.getInt(0) == SIDECAR_MAGIC && state.getInt(4) == SIDECAR_VERSION
+                    && state.getLong(8) == node.getHandle() && state.getLong(16) == size
+                    && state.getLong(24) == node.getModificationTime() && state.getLong(32) == segmentSize;
+        }
+        if (!resume) {
+            targetChannel.truncate(0);
+            if (size > 0) {
+                // Give the file its final length up front so that every segment writes inside it
+                targetChannel.write(ByteBuffer.allocate(1), size - 1);
+            }
+            state = ByteBuffer.allocate(SIDECAR_HEADER_BYTES + segmentCount);
+            state.putInt(0, SIDECAR_MAGIC).putInt(4, SIDECAR_VERSION).putLong(8, node.getHandle())
+                    .putLong(16, size).putLong(24, node.getModificationTime()).putLong(32, segmentSize);
+            sidecarChannel.truncate(0);
+            writeFully(sidecarChannel, state, 0);
+            sidecarChannel.force(false);
+        }
+        for (int segment = 0; segment < segmentCount; segment++) {
+            if (!resume || state.get(SIDECAR_HEADER_BYTES + segment) != 1) {
+                missingSegments.add(segment);
+            }
+        }
+    }
+
+    private void launch(final int segment) {
+        inFlight++;
+        final long start = (long) segment * segmentSize;
+        final long length = Math.min(segmentSize, node.getSize() - start);
+        retryScheduler.execute(RetryScheduler.transferKey(MegaTransfer.TYPE_DOWNLOAD), () -> {
+            Segment attempt = new Segment(start, length);
+            megaApiJava.startStreaming(node, start, length, attempt);
+            return attempt;
+        }).whenCompleteAsync((written, error) -> segmentDone(segment, length, error), executor);
+    }
+
+    /*
+     * Records a finished segment and starts the next missing one, or finishes the download.
+     */
+    private synchronized void segmentDone(int segment, long length, Throwable error) {
+        inFlight--;
+        // A segment which completed after another one failed is still recorded, so that a resume skips it
+        if (error == null) {
+            try {
+                // The data must be on disk before the sidecar says so
+                targetChannel.force(false);
+                writeFully(sidecarChannel, ByteBuffer.wrap(new byte[]{1}), SIDECAR_HEADER_BYTES + segment);
+                downloadedBytes += length;
+                remaining--;
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null && failure == null) {
+            failure = error;
+        }
+        if (failure != null) {
+            // Segments still in flight cancel themselves; keep the file and the sidecar for a resume
+            if (inFlight == 0) {
+                closeChannels();
+                completeExceptionally(failure);
+            }
+            return;
+        }
+        if (remaining == 0) {
+            finish();
+        }
+        else if (nextMissing < missingSegments.size()) {
+            launch(missingSegments.get(nextMissing++));
+        }
+    }
+
+    /*
+     * Checks that every segment is on disk and the file has the node's size, then removes the sidecar.
+     */
+    private void finish() {
+        try {
+            ByteBuffer state = ByteBuffer.allocate(segmentCount);
+            while (state.hasRemaining()
+                    && sidecarChannel.read(state, SIDECAR_HEADER_BYTES + state.position()) >= 0) {
+                // Read every segment flag
+            }
+            for (int segment = 0; segment < segmentCount; segment++) {
+                if (state.get(segment) != 1) {
+                    throw new IOException("Segment " + segment + " of " + node.getName() + " is missing");
+                }
+            }
+            if (targetChannel.size() != node.getSize()) {
+                throw new IOException("Downloaded " + targetChannel.size() + " bytes of " + node.getName()
+                        + " but expected " + node.getSize());
+            }
+            targetChannel.force(true);
+            closeChannels();
+            Files.setLastModifiedTime(target, FileTime.from(node.getModificationTime(), TimeUnit.SECONDS));
+            deleteIfExists(sidecar);
+            complete(downloadedBytes);
+        } catch (IOException e) {
+            closeChannels();
+            completeExceptionally(e);
+        }
+    }
+
+    private void closeChannels() {
+        for (FileChannel channel : new FileChannel[]{targetChannel, sidecarChannel}) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /*
+     * One attempt at streaming one segment. Completes with the number of bytes written.
+     */
+    private final class Segment extends CompletableFuture<Long> implements MegaTransferListenerInterface {
+        private final long start;
+        private final long length;
+        private long written;
+
+        Segment(long start, long length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+            if (isDone() || SegmentedDownload.this.isDone() || failure != null) {
+                return false;
+            }
+            if (written + buffer.length > length) {
+                completeExceptionally(new IOException("Segment at " + start + " received more than " + length
+                        + " bytes"));
+                return false;
+            }
+            try {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer);
+                while (chunk.hasRemaining()) {
+                    written += targetChannel.write(chunk, start + written);
+                }
+                return true;
+            } catch (IOException e) {
+                completeExceptionally(e);
+                return false;
+            }
+        }
+
+        @Override
+        public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+            if (e.getErrorCode() != MegaError.API_OK) {
+                completeExceptionally(new MegaRequestException(transfer.getType(), e));
+            }
+            else if (written != length) {
+                completeExceptionally(new IOException("Segment at " + start + " received " + written + " of "
+                        + length + " bytes"));
+            }
+            else {
+                complete(written);
+            }
+        }
+
+        @Override
+        public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+
+        }
+
+        @Override
+        public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+
+        }
+
+        @Override
+        public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import nz.mega.sdk.MegaApiJava;
+
+/**
+ * Manages several MegaApiJava instances in one process, so that operations on many accounts, or many operations
+ * on one account, are not limited to what a single SDK instance can move.
+ * <p>
+ * Every session has its own credentials, its own cache directory below the pool's base directory, its own saved
+ * session and its own listener. The cache directory is named after a hash of the account's email address and the
+ * position of the session among the sessions of that account, so a later run resumes each account's own sessions
+ * whatever order the accounts are added in. Operations are routed to the session of a given account, or to the
+ * session with the fewest operations in flight. The utilization of every session is reported by toString().
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class SessionPool implements AutoCloseable {
+
+    /*
+     * The number of bytes of the email address hash used in cache directory names.
+     */
+    private static final int ACCOUNT_HASH_BYTES = 8;
+
+    /*
+     * Creates the MEGA Java API object of a session from its cache directory.
+     */
+    private final Function<Path, MegaApiJava> apiFactory;
+
+    /*
+     * The directory the cache directories of the sessions are created in.
+     */
+    private final Path baseDirectory;
+
+    private final List<PooledSession> sessions = new CopyOnWriteArrayList<>();
+
+    /*
+     * Where the search for the least loaded session starts, so that idle sessions take turns.
+     */
+    private final AtomicInteger nextStart = new AtomicInteger();
+
+    /**
+     * Creates a new SessionPool of MEGA SDK instances.
+     *
+     * @param appKey The appKey of this application
+     * @param baseDirectory The directory the cache directories of the sessions are created in
+     */
+    public SessionPool(final String appKey, Path baseDirectory) {
+        this(cacheDirectory -> new MegaApiJava(appKey, cacheDirectory.toString()), baseDirectory);
+    }
+
+    /**
+     * Creates a new SessionPool with a custom MegaApiJava factory, for example to run against a stand-in for the
+     * MEGA SDK.
+     *
+     * @param apiFactory Creates the MEGA Java API object of a session from its cache directory
+     * @param baseDirectory The directory the cache directories of the sessions are created in
+     */
+    public SessionPool(Function<Path, MegaApiJava> apiFactory, Path baseDirectory) {
+        this.apiFactory = apiFactory;
+        this.baseDirectory = baseDirectory;
+    }
+
+    /**
+     * Adds a session. Several sessions may use the same account to spread its operations over several SDK
+     * instances.
+     *
+     * @param userEmail The user's MEGA registered email address
+     * @param password The user's MEGA password
+     * @return The new session, not logged in yet
+     * @throws IOException If the session's cache directory cannot be created
+     */
+    public synchronized PooledSession addSession(String userEmail, String password) throws IOException {
+        int index = sessions.size();
+        int ordinal = 0;
+        for (PooledSession session : sessions) {
+            if (session.getUserEmail().equalsIgnoreCase(userEmail)) {
+                ordinal++;
+            }
+        }
+        Path cacheDirectory = Files.createDirectories(baseDirectory.resolve(
+                "account-" + accountHash(userEmail) + "-" + ordinal));
+        PooledSession session = new PooledSession(index, userEmail, password, cacheDirectory,
+                apiFactory.apply(cacheDirectory));
+        sessions.add(session);
+        return session;
+    }
+
+    /*
+     * Returns a hash of an email address which does not reveal it in directory names.
+     */
+    private static String accountHash(String userEmail) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+                    userEmail.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < ACCOUNT_HASH_BYTES; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Logs in every session at once.
+     *
+     * @return A future which completes once every session has fetched its nodes, or fails with the first failure
+     */
+    public CompletableFuture<Void> loginAll() {
+        List<CompletableFuture<Void>> logins = new ArrayList<>();
+        for (PooledSession session : sessions) {
+            logins.add(session.login());
+        }
+        return CompletableFuture.allOf(logins.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Runs an operation on the least loaded session of an account.
+     *
+     * @param userEmail The account to run the operation on, or null for the least loaded session of any account
+     * @param operation Starts the operation on the chosen session's client
+     * @param <T> The result type of the operation
+     * @return The future of the operation
+     */
+    public <T> CompletableFuture<T> submit(String userEmail,
+                                           Function<MegaAsyncClient, CompletableFuture<T>> operation) {
+        return leastLoaded(userEmail).run(operation);
+    }
+
+    /**
+     * Runs an operation on the least loaded session of any account.
+     *
+     * @param operation Starts the operation on the chosen session's client
+     * @param <T> The result type of the operation
+     * @return The future of the operation
+     */
+    public <T> CompletableFuture<T> submit(Function<MegaAsyncClient, CompletableFuture<T>> operation) {
+        return submit(null, operation);
+    }
+
+    /**
+     * Returns the session with the fewest operations in flight.
+     *
+     * @param userEmail The account the session must belong to, or null for any account
+     * @return The least loaded matching session
+     * @throws IllegalArgumentException If no session belongs to the account
+     */
+    public PooledSession leastLoaded(String userEmail) {
+        // Sessions are only ever added, so the first size sessions stay in place
+        int size = sessions.size();
+        int start = size == 0 ? 0 : Math.floorMod(nextStart.getAndIncrement(), size);
+        PooledSession best = null;
+        for (int i = 0; i < size; i++) {
+            PooledSession session = sessions.get((start + i) % size);
+            if ((userEmail == null || userEmail.equalsIgnoreCase(session.getUserEmail()))
+                    && (best == null || session.getInFlight() < best.getInFlight())) {
+                best = session;
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException("No session for account: " + userEmail);
+        }
+        return best;
+    }
+
+    /**
+     * @return The sessions of the pool, in the order they were added
+     */
+    public List<PooledSession> getSessions() {
+        return Collections.unmodifiableList(sessions);
+    }
+
+    /**
+     * Logs every session out locally and waits for it, keeping the saved sessions valid.
+     */
+    @Override
+    public void close() {
+        List<CompletableFuture<?>> logouts = new ArrayList<>();
+        for (PooledSession session : sessions) {
+            logouts.add(session.logout());
+        }
+        try {
+            CompletableFuture.allOf(logouts.toArray(new CompletableFuture<?>[0])).join();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("Session pool: ").append(sessions.size()).append(" sessions");
+        for (PooledSession session : sessions) {
+            report.append(System.lineSeparator()).append("  ").append(session);
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static java.nio.file.Files.deleteIfExists;
+
+/**
+ * Persists a MEGA session key so that a restarted process can resume the session instead of logging in again.
+ * <p>
+ * The session key returned by MegaApiJava.dumpSession() gives full access to the account, so it is written with
+ * owner only permissions where the file system supports them.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class SessionStore {
+
+    /*
+     * The file the session key is stored in.
+     */
+    private final Path sessionFile;
+
+    /**
+     * Creates a new SessionStore.
+     *
+     * @param sessionFile The file the session key is stored in
+     */
+    public SessionStore(Path sessionFile) {
+        this.sessionFile = sessionFile;
+    }
+
+    /**
+     * Reads the stored session key.
+     *
+     * @return The stored session key, or null if no session has been stored or it cannot be read
+     */
+    public String load() {
+        if (!Files.isRegularFile(sessionFile)) {
+            return null;
+        }
+        try {
+            String session = new String(Files.readAllBytes(sessionFile), StandardCharsets.UTF_8).trim();
+            return session.isEmpty() ? null : session;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Stores a session key, replacing any stored session.
+     *
+     * @param session The session key returned by MegaApiJava.dumpSession()
+     */
+    public void save(String session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            // Write to a private temporary file first so the session is never readable by others or half written
+            Path temporary = sessionFile.resolveSibling(sessionFile.getFileName() + ".tmp");
+            deleteIfExists(temporary);
+            try {
+                Files.createFile(temporary, PosixFilePermissions.asFileAttribute(
+                        PosixFilePermissions.fromString("rw-------")));
+            } catch (UnsupportedOperationException e) {
+                Files.createFile(temporary);
+            }
+            Files.write(temporary, session.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, sessionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes the stored session key.
+     */
+    public void clear() {
+        try {
+            deleteIfExists(sessionFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
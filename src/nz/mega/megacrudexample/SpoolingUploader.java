@@ -0,0 +1,288 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+
+import static java.nio.file.Files.deleteIfExists;
+
+/**
+ * Uploads content held in memory or read from a stream, without the caller writing it to a local file first.
+ * <p>
+ * The MEGA SDK only uploads from a file path, so the content is spooled to a file named after the remote file, in a
+ * directory of its own. While the content fits within maxMemoryPerUpload it is spooled to a memory-backed directory,
+ * /dev/shm where there is one, so the spool file costs no disk I/O. Content which is larger, or a stream which grows
+ * larger while it is read, is spooled to the disk directory instead. Streams are copied through buffers from a
+ * bounded ByteBufferPool, one buffer per upload at a time. The spool file is deleted once the upload has finished,
+ * retries included, whether it succeeded or not.
+ * <p>
+ * The memory an upload holds is therefore at most maxMemoryPerUpload in the memory-backed directory plus one pooled
+ * buffer.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class SpoolingUploader implements AutoCloseable {
+
+    /*
+     * The memory-backed file system of most Linux systems.
+     */
+    private static final Path SHARED_MEMORY = Paths.get("/dev/shm");
+
+    /*
+     * Every SpoolingUploader spools into a directory of its own, created below memoryDirectory and diskDirectory
+     * with this prefix on first use.
+     */
+    private static final String SPOOL_PREFIX = "megacrud-spool";
+
+    private final TransferScheduler transferScheduler;
+    private final TransferScheduler.Priority priority;
+    private final ByteBufferPool bufferPool;
+    private final Path memoryDirectory;
+    private final Path diskDirectory;
+    private final long maxMemoryPerUpload;
+
+    /*
+     * The spool directories of this object, created on first use. Guarded by this object's monitor.
+     */
+    private Path memorySpool;
+    private Path diskSpool;
+
+    /**
+     * Creates a new SpoolingUploader which spools to /dev/shm, or the temporary directory where there is none, and
+     * to the temporary directory.
+     *
+     * @param transferScheduler The scheduler to queue the uploads in
+     * @param priority The priority class of the uploads
+     * @param bufferPool The buffers streams are copied through
+     * @param maxMemoryPerUpload The most bytes an upload spools to memory before it spools to disk instead
+     */
+    public SpoolingUploader(TransferScheduler transferScheduler, TransferScheduler.Priority priority,
+                            ByteBufferPool bufferPool, long maxMemoryPerUpload) {
+        this(transferScheduler, priority, bufferPool, defaultMemoryDirectory(),
+                Paths.get(System.getProperty("java.io.tmpdir")), maxMemoryPerUpload);
+    }
+
+    /**
+     * Creates a new SpoolingUploader.
+     *
+     * @param transferScheduler The scheduler to queue the uploads in
+     * @param priority The priority class of the uploads
+     * @param bufferPool The buffers streams are copied through
+     * @param memoryDirectory A directory on a memory-backed file system to spool small uploads to
+     * @param diskDirectory A directory to spool uploads larger than maxMemoryPerUpload to
+     * @param maxMemoryPerUpload The most bytes an upload spools to memoryDirectory
+     */
+    public SpoolingUploader(TransferScheduler transferScheduler, TransferScheduler.Priority priority,
+                            ByteBufferPool bufferPool, Path memoryDirectory, Path diskDirectory,
+                            long maxMemoryPerUpload) {
+        this.transferScheduler = transferScheduler;
+        this.priority = priority;
+        this.bufferPool = bufferPool;
+        this.memoryDirectory = memoryDirectory;
+        this.diskDirectory = diskDirectory;
+        this.maxMemoryPerUpload = maxMemoryPerUpload;
+    }
+
+    /**
+     * @return /dev/shm if it is a writable directory, otherwise the temporary directory
+     */
+    public static Path defaultMemoryDirectory() {
+        if (Files.isDirectory(SHARED_MEMORY) && Files.isWritable(SHARED_MEMORY)) {
+            return SHARED_MEMORY;
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Uploads the contents of a byte array.
+     *
+     * @param content The content of the file
+     * @param name The name of the remote file
+     * @param parent The folder to upload the file to
+     * @return A future which completes with the finished transfer
+     * @throws IOException If the content cannot be spooled
+     */
+    public CompletableFuture<MegaTransfer> upload(byte[] content, String name, MegaNode parent) throws IOException {
+        return upload(ByteBuffer.wrap(content), name, parent);
+    }
+
+    /**
+     * Uploads the remaining bytes of a buffer. The buffer's position is left unchanged.
+     *
+     * @param content The content of the file, from its position to its limit
+     * @param name The name of the remote file
+     * @param parent The folder to upload the file to
+     * @return A future which completes with the finished transfer
+     * @throws IOException If the content cannot be spooled
+     */
+    public CompletableFuture<MegaTransfer> upload(ByteBuffer content, String name, MegaNode parent)
+            throws IOException {
+        ByteBuffer remaining = content.duplicate();
+        Path file = spoolFile(remaining.remaining() <= maxMemoryPerUpload ? memorySpool() : diskSpool(), name);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (remaining.hasRemaining()) {
+                out.write(remaining);
+            }
+        } catch (IOException e) {
+            delete(file);
+            throw e;
+        }
+        return upload(file, parent);
+    }
+
+    /**
+     * Uploads everything read from a stream until its end. The stream is not closed.
+     *
+     * @param content The stream to read the content of the file from
+     * @param name The name of the remote file
+     * @param parent The folder to upload the file to
+     * @return A future which completes with the finished transfer
+     * @throws IOException If the stream cannot be read or the content cannot be spooled
+     * @throws InterruptedException If the calling thread is interrupted while waiting for a pooled buffer
+     */
+    public CompletableFuture<MegaTransfer> upload(InputStream content, String name, MegaNode parent)
+            throws IOException, InterruptedException {
+        return upload(Channels.newChannel(content), name, parent);
+    }
+
+    /**
+     * Uploads everything read from a channel until its end. The channel is not closed.
+     * <p>
+     * The content is spooled to memory until it grows beyond maxMemoryPerUpload, when what has been spooled so far
+     * is moved to disk and the rest of the content follows it there.
+     *
+     * @param content The channel to read the content of the file from
+     * @param name The name of the remote file
+     * @param parent The folder to upload the file to
+     * @return A future which completes with the finished transfer
+     * @throws IOException If the channel cannot be read or the content cannot be spooled
+     * @throws InterruptedException If the calling thread is interrupted while waiting for a pooled buffer
+     */
+    public CompletableFuture<MegaTransfer> upload(ReadableByteChannel content, String name, MegaNode parent)
+            throws IOException, InterruptedException {
+        Path file = spoolFile(memorySpool(), name);
+        boolean inMemory = true;
+        long written = 0;
+        ByteBuffer buffer = bufferPool.acquire();
+        FileChannel out = null;
+        try {
+            out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            while (content.read(buffer) >= 0) {
+                buffer.flip();
+                if (inMemory && written + buffer.remaining() > maxMemoryPerUpload) {
+                    // Too large for memory: move what has been spooled so far to disk and carry on there
+                    out.close();
+                    Path onDisk = spoolFile(diskSpool(), name);
+                    Files.move(file, onDisk, StandardCopyOption.REPLACE_EXISTING);
+                    delete(file);
+                    file = onDisk;
+                    inMemory = false;
+                    out = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                while (buffer.hasRemaining()) {
+                    written += out.write(buffer);
+                }
+                buffer.clear();
+            }
+            out.close();
+        } catch (IOException e) {
+            if (out != null) {
+                out.close();
+            }
+            delete(file);
+            throw e;
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return upload(file, parent);
+    }
+
+    /**
+     * Deletes the spool directories of this object. Uploads still in flight must have finished first.
+     */
+    @Override
+    public synchronized void close() {
+        for (Path spool : new Path[] {memorySpool, diskSpool}) {
+            if (spool != null) {
+                // Each upload directory holds one spool file
+                try (DirectoryStream<Path> uploads = Files.newDirectoryStream(spool)) {
+                    for (Path upload : uploads) {
+                        try (DirectoryStream<Path> files = Files.newDirectoryStream(upload)) {
+                            for (Path file : files) {
+                                deleteIfExists(file);
+                            }
+                        }
+                        deleteIfExists(upload);
+                    }
+                    deleteIfExists(spool);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        memorySpool = null;
+        diskSpool = null;
+    }
+
+    /*
+     * Queues the upload of a spool file and deletes it once the upload has finished.
+     */
+    private CompletableFuture<MegaTransfer> upload(final Path file, MegaNode parent) throws IOException {
+        CompletableFuture<MegaTransfer> upload = transferScheduler.upload(priority, this, file, parent,
+                Files.size(file));
+        upload.whenComplete((transfer, failure) -> delete(file));
+        return upload;
+    }
+
+    /*
+     * Returns the path of a new spool file with the given name, in a directory of its own so that uploads of files
+     * with the same name do not collide.
+     */
+    private static Path spoolFile(Path spool, String name) throws IOException {
+        Path fileName = Paths.get(name).getFileName();
+        if (fileName == null || !fileName.toString().equals(name)) {
+            throw new IllegalArgumentException("Not a file name: " + name);
+        }
+        return Files.createTempDirectory(spool, "upload").resolve(fileName);
+    }
+
+    private synchronized Path memorySpool() throws IOException {
+        if (memorySpool == null) {
+            memorySpool = Files.createTempDirectory(memoryDirectory, SPOOL_PREFIX);
+        }
+        return memorySpool;
+    }
+
+    private synchronized Path diskSpool() throws IOException {
+        if (diskSpool == null) {
+            diskSpool = memoryDirectory.equals(diskDirectory) ? memorySpool()
+                    : Files.createTempDirectory(diskDirectory, SPOOL_PREFIX);
+        }
+        return diskSpool;
+    }
+
+    /*
+     * Deletes a spool file and the directory it was created in.
+     */
+    private static void delete(Path file) {
+        try {
+            deleteIfExists(file);
+            deleteIfExists(file.getParent());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package nz.mega.megacrudexample;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+
+/**
+ * A streaming download which hands every chunk received by onTransferData() to a ChunkConsumer instead of writing
+ * the file to disk.
+ * <p>
+ * The MEGA SDK callback thread copies each chunk into a pooled buffer and queues it for a writer task, which feeds
+ * the consumer. The callback thread is shared by every request, transfer and nodes update of the SDK instance, so
+ * it never waits for the consumer. When the consumer falls behind and the queue or the buffer pool is full, the
+ * transfer is paused instead: onTransferData() returns false, which cancels it, and once the writer task has
+ * consumed every chunk queued before the pause, streaming resumes from the first byte which was not queued. The
+ * future completes with the number of bytes consumed.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+class StreamingDownload extends CompletableFuture<Long> implements MegaTransferListenerInterface {
+
+    /*
+     * Queued marker which tells the writer task that the transfer has finished.
+     */
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+    /*
+     * Queued marker which tells the writer task that the transfer was paused and is to be resumed once every chunk
+     * queued before it has been consumed.
+     */
+    private static final ByteBuffer PAUSED = ByteBuffer.allocate(0);
+
+    private final MegaNode node;
+    private final ChunkConsumer consumer;
+    private final ByteBufferPool bufferPool;
+
+    /*
+     * Chunks waiting for the writer task, plus one slot kept free for the END_OF_STREAM or PAUSED marker.
+     */
+    private final BlockingQueue<ByteBuffer> chunks;
+
+    /*
+     * The number of bytes of the file queued so far, where a resumed transfer starts. Only written by the SDK
+     * callback thread, and published to the writer task by the PAUSED marker.
+     */
+    private long received;
+
+    /*
+     * Set by onTransferData() when it cancels the transfer to pause it. Only accessed by the SDK callback thread.
+     */
+    private boolean pausing;
+
+    /*
+     * The API object of the paused transfer, published to the writer task by the PAUSED marker.
+     */
+    private MegaApiJava pausedApi;
+
+    /*
+     * The error the transfer finished with, published to the writer task by the END_OF_STREAM marker.
+     */
+    private volatile MegaRequestException transferError;
+
+    /**
+     * Creates a new StreamingDownload and starts its writer task.
+     *
+     * @param node The file node being streamed, from its first byte
+     * @param consumer The consumer of the downloaded chunks
+     * @param bufferPool The pool of buffers chunks are copied into
+     * @param maxQueuedChunks The maximum number of chunks waiting for the consumer
+     * @param executor The executor to run the writer task on
+     */
+    StreamingDownload(MegaNode node, ChunkConsumer consumer, ByteBufferPool bufferPool, int maxQueuedChunks,
+                      Executor executor) {
+        this.node = node;
+        this.consumer = consumer;
+        this.bufferPool = bufferPool;
+        this.chunks = new ArrayBlockingQueue<>(maxQueuedChunks + 1);
+        executor.execute(this::drain);
+    }
+
+    /**
+     * Copies a chunk into pooled buffers and queues it for the consumer, or pauses the transfer while the consumer is
+     * behind. Never waits, because it runs on the SDK callback thread.
+     *
+     * @param api The MEGA Java API object which called the data transfer event
+     * @param transfer The MEGA Transfer which received the data
+     * @param buffer The received data, only valid until this method returns
+     * @return True to continue the transfer, false to cancel it because the consumer failed or is behind
+     */
+    @Override
+    public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+        int offset = 0;
+        while (offset < buffer.length && !isDone()) {
+            ByteBuffer chunk = chunks.remainingCapacity() > 1 ? bufferPool.tryAcquire() : null;
+            if (chunk == null) {
+                // The rest of this chunk is downloaded again when the transfer resumes
+                pausing = true;
+                return false;
+            }
+            int length = Math.min(chunk.capacity(), buffer.length - offset);
+            chunk.put(buffer, offset, length);
+            chunk.flip();
+            chunks.offer(chunk);
+            offset += length;
+            received += length;
+        }
+        return !isDone();
+    }
+
+    @Override
+    public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+        if (pausing && !isDone()) {
+            pausing = false;
+            pausedApi = api;
+            chunks.offer(PAUSED);
+            return;
+        }
+        if (e.getErrorCode() != MegaError.API_OK) {
+            transferError = new MegaRequestException(transfer.getType(), e);
+        }
+        chunks.offer(END_OF_STREAM);
+    }
+
+    @Override
+    public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+
+    }
+
+    @Override
+    public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+
+    }
+
+    @Override
+    public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+    }
+
+    /*
+     * Writer task: feeds queued chunks to the consumer in order and returns their buffers to the pool, and resumes
+     * a paused transfer once the consumer has caught up. Once the consumer has failed, chunks are only released until
+     * the transfer has been cancelled and finished.
+     */
+    private void drain() {
+        long consumed = 0;
+        try {
+            ByteBuffer chunk;
+            while ((chunk = chunks.take()) != END_OF_STREAM) {
+                if (chunk == PAUSED) {
+                    if (isDone()) {
+                        break;
+                    }
+                    pausedApi.startStreaming(node, received, node.getSize() - received, this);
+                    continue;
+                }
+                try {
+                    if (!isDone()) {
+                        consumed += chunk.remaining();
+                        consumer.accept(chunk);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Failing the future makes onTransferData() cancel the transfer
+                    completeExceptionally(e);
+                } finally {
+                    bufferPool.release(chunk);
+                }
+            }
+            if (transferError != null) {
+                completeExceptionally(transferError);
+            }
+            else {
+                complete(consumed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package nz.mega.megacrudexample;
+
+import java.util.concurrent.CompletableFuture;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+
+/**
+ * A future which completes when the single MEGA transfer it was passed to as a listener finishes.
+ * <p>
+ * The MEGA SDK deletes the MegaTransfer once the listener method returns, so the future completes with a copy.
+ * Dependent stages which are not *Async run on the SDK callback thread and should be kept short.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+class TransferFuture extends CompletableFuture<MegaTransfer> implements MegaTransferListenerInterface {
+
+    /**
+     * Completes this future with a copy of the finished transfer, or exceptionally with a MegaRequestException.
+     *
+     * @param api The MEGA Java API object which called the finished transfer event
+     * @param transfer The MEGA Transfer which finished
+     * @param e The MEGA Error generated by the transfer
+     */
+    @Override
+    public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+        if (e.getErrorCode() == MegaError.API_OK) {
+            complete(transfer.copy());
+        }
+        else {
+            completeExceptionally(new MegaRequestException(transfer.getType(), e));
+        }
+    }
+
+    @Override
+    public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+
+    }
+
+    @Override
+    public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+
+    }
+
+    @Override
+    public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+    }
+
+    @Override
+    public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+        return false;
+    }
+}
@@ -0,0 +1,206 @@
+package nz.mega.megacrudexample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+
+/**
+ * A transfer listener which tracks the live throughput and progress of every MEGA transfer.
+ * <p>
+ * onTransferStart() and onTransferUpdate() keep a TransferProgress per running transfer with its smoothed
+ * bytes per second, time to first byte and time since it last made progress. Finished transfers feed time to first
+ * byte and duration histograms per direction. Everything can be queried while transfers run, so a slow or stalled
+ * transfer shows up before it finishes.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class TransferMetrics implements MegaTransferListenerInterface {
+
+    /*
+     * Histogram index of each transfer direction.
+     */
+    private static final int DIRECTIONS = 2;
+
+    /*
+     * A running transfer which has not made progress for this long is reported as stalled.
+     */
+    private final long stallThresholdNanos;
+
+    /*
+     * Running transfers keyed by transfer tag.
+     */
+    private final Map<Integer, TransferProgress> active = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram[] timeToFirstByte = new LatencyHistogram[DIRECTIONS];
+    private final LatencyHistogram[] duration = new LatencyHistogram[DIRECTIONS];
+    private final LongAdder[] finishedBytes = new LongAdder[DIRECTIONS];
+    private final LongAdder[] finishedTransfers = new LongAdder[DIRECTIONS];
+    private final LongAdder failedTransfers = new LongAdder();
+
+    /**
+     * Creates a new TransferMetrics.
+     *
+     * @param stallThreshold How long a running transfer may go without progress before it is reported as stalled
+     * @param unit The unit of stallThreshold
+     */
+    public TransferMetrics(long stallThreshold, TimeUnit unit) {
+        this.stallThresholdNanos = unit.toNanos(stallThreshold);
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            timeToFirstByte[direction] = new LatencyHistogram();
+            duration[direction] = new LatencyHistogram();
+            finishedBytes[direction] = new LongAdder();
+            finishedTransfers[direction] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+        active.put(transfer.getTag(), new TransferProgress(transfer, System.nanoTime()));
+    }
+
+    @Override
+    public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+        TransferProgress progress = active.get(transfer.getTag());
+        if (progress != null) {
+            progress.update(transfer.getTransferredBytes(), transfer.getTotalBytes(), System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+        TransferProgress progress = active.remove(transfer.getTag());
+        if (progress == null) {
+            return;
+        }
+        progress.finish(transfer.getTransferredBytes(), System.nanoTime());
+        if (e.getErrorCode() != MegaError.API_OK) {
+            failedTransfers.increment();
+            return;
+        }
+        int direction = directionOf(progress.getType());
+        if (progress.getTimeToFirstByteNanos() >= 0) {
+            timeToFirstByte[direction].record(progress.getTimeToFirstByteNanos());
+        }
+        duration[direction].record(progress.getDurationNanos());
+        finishedBytes[direction].add(progress.getTransferredBytes());
+        finishedTransfers[direction].increment();
+    }
+
+    @Override
+    public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+    }
+
+    /**
+     * Does not take part in streaming decisions. The SDK combines the results of all listeners, so returning false
+     * leaves it to the transfer's own listener whether a streaming transfer continues.
+     */
+    @Override
+    public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+        return false;
+    }
+
+    /**
+     * @return The progress of every running transfer
+     */
+    public List<TransferProgress> getActiveTransfers() {
+        return new ArrayList<>(active.values());
+    }
+
+    /**
+     * @return The running transfers which have made no progress for longer than the stall threshold
+     */
+    public List<TransferProgress> getStalledTransfers() {
+        List<TransferProgress> stalled = new ArrayList<>();
+        for (TransferProgress progress : active.values()) {
+            if (progress.getNanosSinceProgress() > stallThresholdNanos) {
+                stalled.add(progress);
+            }
+        }
+        return stalled;
+    }
+
+    /**
+     * Returns the combined rate of the running transfers in one direction.
+     *
+     * @param transferType MegaTransfer.TYPE_UPLOAD or MegaTransfer.TYPE_DOWNLOAD
+     * @return The sum of the smoothed rates of the running transfers in bytes per second, in which stalled transfers
+     * count for less the longer they have been stalled
+     */
+    public double getAggregateBytesPerSecond(int transferType) {
+        double total = 0;
+        for (TransferProgress progress : active.values()) {
+            if (progress.getType() == transferType) {
+                total += progress.getBytesPerSecond();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @param transferType MegaTransfer.TYPE_UPLOAD or MegaTransfer.TYPE_DOWNLOAD
+     * @return The time to first byte histogram of the finished transfers in one direction
+     */
+    public LatencyHistogram getTimeToFirstByte(int transferType) {
+        return timeToFirstByte[directionOf(transferType)];
+    }
+
+    /**
+     * @param transferType MegaTransfer.TYPE_UPLOAD or MegaTransfer.TYPE_DOWNLOAD
+     * @return The duration histogram of the finished transfers in one direction
+     */
+    public LatencyHistogram getDuration(int transferType) {
+        return duration[directionOf(transferType)];
+    }
+
+    /**
+     * @param transferType MegaTransfer.TYPE_UPLOAD or MegaTransfer.TYPE_DOWNLOAD
+     * @return The number of bytes moved by the successfully finished transfers in one direction
+     */
+    public long getFinishedBytes(int transferType) {
+        return finishedBytes[directionOf(transferType)].sum();
+    }
+
+    /**
+     * @param transferType MegaTransfer.TYPE_UPLOAD or MegaTransfer.TYPE_DOWNLOAD
+     * @return The number of successfully finished transfers in one direction
+     */
+    public long getFinishedTransfers(int transferType) {
+        return finishedTransfers[directionOf(transferType)].sum();
+    }
+
+    /**
+     * @return The number of transfers which finished with an error
+     */
+    public long getFailedTransfers() {
+        return failedTransfers.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        int[] types = {MegaTransfer.TYPE_UPLOAD, MegaTransfer.TYPE_DOWNLOAD};
+        for (int type : types) {
+            report.append(type == MegaTransfer.TYPE_UPLOAD ? "Uploads: " : "Downloads: ")
+                    .append(getFinishedTransfers(type)).append(" finished, ")
+                    .append(getFinishedBytes(type)).append(" bytes, time to first byte ")
+                    .append(getTimeToFirstByte(type)).append(", duration ")
+                    .append(getDuration(type)).append(System.lineSeparator());
+        }
+        report.append("Running: ").append(active.size()).append(", stalled: ").append(getStalledTransfers().size())
+                .append(", failed: ").append(getFailedTransfers());
+        return report.toString();
+    }
+
+    private static int directionOf(int transferType) {
+        return transferType == MegaTransfer.TYPE_UPLOAD ? 1 : 0;
+    }
+}
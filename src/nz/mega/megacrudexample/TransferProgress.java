@@ -0,0 +1,166 @@
+package nz.mega.megacrudexample;
+
+import java.util.concurrent.TimeUnit;
+
+import nz.mega.sdk.MegaTransfer;
+
+/**
+ * The live progress of one MEGA transfer, as tracked by TransferMetrics.
+ * <p>
+ * Fields are written by the MEGA SDK callback thread and may be read from any thread while the transfer runs.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class TransferProgress {
+
+    /*
+     * Weight of the latest sample in the smoothed transfer rate.
+     */
+    private static final double RATE_SMOOTHING = 0.3;
+
+    private final int tag;
+    private final int type;
+    private final String fileName;
+    private final long startNanos;
+
+    private volatile long totalBytes;
+    private volatile long transferredBytes;
+    private volatile long firstByteNanos;
+    private volatile long lastProgressNanos;
+    private volatile long finishNanos;
+    private volatile double bytesPerSecond;
+    private volatile long lastIntervalNanos;
+
+    TransferProgress(MegaTransfer transfer, long startNanos) {
+        this.tag = transfer.getTag();
+        this.type = transfer.getType();
+        this.fileName = transfer.getFileName();
+        this.startNanos = startNanos;
+        this.lastProgressNanos = startNanos;
+        this.totalBytes = transfer.getTotalBytes();
+    }
+
+    /*
+     * Records the bytes transferred so far and updates the smoothed rate.
+     */
+    void update(long transferred, long total, long now) {
+        long delta = transferred - transferredBytes;
+        totalBytes = total;
+        if (delta <= 0) {
+            return;
+        }
+        if (firstByteNanos == 0) {
+            firstByteNanos = now;
+        }
+        long elapsed = now - lastProgressNanos;
+        if (elapsed > 0) {
+            double sample = delta * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            bytesPerSecond = bytesPerSecond == 0 ? sample
+                    : RATE_SMOOTHING * sample + (1 - RATE_SMOOTHING) * bytesPerSecond;
+            lastIntervalNanos = elapsed;
+        }
+        transferredBytes = transferred;
+        lastProgressNanos = now;
+    }
+
+    void finish(long transferred, long now) {
+        update(transferred, totalBytes, now);
+        finishNanos = now;
+    }
+
+    /**
+     * @return The MEGA SDK tag of the transfer
+     */
+    public int getTag() {
+        return tag;
+    }
+
+    /**
+     * @return MegaTransfer.TYPE_UPLOAD or MegaTransfer.TYPE_DOWNLOAD
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return The name of the transferred file
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return The size of the transfer in bytes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return The number of bytes transferred so far
+     */
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    /**
+     * Returns the smoothed transfer rate over the recent updates. Once the transfer has gone quiet for longer than
+     * the interval between its last two updates, the rate is scaled down by that interval over the time since the
+     * last update, so a stalled transfer decays towards zero instead of keeping its last rate.
+     *
+     * @return The smoothed transfer rate in bytes per second
+     */
+    public double getBytesPerSecond() {
+        if (isFinished()) {
+            return getAverageBytesPerSecond();
+        }
+        double rate = bytesPerSecond;
+        long interval = lastIntervalNanos;
+        long silence = System.nanoTime() - lastProgressNanos;
+        return silence > interval && interval > 0 ? rate * interval / silence : rate;
+    }
+
+    /**
+     * @return The average transfer rate in bytes per second since the transfer started
+     */
+    public double getAverageBytesPerSecond() {
+        long elapsed = (isFinished() ? finishNanos : System.nanoTime()) - startNanos;
+        return elapsed <= 0 ? 0 : transferredBytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    /**
+     * @return The time from the start of the transfer to its first transferred bytes in nanoseconds, or -1 if no
+     * bytes have been transferred yet
+     */
+    public long getTimeToFirstByteNanos() {
+        return firstByteNanos == 0 ? -1 : firstByteNanos - startNanos;
+    }
+
+    /**
+     * @return The duration of the transfer in nanoseconds, so far if it is still running
+     */
+    public long getDurationNanos() {
+        return (isFinished() ? finishNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * @return The time since the transfer last made progress in nanoseconds, or 0 if it has finished
+     */
+    public long getNanosSinceProgress() {
+        return isFinished() ? 0 : System.nanoTime() - lastProgressNanos;
+    }
+
+    /**
+     * @return True once the transfer has finished
+     */
+    public boolean isFinished() {
+        return finishNanos != 0;
+    }
+
+    @Override
+    public String toString() {
+        return (type == MegaTransfer.TYPE_UPLOAD ? "upload " : "download ") + fileName + ": "
+                + transferredBytes + "/" + totalBytes + " bytes, "
+                + String.format("%.1f", getBytesPerSecond() / 1024) + " KiB/s";
+    }
+}
@@ -0,0 +1,573 @@
+package nz.mega.megacrudexample;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import nz.mega.sdk.MegaApiJava;
+import nz.mega.sdk.MegaError;
+import nz.mega.sdk.MegaNode;
+import nz.mega.sdk.MegaTransfer;
+import nz.mega.sdk.MegaTransferListenerInterface;
+
+/**
+ * Queues uploads and downloads and decides which of them the MEGA SDK runs next, instead of starting every transfer
+ * as soon as it is asked for.
+ * <p>
+ * Each direction runs at most maxConcurrent transfers at once. When a slot frees up the next transfer is picked by:
+ * <ol>
+ * <li>priority class: INTERACTIVE before NORMAL before BULK;</li>
+ * <li>fair sharing: within a class, the callers with queued transfers take turns, so one caller queueing thousands
+ * of files does not hold up another caller's single file;</li>
+ * <li>shortest job first: each caller's smallest queued file goes first, so a few very large files do not starve
+ * many small ones.</li>
+ * </ol>
+ * A transfer which has waited longer than maxWait is started before all of these, so large and low priority files
+ * are delayed but never starved.
+ * <p>
+ * The aggregate bandwidth of each direction can be capped by a token bucket. The scheduler listens to the transfers
+ * of the MegaApiJava object, once it has been added as one of its transfer listeners, and takes tokens for the bytes
+ * of every transfer as they move, whether the transfer was queued here or not. A queued transfer only starts while
+ * the bucket has tokens left. The SDK still moves the bytes of a running transfer at full speed, so the cap holds on
+ * average rather than over every second, and the debt the running transfers can run up is limited to one second's
+ * worth: however large a running BULK transfer is, a transfer queued behind it waits about a second at most once
+ * it has finished.
+ * <p>
+ * Uploads can be checked against the account's storage quota by a QuotaGuard when they are queued, so an upload
+ * which cannot fit fails straight away instead of after its data has been sent.
+ * <p>
+ * The time every transfer spent queued is recorded in a histogram per priority class.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class TransferScheduler implements MegaTransferListenerInterface {
+
+    /**
+     * The priority classes of transfers, highest first.
+     */
+    public enum Priority {
+
+        /**
+         * A user is waiting for the transfer.
+         */
+        INTERACTIVE,
+
+        /**
+         * The default for transfers started by the application.
+         */
+        NORMAL,
+
+        /**
+         * Background work such as bulk uploads and mirrors.
+         */
+        BULK
+    }
+
+    /*
+     * Wakes the dispatch of a direction whose token bucket was empty once it has been refilled.
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mega-transfer-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /*
+     * Orders each caller's queued transfers, smallest first and then in the order they were queued.
+     */
+    private static final Comparator<Job<?>> SMALLEST_FIRST = Comparator.<Job<?>>comparingLong(job -> job.size)
+            .thenComparingLong(job -> job.sequence);
+
+    private final MegaAsyncClient megaAsyncClient;
+    private final long maxWaitNanos;
+
+    /*
+     * Reserves storage for uploads as they are queued, or null to queue them unchecked.
+     */
+    private final QuotaGuard quotaGuard;
+
+    /*
+     * The queue of each direction, indexed by MegaTransfer.TYPE_DOWNLOAD and TYPE_UPLOAD.
+     */
+    private final Lane[] lanes = new Lane[2];
+
+    /*
+     * The time transfers spent queued before they started, per priority class.
+     */
+    private final Map<Priority, LatencyHistogram> queueWait = new EnumMap<>(Priority.class);
+
+    /*
+     * Orders transfers submitted at the same time and of the same size.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /*
+     * The bytes of each running transfer already taken from its token bucket, keyed by transfer tag.
+     */
+    private final Map<Integer, Long> charged = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new TransferScheduler.
+     *
+     * @param megaAsyncClient The client to start uploads and downloads on
+     * @param maxConcurrent The maximum number of transfers running at once in each direction
+     * @param uploadBytesPerSecond The aggregate upload bandwidth to keep to, or 0 for no limit
+     * @param downloadBytesPerSecond The aggregate download bandwidth to keep to, or 0 for no limit
+     * @param maxWait How long a transfer may be passed over by higher priority or smaller ones
+     * @param unit The unit of maxWait
+     */
+    public TransferScheduler(MegaAsyncClient megaAsyncClient, int maxConcurrent, long uploadBytesPerSecond,
+                             long downloadBytesPerSecond, long maxWait, TimeUnit unit) {
+        this(megaAsyncClient, maxConcurrent, uploadBytesPerSecond, downloadBytesPerSecond, maxWait, unit, null);
+    }
+
+    /**
+     * Creates a new TransferScheduler which reserves storage for every upload before queueing it.
+     *
+     * @param megaAsyncClient The client to start uploads and downloads on
+     * @param maxConcurrent The maximum number of transfers running at once in each direction
+     * @param uploadBytesPerSecond The aggregate upload bandwidth to keep to, or 0 for no limit
+     * @param downloadBytesPerSecond The aggregate download bandwidth to keep to, or 0 for no limit
+     * @param maxWait How long a transfer may be passed over by higher priority or smaller ones
+     * @param unit The unit of maxWait
+     * @param quotaGuard Reserves storage for uploads, or null to queue them unchecked
+     */
+    public TransferScheduler(MegaAsyncClient megaAsyncClient, int maxConcurrent, long uploadBytesPerSecond,
+                             long downloadBytesPerSecond, long maxWait, TimeUnit unit, QuotaGuard quotaGuard) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1: " + maxConcurrent);
+        }
+        this.megaAsyncClient = megaAsyncClient;
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        this.quotaGuard = quotaGuard;
+        lanes[MegaTransfer.TYPE_UPLOAD] = new Lane(maxConcurrent, new TokenBucket(uploadBytesPerSecond));
+        lanes[MegaTransfer.TYPE_DOWNLOAD] = new Lane(maxConcurrent, new TokenBucket(downloadBytesPerSecond));
+        for (Priority priority : Priority.values()) {
+            queueWait.put(priority, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Queues the upload of a local file.
+     *
+     * @param priority The priority class of the upload
+     * @param caller Identifies the caller, such as a bulk upload or a user, that the upload is fairly shared for
+     * @param localPath The local file to upload
+     * @param parent The folder to upload the file to
+     * @param size The size of the local file in bytes
+     * @return A future which completes with the finished transfer
+     */
+    public CompletableFuture<MegaTransfer> upload(Priority priority, Object caller, Path localPath, MegaNode parent,
+                                                  long size) {
+        return submit(MegaTransfer.TYPE_UPLOAD, priority, caller, size,
+                () -> megaAsyncClient.upload(localPath.toString(), parent));
+    }
+
+    /**
+     * Queues the download of a file.
+     *
+     * @param priority The priority class of the download
+     * @param caller Identifies the caller that the download is fairly shared for
+     * @param node The file node to download
+     * @param localPath The local path to download the file to
+     * @return A future which completes with the finished transfer
+     */
+    public CompletableFuture<MegaTransfer> download(Priority priority, Object caller, MegaNode node,
+                                                    String localPath) {
+        return submit(MegaTransfer.TYPE_DOWNLOAD, priority, caller, node.getSize(),
+                () -> megaAsyncClient.download(node, localPath));
+    }
+
+    /**
+     * Queues any transfer, such as a segmented download or a stream, which is started by a function once it is picked.
+     * <p>
+     * Cancelling the returned future while the transfer is queued removes it from the queue. An upload which the
+     * QuotaGuard refuses is not queued and its future fails with a QuotaExceededException.
+     *
+     * @param transferType MegaTransfer.TYPE_UPLOAD or TYPE_DOWNLOAD
+     * @param priority The priority class of the transfer
+     * @param caller Identifies the caller that the transfer is fairly shared for
+     * @param size The number of bytes the transfer moves
+     * @param start Starts the transfer and returns a future which completes when it has finished
+     * @param <T> The result of the transfer
+     * @return A future which completes with the result of the transfer
+     */
+    public <T> CompletableFuture<T> submit(int transferType, Priority priority, Object caller, long size,
+                                           Supplier<? extends CompletableFuture<? extends T>> start) {
+        Lane lane = lanes[transferType];
+        Job<T> job = new Job<>(priority, caller, size, sequence.incrementAndGet(), start);
+        if (transferType == MegaTransfer.TYPE_UPLOAD && quotaGuard != null) {
+            try {
+                quotaGuard.reserve(size);
+            } catch (QuotaExceededException e) {
+                job.result.completeExceptionally(e);
+                return job.result;
+            }
+            job.result.whenComplete((result, failure) -> {
+                if (failure == null) {
+                    quotaGuard.commit(size);
+                }
+                else {
+                    quotaGuard.release(size);
+                }
+            });
+        }
+        synchronized (lane) {
+            lane.add(job);
+        }
+        dispatch(lane);
+        return job.result;
+    }
+
+    /**
+     * @param priority A priority class
+     * @return The time the transfers of that class spent queued before they started
+     */
+    public LatencyHistogram getQueueWait(Priority priority) {
+        return queueWait.get(priority);
+    }
+
+    /**
+     * @param transferType MegaTransfer.TYPE_UPLOAD or TYPE_DOWNLOAD
+     * @return The number of transfers in that direction waiting to start
+     */
+    public int getQueued(int transferType) {
+        Lane lane = lanes[transferType];
+        synchronized (lane) {
+            return lane.queued;
+        }
+    }
+
+    /**
+     * @param transferType MegaTransfer.TYPE_UPLOAD or TYPE_DOWNLOAD
+     * @return The number of transfers in that direction running now
+     */
+    public int getRunning(int transferType) {
+        Lane lane = lanes[transferType];
+        synchronized (lane) {
+            return lane.running;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Transfer scheduler: ")
+                .append(getRunning(MegaTransfer.TYPE_UPLOAD)).append(" uploads running, ")
+                .append(getQueued(MegaTransfer.TYPE_UPLOAD)).append(" queued; ")
+                .append(getRunning(MegaTransfer.TYPE_DOWNLOAD)).append(" downloads running, ")
+                .append(getQueued(MegaTransfer.TYPE_DOWNLOAD)).append(" queued");
+        for (Priority priority : Priority.values()) {
+            LatencyHistogram histogram = queueWait.get(priority);
+            if (histogram.getCount() > 0) {
+                builder.append(System.lineSeparator()).append("  queue wait ").append(priority).append(": ")
+                        .append(histogram);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void onTransferStart(MegaApiJava api, MegaTransfer transfer) {
+
+    }
+
+    /**
+     * Takes tokens for the bytes the transfer has moved since its last update.
+     *
+     * @param api The MEGA Java API object which called the transfer update event
+     * @param transfer The MEGA Transfer which made progress
+     */
+    @Override
+    public void onTransferUpdate(MegaApiJava api, MegaTransfer transfer) {
+        charge(transfer, false);
+    }
+
+    @Override
+    public void onTransferTemporaryError(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+
+    }
+
+    /**
+     * Takes tokens for the last bytes the transfer moved and forgets it.
+     *
+     * @param api The MEGA Java API object which called the transfer finish event
+     * @param transfer The MEGA Transfer which has finished
+     * @param e The error code of the finished transfer
+     */
+    @Override
+    public void onTransferFinish(MegaApiJava api, MegaTransfer transfer, MegaError e) {
+        charge(transfer, true);
+    }
+
+    @Override
+    public boolean onTransferData(MegaApiJava api, MegaTransfer transfer, byte[] buffer) {
+        return true;
+    }
+
+    /*
+     * Takes tokens for the bytes a transfer has moved which have not been charged yet.
+     */
+    private void charge(MegaTransfer transfer, boolean finished) {
+        Integer tag = transfer.getTag();
+        long transferred = transfer.getTransferredBytes();
+        Long before = finished ? charged.remove(tag) : charged.put(tag, transferred);
+        long bytes = transferred - (before == null ? 0 : before);
+        Lane lane = lanes[transfer.getType()];
+        if (bytes > 0) {
+            synchronized (lane) {
+                lane.bucket.take(bytes, System.nanoTime());
+            }
+        }
+    }
+
+    /*
+     * Starts queued transfers while the lane has free slots and tokens. The transfers are started outside the lock,
+     * as starting one may complete it straight away and dispatch again.
+     */
+    private void dispatch(Lane lane) {
+        List<Job<?>> started = new ArrayList<>();
+        synchronized (lane) {
+            long now = System.nanoTime();
+            while (lane.running < lane.maxConcurrent && lane.queued > 0) {
+                long delay = lane.bucket.delayNanos(now);
+                if (delay > 0) {
+                    if (!lane.wakeScheduled) {
+                        lane.wakeScheduled = true;
+                        TIMER.schedule(() -> {
+                            synchronized (lane) {
+                                lane.wakeScheduled = false;
+                            }
+                            dispatch(lane);
+                        }, delay, TimeUnit.NANOSECONDS);
+                    }
+                    break;
+                }
+                Job<?> job = lane.next(now, maxWaitNanos);
+                if (job == null) {
+                    break;
+                }
+                lane.running++;
+                queueWait.get(job.priority).record(now - job.queuedNanos);
+                started.add(job);
+            }
+        }
+        for (Job<?> job : started) {
+            start(lane, job);
+        }
+    }
+
+    private <T> void start(Lane lane, Job<T> job) {
+        CompletableFuture<? extends T> transfer;
+        try {
+            transfer = job.start.get();
+        } catch (RuntimeException e) {
+            transfer = new CompletableFuture<>();
+            transfer.completeExceptionally(e);
+        }
+        transfer.whenComplete((result, failure) -> {
+            synchronized (lane) {
+                lane.running--;
+            }
+            if (failure != null) {
+                job.result.completeExceptionally(failure);
+            }
+            else {
+                job.result.complete(result);
+            }
+            dispatch(lane);
+        });
+    }
+
+    /*
+     * The queued transfers of one direction: a class queue per priority, each of which takes turns between its
+     * callers. Guarded by its own monitor.
+     */
+    private static final class Lane {
+        final int maxConcurrent;
+        final TokenBucket bucket;
+        final Map<Priority, ClassQueue> classes = new EnumMap<>(Priority.class);
+        int queued;
+        int running;
+        boolean wakeScheduled;
+
+        Lane(int maxConcurrent, TokenBucket bucket) {
+            this.maxConcurrent = maxConcurrent;
+            this.bucket = bucket;
+            for (Priority priority : Priority.values()) {
+                classes.put(priority, new ClassQueue());
+            }
+        }
+
+        void add(Job<?> job) {
+            classes.get(job.priority).add(job);
+            queued++;
+        }
+
+        /*
+         * Removes and returns the next transfer to start: the oldest one if it has waited too long, otherwise the
+         * smallest of the next caller in the highest non-empty class. Transfers cancelled while queued are dropped.
+         */
+        Job<?> next(long now, long maxWaitNanos) {
+            while (queued > 0) {
+                Job<?> job = oldest();
+                if (job != null && now - job.queuedNanos > maxWaitNanos) {
+                    classes.get(job.priority).remove(job);
+                }
+                else {
+                    job = null;
+                    for (ClassQueue queue : classes.values()) {
+                        job = queue.poll();
+                        if (job != null) {
+                            break;
+                        }
+                    }
+                }
+                queued--;
+                if (!job.result.isDone()) {
+                    return job;
+                }
+            }
+            return null;
+        }
+
+        private Job<?> oldest() {
+            Job<?> oldest = null;
+            for (ClassQueue queue : classes.values()) {
+                Job<?> candidate = queue.oldest();
+                if (candidate != null && (oldest == null || candidate.sequence < oldest.sequence)) {
+                    oldest = candidate;
+                }
+            }
+            return oldest;
+        }
+    }
+
+    /*
+     * The queued transfers of one priority class in one direction: the callers with queued transfers in turn
+     * order, each with its transfers smallest first, and every transfer in the order it was queued.
+     */
+    private static final class ClassQueue {
+        final Map<Object, TreeSet<Job<?>>> byCaller = new IdentityHashMap<>();
+        final ArrayDeque<Object> turns = new ArrayDeque<>();
+        final TreeSet<Job<?>> arrivals = new TreeSet<>(Comparator.comparingLong(job -> job.sequence));
+
+        void add(Job<?> job) {
+            TreeSet<Job<?>> jobs = byCaller.get(job.caller);
+            if (jobs == null) {
+                jobs = new TreeSet<>(SMALLEST_FIRST);
+                byCaller.put(job.caller, jobs);
+                turns.addLast(job.caller);
+            }
+            jobs.add(job);
+            arrivals.add(job);
+        }
+
+        Job<?> oldest() {
+            return arrivals.isEmpty() ? null : arrivals.first();
+        }
+
+        /*
+         * Takes the smallest transfer of the caller whose turn it is and moves that caller to the back.
+         */
+        Job<?> poll() {
+            Object caller = turns.pollFirst();
+            if (caller == null) {
+                return null;
+            }
+            TreeSet<Job<?>> jobs = byCaller.get(caller);
+            Job<?> job = jobs.pollFirst();
+            arrivals.remove(job);
+            if (jobs.isEmpty()) {
+                byCaller.remove(caller);
+            }
+            else {
+                turns.addLast(caller);
+            }
+            return job;
+        }
+
+        void remove(Job<?> job) {
+            arrivals.remove(job);
+            TreeSet<Job<?>> jobs = byCaller.get(job.caller);
+            jobs.remove(job);
+            if (jobs.isEmpty()) {
+                byCaller.remove(job.caller);
+                turns.remove(job.caller);
+            }
+        }
+    }
+
+    /*
+     * One queued transfer.
+     */
+    private static final class Job<T> {
+        final Priority priority;
+        final Object caller;
+        final long size;
+        final long sequence;
+        final long queuedNanos = System.nanoTime();
+        final Supplier<? extends CompletableFuture<? extends T>> start;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Job(Priority priority, Object caller, long size, long sequence,
+            Supplier<? extends CompletableFuture<? extends T>> start) {
+            this.priority = priority;
+            this.caller = caller;
+            this.size = size;
+            this.sequence = sequence;
+            this.start = start;
+        }
+    }
+
+    /*
+     * Allows bytesPerSecond on average with bursts of up to one second's worth. Taking more tokens than the bucket
+     * holds puts it into debt of up to one second's worth, as the bytes have already moved by the time they are
+     * taken. Guarded by the monitor of the lane it belongs to.
+     */
+    private static final class TokenBucket {
+        final long bytesPerSecond;
+        double tokens;
+        long refilledNanos = System.nanoTime();
+
+        TokenBucket(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.tokens = bytesPerSecond;
+        }
+
+        /*
+         * The time until a transfer may start, or 0 if it may start now.
+         */
+        long delayNanos(long now) {
+            if (bytesPerSecond <= 0) {
+                return 0;
+            }
+            refill(now);
+            return tokens > 0 ? 0 : (long) Math.ceil(-tokens * 1e9 / bytesPerSecond) + 1;
+        }
+
+        void take(long bytes, long now) {
+            if (bytesPerSecond > 0) {
+                refill(now);
+                tokens = Math.max(-bytesPerSecond, tokens - bytes);
+            }
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(bytesPerSecond, tokens + (now - refilledNanos) * bytesPerSecond / 1e9);
+            refilledNanos = now;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package nz.mega.megacrudexample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A workflow declared as a directed acyclic graph of named steps, which runs every step as soon as all of its
+ * dependencies have finished.
+ * <p>
+ * Steps are declared with step(), naming the steps they depend on. A dependency must be declared before the step
+ * which needs it, so a workflow can never contain a cycle. A step which fails, and every step depending on it, is
+ * reported as failed and skipped respectively; independent steps still run.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class Workflow {
+
+    /*
+     * The declared steps in declaration order, keyed by name.
+     */
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    /**
+     * Declares a step.
+     *
+     * @param name The unique name of the step
+     * @param action The work of the step
+     * @param dependsOn The names of the steps which must finish before this one starts
+     * @return This workflow, to declare further steps
+     * @throws IllegalArgumentException If the name is taken or a dependency has not been declared
+     */
+    public Workflow step(String name, Runnable action, String... dependsOn) {
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate step: " + name);
+        }
+        for (String dependency : dependsOn) {
+            if (!steps.containsKey(dependency)) {
+                throw new IllegalArgumentException("Step " + name + " depends on undeclared step " + dependency);
+            }
+        }
+        steps.put(name, new Step(name, action, Arrays.asList(dependsOn)));
+        return this;
+    }
+
+    /**
+     * Runs the workflow and waits for every step to finish or be skipped.
+     *
+     * @param executor The executor the steps run on. It needs as many threads as steps may run at once.
+     * @return The wall time of every step and the critical path
+     */
+    public WorkflowReport run(Executor executor) {
+        long started = System.nanoTime();
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        Map<String, WorkflowReport.StepTiming> timings = new LinkedHashMap<>();
+        for (Step step : steps.values()) {
+            WorkflowReport.StepTiming timing = new WorkflowReport.StepTiming(step.name, step.dependsOn);
+            timings.put(step.name, timing);
+            List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+            for (String dependency : step.dependsOn) {
+                dependencies.add(futures.get(dependency));
+            }
+            CompletableFuture<Void> ready = CompletableFuture.allOf(
+                    dependencies.toArray(new CompletableFuture<?>[0]));
+            futures.put(step.name, ready.thenRunAsync(() -> {
+                timing.started(System.nanoTime() - started);
+                try {
+                    step.action.run();
+                } catch (RuntimeException e) {
+                    timing.failed(System.nanoTime() - started, e);
+                    throw e;
+                }
+                timing.finished(System.nanoTime() - started);
+            }, executor));
+        }
+        for (CompletableFuture<Void> future : futures.values()) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                // Recorded in the step's timing, or the step was skipped
+            }
+        }
+        return new WorkflowReport(timings, System.nanoTime() - started);
+    }
+
+    private static final class Step {
+        private final String name;
+        private final Runnable action;
+        private final List<String> dependsOn;
+
+        Step(String name, Runnable action, List<String> dependsOn) {
+            this.name = name;
+            this.action = action;
+            this.dependsOn = dependsOn;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package nz.mega.megacrudexample;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The per-step wall times and the critical path of a Workflow run.
+ * <p>
+ * The critical path is the chain of steps which decided how long the run took. It starts at the step which
+ * finished last and follows, at every step, the dependency which finished last. Speeding up any other step does
+ * not shorten the run.
+ *
+ * @author jaimesbooth 2026.10.17
+ */
+public class WorkflowReport {
+
+    /*
+     * The timings of all steps in declaration order, keyed by step name.
+     */
+    private final Map<String, StepTiming> timings;
+
+    /*
+     * Wall time of the whole run.
+     */
+    private final long elapsedNanos;
+
+    WorkflowReport(Map<String, StepTiming> timings, long elapsedNanos) {
+        this.timings = timings;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return The timings of all steps in declaration order
+     */
+    public Collection<StepTiming> getSteps() {
+        return Collections.unmodifiableCollection(timings.values());
+    }
+
+    /**
+     * @return The steps of the critical path, from the first to the last
+     */
+    public List<StepTiming> getCriticalPath() {
+        StepTiming last = null;
+        for (StepTiming timing : timings.values()) {
+            if (timing.endNanos >= 0 && (last == null || timing.endNanos > last.endNanos)) {
+                last = timing;
+            }
+        }
+        List<StepTiming> path = new ArrayList<>();
+        while (last != null) {
+            path.add(last);
+            StepTiming latest = null;
+            for (String dependency : last.dependsOn) {
+                StepTiming candidate = timings.get(dependency);
+                if (latest == null || candidate.endNanos > latest.endNanos) {
+                    latest = candidate;
+                }
+            }
+            last = latest;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @return The wall time of the whole run in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The sum of the wall times of all steps in nanoseconds, which is how long running them one after the
+     * other would have taken
+     */
+    public long getSumOfStepsNanos() {
+        long sum = 0;
+        for (StepTiming timing : timings.values()) {
+            sum += timing.getWallNanos();
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("Workflow: ")
+                .append(LatencyHistogram.formatMillis(elapsedNanos)).append(" wall, ")
+                .append(LatencyHistogram.formatMillis(getSumOfStepsNanos())).append(" sum of steps");
+        for (StepTiming timing : timings.values()) {
+            report.append(System.lineSeparator()).append("  ").append(timing);
+        }
+        report.append(System.lineSeparator()).append("  critical path:");
+        String separator = " ";
+        for (StepTiming timing : getCriticalPath()) {
+            report.append(separator).append(timing.getName());
+            separator = " -> ";
+        }
+        return report.toString();
+    }
+
+    /**
+     * The wall time of one step, measured from the start of the run.
+     */
+    public static final class StepTiming {
+        private final String name;
+        private final List<String> dependsOn;
+        private volatile long startNanos = -1;
+        private volatile long endNanos = -1;
+        private volatile Throwable failure;
+
+        StepTiming(String name, List<String> dependsOn) {
+            this.name = name;
+            this.dependsOn = dependsOn;
+        }
+
+        void started(long nanos) {
+            startNanos = nanos;
+        }
+
+        void finished(long nanos) {
+            endNanos = nanos;
+        }
+
+        void failed(long nanos, Throwable cause) {
+            endNanos = nanos;
+            failure = cause;
+        }
+
+        /**
+         * @return The name of the step
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return When the step started in nanoseconds from the start of the run, or -1 if it was skipped
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        /**
+         * @return When the step ended in nanoseconds from the start of the run, or -1 if it was skipped
+         */
+        public long getEndNanos() {
+            return endNanos;
+        }
+
+        /**
+         * @return The wall time of the step in nanoseconds, or 0 if it was skipped
+         */
+        public long getWallNanos() {
+            return startNanos < 0 || endNanos < 0 ? 0 : endNanos - startNanos;
+        }
+
+        /**
+         * @return The failure of the step, or null if it succeeded or was skipped
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            if (startNanos < 0) {
+                return name + ": skipped";
+            }
+            return name + ": " + LatencyHistogram.formatMillis(getWallNanos()) + " (from "
+                    + LatencyHistogram.formatMillis(startNanos) + ")" + (failure != null ? " failed: " + failure : "");
+        }
+    }
+}